@@ -798,7 +798,7 @@ CREATE TABLE `biz_investment_report` (
                                          `message_id` bigint DEFAULT NULL COMMENT '关联的消息ID',
                                          `analysis_result` text COMMENT 'AI第一步分析结果(JSON或文本)',
                                          `advice_content` text COMMENT 'AI第二步调仓建议(Markdown/HTML)',
-                                         `status` char(1) DEFAULT '0' COMMENT '审核状态(0=待审核, 1=已通过, 2=已驳回)',
+                                         `status` char(1) DEFAULT '0' COMMENT '审核状态(0=待审核, 1=已通过, 2=已驳回, 3=生成中, 4=生成失败)',
                                          `audit_by` varchar(64) DEFAULT NULL COMMENT '审核人',
                                          `audit_time` datetime DEFAULT NULL COMMENT '审核时间',
                                          `reject_reason` varchar(255) DEFAULT NULL COMMENT '驳回原因',
@@ -867,4 +867,174 @@ CREATE TABLE `biz_crypto_metrics` (
   KEY `idx_name` (`name`),
   KEY `idx_snapshot_time` (`snapshot_time`),
   KEY `idx_symbol` (`symbol`)
-) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='虚拟货币行情指标表（Dify爬取数据专用）';
\ No newline at end of file
+) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='虚拟货币行情指标表（Dify爬取数据专用）';
+
+-- `ry-react`.biz_crypto_metrics_latest definition（各币种最新行情指针，采集入库时同步维护）
+
+CREATE TABLE `biz_crypto_metrics_latest` (
+  `symbol` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '币种符号',
+  `metrics_id` int NOT NULL COMMENT '最新一条行情 biz_crypto_metrics.id',
+  `snapshot_time` datetime NOT NULL COMMENT '最新行情的快照时间',
+  PRIMARY KEY (`symbol`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='虚拟货币最新行情指针表';
+
+-- 已有数据初始化最新行情指针
+INSERT INTO biz_crypto_metrics_latest (symbol, metrics_id, snapshot_time)
+SELECT symbol, id, snapshot_time FROM (
+  SELECT symbol, id, snapshot_time,
+  ROW_NUMBER() OVER (PARTITION BY symbol ORDER BY snapshot_time DESC, id DESC) AS rn
+  FROM biz_crypto_metrics WHERE symbol IS NOT NULL
+) t WHERE rn = 1;
+
+
+-- `ry-react`.biz_crypto_metrics_hourly definition
+
+CREATE TABLE `biz_crypto_metrics_hourly` (
+  `symbol` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '币种符号',
+  `bucket_time` datetime NOT NULL COMMENT '小时起点',
+  `name` varchar(50) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '币种中文名称',
+  `open_price` decimal(20,8) DEFAULT NULL COMMENT '开盘价（USD）',
+  `high_price` decimal(20,8) DEFAULT NULL COMMENT '最高价（USD）',
+  `low_price` decimal(20,8) DEFAULT NULL COMMENT '最低价（USD）',
+  `close_price` decimal(20,8) DEFAULT NULL COMMENT '收盘价（USD）',
+  `market_cap` decimal(20,4) DEFAULT NULL COMMENT '收盘市值（亿美元）',
+  `change_24h` decimal(10,2) DEFAULT NULL COMMENT '收盘时24小时涨跌幅（%）',
+  `sample_count` int NOT NULL DEFAULT '0' COMMENT '快照数量',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '聚合时间',
+  PRIMARY KEY (`symbol`,`bucket_time`),
+  KEY `idx_bucket_time` (`bucket_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='虚拟货币行情小时K线';
+
+
+-- `ry-react`.biz_crypto_metrics_daily definition
+
+CREATE TABLE `biz_crypto_metrics_daily` (
+  `symbol` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '币种符号',
+  `bucket_time` datetime NOT NULL COMMENT '日期起点',
+  `name` varchar(50) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '币种中文名称',
+  `open_price` decimal(20,8) DEFAULT NULL COMMENT '开盘价（USD）',
+  `high_price` decimal(20,8) DEFAULT NULL COMMENT '最高价（USD）',
+  `low_price` decimal(20,8) DEFAULT NULL COMMENT '最低价（USD）',
+  `close_price` decimal(20,8) DEFAULT NULL COMMENT '收盘价（USD）',
+  `market_cap` decimal(20,4) DEFAULT NULL COMMENT '收盘市值（亿美元）',
+  `change_24h` decimal(10,2) DEFAULT NULL COMMENT '收盘时24小时涨跌幅（%）',
+  `sample_count` int NOT NULL DEFAULT '0' COMMENT '快照数量',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '聚合时间',
+  PRIMARY KEY (`symbol`,`bucket_time`),
+  KEY `idx_bucket_time` (`bucket_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='虚拟货币行情日K线';
+
+
+-- `ry-react`.biz_trade_execution definition（报告调仓幂等记录，与持仓变更在同一事务内写入）
+
+CREATE TABLE `biz_trade_execution` (
+  `idempotency_key` varchar(64) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '幂等键，report:{报告ID}',
+  `report_id` bigint NOT NULL COMMENT '投资建议报告ID',
+  `action_count` int NOT NULL DEFAULT '0' COMMENT '报告中的操作指令数',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '执行时间',
+  PRIMARY KEY (`idempotency_key`),
+  KEY `idx_report_id` (`report_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='投资建议报告调仓执行记录';
+
+
+-- `ry-react`.biz_coin_registry definition（币种登记表：符号、中文名称、别名与是否采集，修改后内存字典自动重新加载）
+
+CREATE TABLE `biz_coin_registry` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `symbol` varchar(20) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '币种符号，如 BTC',
+  `name` varchar(50) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '中文名称，如 比特币（行情提示词与行情 name 字段）',
+  `aliases` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT '' COMMENT '别名，逗号分隔，如 Bitcoin,XBT',
+  `tracked` char(1) COLLATE utf8mb4_unicode_ci DEFAULT '1' COMMENT '是否采集行情（1是 0否）',
+  `stablecoin` char(1) COLLATE utf8mb4_unicode_ci DEFAULT '0' COMMENT '是否稳定币（1是 0否）',
+  `sort_order` int DEFAULT '0' COMMENT '显示顺序',
+  `create_by` varchar(64) COLLATE utf8mb4_unicode_ci DEFAULT '' COMMENT '创建者',
+  `create_time` datetime DEFAULT NULL COMMENT '创建时间',
+  `update_by` varchar(64) COLLATE utf8mb4_unicode_ci DEFAULT '' COMMENT '更新者',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  `remark` varchar(500) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '备注',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_symbol` (`symbol`),
+  UNIQUE KEY `uk_name` (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='币种登记表';
+
+INSERT INTO biz_coin_registry (symbol, name, aliases, tracked, stablecoin, sort_order, create_by, create_time) VALUES
+('BTC',  '比特币', 'Bitcoin,XBT',       '1', '0', 1,  'admin', NOW()),
+('ETH',  '以太坊', 'Ethereum,以太币',   '1', '0', 2,  'admin', NOW()),
+('USDT', '泰达币', 'Tether',            '1', '1', 3,  'admin', NOW()),
+('BNB',  '币安币', 'Binance Coin',      '1', '0', 4,  'admin', NOW()),
+('SOL',  '索拉纳', 'Solana',            '1', '0', 5,  'admin', NOW()),
+('XRP',  '瑞波币', 'Ripple',            '1', '0', 6,  'admin', NOW()),
+('USDC', 'USDC',   'USD Coin',          '1', '1', 7,  'admin', NOW()),
+('DOGE', '狗狗币', 'Dogecoin',          '1', '0', 8,  'admin', NOW()),
+('ADA',  '艾达币', 'Cardano',           '1', '0', 9,  'admin', NOW()),
+('TRX',  '波场',   'Tron',              '1', '0', 10, 'admin', NOW()),
+('TON',  '吨币',   'Toncoin',           '1', '0', 11, 'admin', NOW()),
+('DOT',  '波卡',   'Polkadot',          '1', '0', 12, 'admin', NOW()),
+('LINK', '链节币', 'Chainlink',         '1', '0', 13, 'admin', NOW()),
+('SHIB', '柴犬币', 'Shiba Inu',         '1', '0', 14, 'admin', NOW()),
+('LTC',  '莱特币', 'Litecoin',          '1', '0', 15, 'admin', NOW());
+
+
+-- biz_crypto_message 增加内容指纹（新闻去重：归一化内容的 SHA-256 与 SimHash），
+-- idx_fingerprint 覆盖去重窗口查询（按入库时间范围扫描，直接从索引取出币种与指纹）。
+-- 指纹由归一化内容在应用中计算，已有数据由 NewsFingerprintBackfill 在应用启动后一次性回填
+ALTER TABLE `biz_crypto_message`
+  ADD COLUMN `content_hash` char(64) DEFAULT NULL COMMENT '归一化内容的 SHA-256' AFTER `publish_time`,
+  ADD COLUMN `simhash` bigint DEFAULT NULL COMMENT '归一化内容的 64 位 SimHash' AFTER `content_hash`,
+  ADD KEY `idx_fingerprint` (`create_time`, `coin`, `content_hash`, `simhash`);
+
+
+-- biz_crypto_message 报告上下文查询索引：按时间窗口取每个币种最新消息时，排名只读 (coin, create_time, id)，不回表
+ALTER TABLE `biz_crypto_message`
+  ADD KEY `idx_coin_time` (`coin`, `create_time`);
+
+
+-- `ry-react`.biz_report_job definition（报告生成任务队列：提交即返回，工作线程按提交顺序领取，重启后恢复执行）
+
+CREATE TABLE `biz_report_job` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '任务ID',
+  `job_type` varchar(16) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '任务类型（MESSAGE单条新闻 SUMMARY汇总）',
+  `message_id` bigint DEFAULT NULL COMMENT '关联消息ID',
+  `refresh` char(1) COLLATE utf8mb4_unicode_ci DEFAULT '0' COMMENT '是否跳过AI答案缓存（1是 0否）',
+  `status` char(1) COLLATE utf8mb4_unicode_ci NOT NULL DEFAULT '0' COMMENT '状态（0排队 1执行中 2完成 3失败 4取消）',
+  `progress` int NOT NULL DEFAULT '0' COMMENT '进度（0-100）',
+  `stage` varchar(64) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '当前阶段',
+  `report_id` bigint DEFAULT NULL COMMENT '生成的报告ID',
+  `error_msg` varchar(1000) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '错误信息',
+  `attempts` int NOT NULL DEFAULT '0' COMMENT '已执行次数',
+  `create_by` varchar(64) COLLATE utf8mb4_unicode_ci DEFAULT '' COMMENT '提交者',
+  `create_time` datetime DEFAULT NULL COMMENT '提交时间',
+  `start_time` datetime DEFAULT NULL COMMENT '开始执行时间',
+  `finish_time` datetime DEFAULT NULL COMMENT '结束时间',
+  `owner_node` varchar(128) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '执行节点',
+  `heartbeat_time` datetime DEFAULT NULL COMMENT '执行节点最后心跳时间（超时后由其他节点重新排队）',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_id` (`status`, `id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报告生成任务表';
+
+
+-- `ry-react`.biz_coin_sentiment definition（币种情绪指数：内存中按 1h / 24h / 7d 窗口增量汇总，定时写入）
+
+CREATE TABLE `biz_coin_sentiment` (
+  `coin` varchar(32) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '币种（标准符号）',
+  `window_hours` int NOT NULL COMMENT '时间窗口（小时）',
+  `message_count` int NOT NULL DEFAULT '0' COMMENT '窗口内消息数',
+  `positive_count` int NOT NULL DEFAULT '0' COMMENT '利好消息数',
+  `negative_count` int NOT NULL DEFAULT '0' COMMENT '利空消息数',
+  `impact_sum` int NOT NULL DEFAULT '0' COMMENT '影响分数之和',
+  `abs_impact_sum` int NOT NULL DEFAULT '0' COMMENT '影响分数绝对值之和',
+  `score` decimal(8,4) NOT NULL DEFAULT '0.0000' COMMENT '时间衰减情绪分（-2 ~ 2）',
+  `update_time` datetime DEFAULT NULL COMMENT '计算时间',
+  PRIMARY KEY (`coin`, `window_hours`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='币种情绪指数表';
+
+
+-- `ry-react`.biz_collect_fence definition（采集任务写入防护令牌：与采集数据在同一事务内前移，旧租约的迟到写入会被拒绝）
+
+CREATE TABLE `biz_collect_fence` (
+  `task_name` varchar(64) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '租约名称',
+  `fence` bigint NOT NULL DEFAULT '0' COMMENT '最近一次写入的防护令牌',
+  `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`task_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='采集任务写入防护令牌表';
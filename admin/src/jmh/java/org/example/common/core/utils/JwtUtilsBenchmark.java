@@ -0,0 +1,148 @@
+package org.example.common.core.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.example.common.core.constant.SecurityConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌解析基准：不缓存（每次验签）、改造前的全局同步 LRU、当前的无锁读缓存，8 线程并发解析
+ *
+ * 运行：mvn -Pjmh -pl admin -am test-compile exec:exec -Djmh.args="JwtUtilsBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class JwtUtilsBenchmark
+{
+    /** 同时在线的令牌数 */
+    @Param({ "1000" })
+    public int tokenCount;
+
+    private String[] tokens;
+
+    private final SynchronizedLruCache lru = new SynchronizedLruCache(10000);
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        tokens = new String[tokenCount];
+        for (int i = 0; i < tokenCount; i++)
+        {
+            Map<String, Object> claims = new HashMap<String, Object>();
+            claims.put(SecurityConstants.USER_KEY, "token-" + i);
+            claims.put(SecurityConstants.DETAILS_USER_ID, i);
+            claims.put(SecurityConstants.DETAILS_USERNAME, "user" + i);
+            tokens[i] = JwtUtils.createToken(claims);
+        }
+        JwtUtils.clearClaimsCache();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private int next;
+
+        int next(int bound)
+        {
+            next = (next + 1) % bound;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Claims uncached(Cursor cursor)
+    {
+        return Jwts.parser().setSigningKey(JwtUtils.secret).parseClaimsJws(tokens[cursor.next(tokenCount)]).getBody();
+    }
+
+    @Benchmark
+    public Claims synchronizedLru(Cursor cursor)
+    {
+        return lru.parse(tokens[cursor.next(tokenCount)]);
+    }
+
+    @Benchmark
+    public Claims parseToken(Cursor cursor)
+    {
+        return JwtUtils.parseToken(tokens[cursor.next(tokenCount)]);
+    }
+
+    /**
+     * 改造前的实现：全局 synchronized 的访问顺序 LinkedHashMap，命中时也要加锁（get 会调整链表顺序）
+     */
+    private static class SynchronizedLruCache
+    {
+        private final Map<String, Claims> cache;
+
+        private SynchronizedLruCache(final int maxEntries)
+        {
+            cache = new LinkedHashMap<String, Claims>(16, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest)
+                {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        private Claims parse(String token)
+        {
+            String digest = digest(token);
+            synchronized (cache)
+            {
+                Claims cached = cache.get(digest);
+                if (cached != null)
+                {
+                    return cached;
+                }
+            }
+            Claims claims = Jwts.parser().setSigningKey(JwtUtils.secret).parseClaimsJws(token).getBody();
+            synchronized (cache)
+            {
+                cache.put(digest, claims);
+            }
+            return claims;
+        }
+
+        private static String digest(String token)
+        {
+            try
+            {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+            }
+            catch (Exception e)
+            {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.system.security.auth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * 权限判断基准：原有逐条 simpleMatch 与预编译前缀树，权限集合 500 条以上，查询一半命中一半不命中
+ *
+ * 运行：mvn -Pjmh -pl admin -am test-compile exec:exec -Djmh.args="PermissionMatcherBenchmark -f 1"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionMatcherBenchmark
+{
+    private static final String[] ACTIONS = { "list", "query", "add", "edit", "remove", "export" };
+
+    /** 权限条数 */
+    @Param({ "600", "2000" })
+    public int permissionCount;
+
+    private List<String> permissions;
+
+    private PermissionMatcher matcher;
+
+    private String[] queries;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Random random = new Random(42L);
+        permissions = new ArrayList<String>(permissionCount);
+        for (int i = 0; i < permissionCount; i++)
+        {
+            String module = "module" + (i % 40);
+            // 约 5% 为资源级通配权限
+            String action = i % 20 == 0 ? "*" : ACTIONS[i % ACTIONS.length];
+            permissions.add(module + ":res" + i + ":" + action);
+        }
+        matcher = PermissionMatcher.compile(permissions);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++)
+        {
+            int n = random.nextInt(permissionCount);
+            String action = ACTIONS[random.nextInt(ACTIONS.length)];
+            // 偶数查询取已有资源（多数命中），奇数查询取不存在的资源（必然遍历全部权限）
+            queries[i] = i % 2 == 0 ? "module" + (n % 40) + ":res" + n + ":" + action : "module" + (n % 40) + ":missing" + n + ":" + action;
+        }
+    }
+
+    private String nextQuery()
+    {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public boolean simpleMatchScan()
+    {
+        String permission = nextQuery();
+        return permissions.stream().filter(StringUtils::hasText)
+                .anyMatch(x -> "*:*:*".contains(x) || PatternMatchUtils.simpleMatch(x, permission));
+    }
+
+    @Benchmark
+    public boolean compiledMatcher()
+    {
+        return matcher.matches(nextQuery());
+    }
+}
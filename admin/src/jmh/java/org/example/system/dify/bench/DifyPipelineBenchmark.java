@@ -0,0 +1,174 @@
+package org.example.system.dify.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import cn.hutool.json.JSONUtil;
+import org.example.RuoYiApplication;
+import org.example.common.core.exception.ServiceException;
+import org.example.system.crypto.CollectTaskStatus;
+import org.example.system.crypto.ReportJobProgress;
+import org.example.system.domain.BizInvestmentReport;
+import org.example.system.dify.DifyClient;
+import org.example.system.service.IBizCryptoMessageService;
+import org.example.system.service.IBizCryptoMetricsService;
+import org.example.system.service.IBizInvestmentReportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * AI 流程压测
+ *
+ * 启动使用 bench 配置（application-bench.yml：独立的数据库与 Redis、本地 Dify 替身、不使用答案缓存）的应用，
+ * 重复执行行情采集 / 新闻采集 / 报告生成三个完整流程（请求、提取、解析、去重与入库），
+ * 由 JMH 统计耗时分位数与吞吐量，结束时打印解析成功率与失败数。
+ * 采集流程在回滚的事务中执行：同一秒内的重复采集不会撞上 uk_symbol_snapshot，压测库也不会累积数据；
+ * 采集由单飞执行器串行执行（并发触发会被合并），应以单线程运行。报告流程的草稿由流式线程另行更新，不包在事务中。
+ *
+ * 运行：mvn -Pjmh -pl admin -am test-compile exec:exec -Djmh.args="DifyPipelineBenchmark -p flow=report -t 4"
+ */
+@BenchmarkMode({ Mode.SampleTime, Mode.Throughput })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DifyPipelineBenchmark
+{
+    public static final String FLOW_COLLECT = "collect";
+
+    public static final String FLOW_NEWS = "news";
+
+    public static final String FLOW_REPORT = "report";
+
+    /** 流程 collect / news / report */
+    @Param({ FLOW_COLLECT, FLOW_NEWS, FLOW_REPORT })
+    public String flow;
+
+    private ConfigurableApplicationContext context;
+
+    private IBizCryptoMetricsService metricsService;
+
+    private IBizCryptoMessageService messageService;
+
+    private IBizInvestmentReportService reportService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicInteger answered = new AtomicInteger();
+
+    private final AtomicInteger parsed = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        context = new SpringApplicationBuilder(RuoYiApplication.class).profiles("druid", "bench").run();
+        DifyStubProperties stubProperties = context.getBean(DifyStubProperties.class);
+        if (!stubProperties.getBaseUrl().equals(context.getBean(DifyClient.class).getApiUrl()))
+        {
+            context.close();
+            throw new IllegalStateException("dify.api.url 未指向本地替身 " + stubProperties.getBaseUrl() + "，拒绝压测");
+        }
+        metricsService = context.getBean(IBizCryptoMetricsService.class);
+        messageService = context.getBean(IBizCryptoMessageService.class);
+        reportService = context.getBean(IBizInvestmentReportService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        int total = answered.get() + failed.get();
+        System.out.printf("%nDify 流程 %s：请求 %d，产出可用结果 %d，解析成功率 %.2f，失败 %d%n", flow, total, parsed.get(),
+                answered.get() == 0 ? 0 : (double) parsed.get() / answered.get(), failed.get());
+        if (context != null)
+        {
+            context.close();
+        }
+    }
+
+    /**
+     * 经服务入口完整执行一次流程（跳过答案缓存）
+     *
+     * @return 是否产出了可用结果：采集流程有数据入库，报告流程生成了带可执行指令的待审核报告
+     */
+    @Benchmark
+    public boolean pipeline()
+    {
+        try
+        {
+            boolean ok = FLOW_REPORT.equals(flow) ? report() : rolledBack(this::collect);
+            answered.incrementAndGet();
+            if (ok)
+            {
+                parsed.incrementAndGet();
+            }
+            return ok;
+        }
+        catch (RuntimeException e)
+        {
+            failed.incrementAndGet();
+            return false;
+        }
+    }
+
+    private boolean collect()
+    {
+        if (FLOW_COLLECT.equals(flow))
+        {
+            metricsService.collectCryptoMetrics(true);
+            return collected(metricsService.getCollectStatus());
+        }
+        messageService.collectCryptoMessages(true);
+        return collected(messageService.getCollectStatus());
+    }
+
+    private boolean report()
+    {
+        Long reportId = reportService.generateSummaryReport(true, ReportJobProgress.NONE);
+        BizInvestmentReport report = reportId == null ? null : reportService.selectBizInvestmentReportById(reportId);
+        if (report == null)
+        {
+            throw new ServiceException("报告未保存");
+        }
+        return BizInvestmentReport.STATUS_PENDING.equals(report.getStatus()) && report.getExecuteJson() != null
+                && !JSONUtil.parseArray(report.getExecuteJson()).isEmpty();
+    }
+
+    /**
+     * 在事务中执行并回滚（流程内部的事务加入该事务，提交后回调也不会触发）
+     */
+    private boolean rolledBack(BooleanSupplier body)
+    {
+        Boolean ok = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return body.getAsBoolean();
+        });
+        return Boolean.TRUE.equals(ok);
+    }
+
+    private static boolean collected(CollectTaskStatus status)
+    {
+        if (status == null || status.isRunning() || status.getErrorMsg() != null)
+        {
+            throw new ServiceException(status == null ? "采集未执行" : status.getErrorMsg());
+        }
+        return status.getResult() > 0;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.system.dify.bench;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地 Dify 替身配置（仅用于压测与离线验证）
+ */
+@Component
+@ConfigurationProperties(prefix = "dify.stub")
+public class DifyStubProperties
+{
+    /** 是否启动本地替身 */
+    private boolean enabled = false;
+
+    /** 监听端口，dify.api.url 需指向 http://127.0.0.1:{port}/v1 */
+    private int port = 18099;
+
+    /** 响应（流式为首个片段）的最小延迟（毫秒） */
+    private long latencyMin = 200;
+
+    /** 响应（流式为首个片段）的最大延迟（毫秒） */
+    private long latencyMax = 1500;
+
+    /** 返回错误状态码的概率 0~1 */
+    private double errorRate = 0.0;
+
+    /** 注入错误时返回的状态码 */
+    private int errorStatus = 503;
+
+    /** 流式响应中途断开的概率 0~1 */
+    private double abortRate = 0.0;
+
+    /** 答案前附带 think 内容的概率 0~1 */
+    private double thinkRate = 0.3;
+
+    /** 流式响应每个片段的字符数 */
+    private int chunkChars = 16;
+
+    /** 流式响应片段间隔（毫秒） */
+    private long chunkDelay = 20;
+
+    /** 录制答案目录，为空时使用 classpath:dify-stub/ 下的内置样本 */
+    private String recordingDir;
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public int getPort()
+    {
+        return port;
+    }
+
+    public void setPort(int port)
+    {
+        this.port = port;
+    }
+
+    public long getLatencyMin()
+    {
+        return latencyMin;
+    }
+
+    public void setLatencyMin(long latencyMin)
+    {
+        this.latencyMin = latencyMin;
+    }
+
+    public long getLatencyMax()
+    {
+        return latencyMax;
+    }
+
+    public void setLatencyMax(long latencyMax)
+    {
+        this.latencyMax = latencyMax;
+    }
+
+    public double getErrorRate()
+    {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate)
+    {
+        this.errorRate = errorRate;
+    }
+
+    public int getErrorStatus()
+    {
+        return errorStatus;
+    }
+
+    public void setErrorStatus(int errorStatus)
+    {
+        this.errorStatus = errorStatus;
+    }
+
+    public double getAbortRate()
+    {
+        return abortRate;
+    }
+
+    public void setAbortRate(double abortRate)
+    {
+        this.abortRate = abortRate;
+    }
+
+    public double getThinkRate()
+    {
+        return thinkRate;
+    }
+
+    public void setThinkRate(double thinkRate)
+    {
+        this.thinkRate = thinkRate;
+    }
+
+    public int getChunkChars()
+    {
+        return chunkChars;
+    }
+
+    public void setChunkChars(int chunkChars)
+    {
+        this.chunkChars = chunkChars;
+    }
+
+    public long getChunkDelay()
+    {
+        return chunkDelay;
+    }
+
+    public void setChunkDelay(long chunkDelay)
+    {
+        this.chunkDelay = chunkDelay;
+    }
+
+    public String getRecordingDir()
+    {
+        return recordingDir;
+    }
+
+    public void setRecordingDir(String recordingDir)
+    {
+        this.recordingDir = recordingDir;
+    }
+
+    /**
+     * 替身的 API 基础地址
+     */
+    public String getBaseUrl()
+    {
+        return "http://127.0.0.1:" + port + "/v1";
+    }
+}
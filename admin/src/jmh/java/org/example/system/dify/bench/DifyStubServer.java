@@ -0,0 +1,359 @@
+package org.example.system.dify.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.example.common.core.utils.StringUtils;
+import org.example.system.dify.DifyAssistant;
+import org.example.system.dify.DifyClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地 Dify 替身
+ *
+ * 在本机端口上实现 /v1/chat-messages 的 blocking 与 streaming 两种模式，按 API Key 区分助手，
+ * 轮流回放录制的答案（包括格式不规范的答案），并可注入延迟、错误状态码、think 内容与流中断，
+ * 用于在不访问真实 Dify 的情况下压测采集与报告流程。
+ *
+ * 录制文件为 {recordingDir 或 classpath:dify-stub/}{news|metrics|report}.txt，多个答案之间用单独一行 ===== 分隔。
+ */
+@Component
+@ConditionalOnProperty(prefix = "dify.stub", name = "enabled", havingValue = "true")
+public class DifyStubServer
+{
+    private static final Logger log = LoggerFactory.getLogger(DifyStubServer.class);
+
+    /** 录制文件中答案之间的分隔行 */
+    private static final String SEPARATOR = "=====";
+
+    private static final String THINK = "<think>\n用户需要最新数据，我先整理各币种的行情与新闻，再按要求输出 JSON。\n</think>\n";
+
+    @Autowired
+    private DifyStubProperties properties;
+
+    @Autowired
+    private DifyClient difyClient;
+
+    private final Map<DifyAssistant, List<String>> recordings = new EnumMap<>(DifyAssistant.class);
+
+    private final Map<DifyAssistant, AtomicInteger> cursors = new EnumMap<>(DifyAssistant.class);
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() throws IOException
+    {
+        for (DifyAssistant assistant : DifyAssistant.values())
+        {
+            recordings.put(assistant, load(assistant));
+            cursors.put(assistant, new AtomicInteger());
+        }
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "dify-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", properties.getPort()), 128);
+        server.createContext("/v1/chat-messages", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log.info("本地 Dify 替身已启动: {}，录制答案 news={} metrics={} report={}", properties.getBaseUrl(),
+                recordings.get(DifyAssistant.NEWS).size(), recordings.get(DifyAssistant.METRICS).size(),
+                recordings.get(DifyAssistant.REPORT).size());
+        if (!properties.getBaseUrl().equals(difyClient.getApiUrl()))
+        {
+            log.warn("dify.api.url 当前为 {}，未指向本地替身，请求仍会发往真实 Dify", difyClient.getApiUrl());
+        }
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        if (server != null)
+        {
+            server.stop(0);
+        }
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 已处理的请求数
+     */
+    public long getRequestCount()
+    {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        requests.incrementAndGet();
+        boolean aborted = false;
+        try
+        {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod()))
+            {
+                sendJson(exchange, 405, error("method_not_allowed", "只支持 POST"));
+                return;
+            }
+            DifyAssistant assistant = resolveAssistant(exchange.getRequestHeaders().getFirst("Authorization"));
+            if (assistant == null)
+            {
+                sendJson(exchange, 401, error("unauthorized", "Access token is invalid"));
+                return;
+            }
+            JSONObject request = JSONUtil.parseObj(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            sleep(properties.getLatencyMin() + (long) (random.nextDouble() * Math.max(0, properties.getLatencyMax() - properties.getLatencyMin())));
+            if (random.nextDouble() < properties.getErrorRate())
+            {
+                sendJson(exchange, properties.getErrorStatus(), error("injected_error", "注入的错误"));
+                return;
+            }
+            String answer = nextAnswer(assistant);
+            if (random.nextDouble() < properties.getThinkRate())
+            {
+                answer = THINK + answer;
+            }
+            if ("streaming".equals(request.getStr("response_mode")))
+            {
+                stream(exchange, answer, random.nextDouble() < properties.getAbortRate());
+            }
+            else
+            {
+                JSONObject body = new JSONObject();
+                body.set("event", "message");
+                body.set("message_id", UUID.randomUUID().toString());
+                body.set("conversation_id", UUID.randomUUID().toString());
+                body.set("mode", "chat");
+                body.set("answer", answer);
+                body.set("created_at", System.currentTimeMillis() / 1000);
+                sendJson(exchange, 200, body.toString());
+            }
+        }
+        catch (InjectedAbort e)
+        {
+            // 不关闭 exchange（关闭会写出分块结束标记，客户端会看到正常结束），
+            // 抛给 HttpServer 后由其直接关闭底层连接，客户端读到的是中途断开的流
+            aborted = true;
+            throw e;
+        }
+        catch (Exception e)
+        {
+            log.debug("本地 Dify 替身处理请求异常: {}", e.getMessage());
+        }
+        finally
+        {
+            if (!aborted)
+            {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * 以 SSE 事件流按固定字符数分片输出答案，abort 为 true 时输出一半后不写结束标记直接断开连接
+     */
+    private void stream(HttpExchange exchange, String answer, boolean abort) throws IOException
+    {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String messageId = UUID.randomUUID().toString();
+        int chunk = Math.max(1, properties.getChunkChars());
+        int stopAt = abort ? answer.length() / 2 : answer.length();
+        for (int i = 0; i < stopAt; i += chunk)
+        {
+            JSONObject event = new JSONObject();
+            event.set("event", "message");
+            event.set("message_id", messageId);
+            event.set("answer", answer.substring(i, Math.min(answer.length(), i + chunk)));
+            writeEvent(out, event.toString());
+            sleep(properties.getChunkDelay());
+        }
+        if (abort)
+        {
+            throw new InjectedAbort();
+        }
+        JSONObject end = new JSONObject();
+        end.set("event", "message_end");
+        end.set("message_id", messageId);
+        writeEvent(out, end.toString());
+    }
+
+    private void writeEvent(OutputStream out, String data) throws IOException
+    {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private String error(String code, String message)
+    {
+        JSONObject json = new JSONObject();
+        json.set("code", code);
+        json.set("message", message);
+        return json.toString();
+    }
+
+    private DifyAssistant resolveAssistant(String authorization)
+    {
+        if (authorization == null || !authorization.startsWith("Bearer "))
+        {
+            return null;
+        }
+        String key = authorization.substring(7).trim();
+        for (DifyAssistant assistant : DifyAssistant.values())
+        {
+            if (key.equals(StringUtils.trim(difyClient.getApiKey(assistant))))
+            {
+                return assistant;
+            }
+        }
+        return null;
+    }
+
+    private String nextAnswer(DifyAssistant assistant)
+    {
+        List<String> answers = recordings.get(assistant);
+        if (answers.isEmpty())
+        {
+            return "";
+        }
+        int index = Math.floorMod(cursors.get(assistant).getAndIncrement(), answers.size());
+        return answers.get(index);
+    }
+
+    private List<String> load(DifyAssistant assistant) throws IOException
+    {
+        String name = assistant.name().toLowerCase() + ".txt";
+        String text;
+        if (StringUtils.isNotEmpty(properties.getRecordingDir()))
+        {
+            Path path = Paths.get(properties.getRecordingDir(), name);
+            if (!Files.exists(path))
+            {
+                return Collections.emptyList();
+            }
+            text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        }
+        else
+        {
+            try (InputStream in = DifyStubServer.class.getClassLoader().getResourceAsStream("dify-stub/" + name))
+            {
+                if (in == null)
+                {
+                    return Collections.emptyList();
+                }
+                text = new String(readAll(in), StandardCharsets.UTF_8);
+            }
+        }
+        List<String> answers = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : text.split("\r?\n", -1))
+        {
+            if (SEPARATOR.equals(line.trim()))
+            {
+                addAnswer(answers, current);
+                current.setLength(0);
+            }
+            else
+            {
+                current.append(line).append('\n');
+            }
+        }
+        addAnswer(answers, current);
+        return answers;
+    }
+
+    private static void addAnswer(List<String> answers, StringBuilder current)
+    {
+        String answer = current.toString().trim();
+        if (!answer.isEmpty())
+        {
+            answers.add(answer);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1)
+        {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 注入的流中断
+     */
+    private static class InjectedAbort extends IOException
+    {
+        private static final long serialVersionUID = 1L;
+
+        InjectedAbort()
+        {
+            super("注入的流中断");
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        if (millis <= 0)
+        {
+            return;
+        }
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
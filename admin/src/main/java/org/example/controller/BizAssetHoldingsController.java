@@ -37,6 +37,16 @@ public class BizAssetHoldingsController extends BaseController
         return getDataTable(list);
     }
 
+    /**
+     * 组合估值：总值、成本、浮动盈亏与各持仓占比（内存计算）
+     */
+//    @RequiresPermissions("crypto:holdings:list")
+    @GetMapping("/portfolio")
+    public AjaxResult portfolio()
+    {
+        return success(bizAssetHoldingsService.selectPortfolioValuation());
+    }
+
 //    @RequiresPermissions("crypto:holdings:export")
     @Log(title = "企业持仓资产", businessType = BusinessType.EXPORT)
     @PostMapping("/export")
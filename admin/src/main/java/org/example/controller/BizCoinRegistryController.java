@@ -0,0 +1,79 @@
+package org.example.controller;
+
+import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.example.system.log.annotation.Log;
+import org.example.system.log.enums.BusinessType;
+import org.example.system.domain.BizCoinRegistry;
+import org.example.system.service.IBizCoinRegistryService;
+import org.example.common.core.web.controller.BaseController;
+import org.example.common.core.web.domain.AjaxResult;
+import org.example.common.core.utils.poi.ExcelUtil;
+import org.example.common.core.web.page.TableDataInfo;
+
+@RestController
+@RequestMapping("/crypto/coin")
+public class BizCoinRegistryController extends BaseController
+{
+    @Autowired
+    private IBizCoinRegistryService bizCoinRegistryService;
+
+//    @RequiresPermissions("crypto:coin:list")
+    @GetMapping("/list")
+    public TableDataInfo list(BizCoinRegistry bizCoinRegistry)
+    {
+        startPage();
+        List<BizCoinRegistry> list = bizCoinRegistryService.selectBizCoinRegistryList(bizCoinRegistry);
+        return getDataTable(list);
+    }
+
+//    @RequiresPermissions("crypto:coin:export")
+    @Log(title = "币种登记", businessType = BusinessType.EXPORT)
+    @PostMapping("/export")
+    public void export(HttpServletResponse response, BizCoinRegistry bizCoinRegistry)
+    {
+        List<BizCoinRegistry> list = bizCoinRegistryService.selectBizCoinRegistryList(bizCoinRegistry);
+        ExcelUtil<BizCoinRegistry> util = new ExcelUtil<BizCoinRegistry>(BizCoinRegistry.class);
+        util.exportExcel(response, list, "币种登记数据");
+    }
+
+//    @RequiresPermissions("crypto:coin:query")
+    @GetMapping(value = "/{id}")
+    public AjaxResult getInfo(@PathVariable("id") Long id)
+    {
+        return success(bizCoinRegistryService.selectBizCoinRegistryById(id));
+    }
+
+//    @RequiresPermissions("crypto:coin:add")
+    @Log(title = "币种登记", businessType = BusinessType.INSERT)
+    @PostMapping
+    public AjaxResult add(@RequestBody BizCoinRegistry bizCoinRegistry)
+    {
+        return toAjax(bizCoinRegistryService.insertBizCoinRegistry(bizCoinRegistry));
+    }
+
+//    @RequiresPermissions("crypto:coin:edit")
+    @Log(title = "币种登记", businessType = BusinessType.UPDATE)
+    @PutMapping
+    public AjaxResult edit(@RequestBody BizCoinRegistry bizCoinRegistry)
+    {
+        return toAjax(bizCoinRegistryService.updateBizCoinRegistry(bizCoinRegistry));
+    }
+
+//    @RequiresPermissions("crypto:coin:remove")
+    @Log(title = "币种登记", businessType = BusinessType.DELETE)
+    @DeleteMapping("/{ids}")
+    public AjaxResult remove(@PathVariable Long[] ids)
+    {
+        return toAjax(bizCoinRegistryService.deleteBizCoinRegistryByIds(ids));
+    }
+}
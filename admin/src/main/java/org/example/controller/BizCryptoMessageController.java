@@ -1,6 +1,8 @@
 package org.example.controller;
 
 import java.util.List;
+import org.example.system.crypto.CollectTaskStatus;
+import org.example.system.domain.BizCoinSentiment;
 import org.example.system.domain.BizCryptoMessage;
 import org.example.system.service.IBizCryptoMessageService;
 import org.example.system.security.annotation.RequiresPermissions;
@@ -35,6 +37,15 @@ public class BizCryptoMessageController {
         return bizCryptoMessageService.selectBizCryptoMessageById(id);
     }
 
+    /**
+     * 查询币种情绪指数（1h / 24h / 7d 窗口的条数、影响分数之和与时间衰减情绪分）
+     */
+//    @RequiresPermissions("crypto:message:list")
+    @GetMapping("/sentiment")
+    public List<BizCoinSentiment> sentiment(@RequestParam(value = "coin", required = false) String coin) {
+        return bizCryptoMessageService.selectCoinSentiment(coin);
+    }
+
     /**
      * 新增虚拟货币行情消息
      */
@@ -67,7 +78,15 @@ public class BizCryptoMessageController {
      */
 //    @RequiresPermissions("crypto:message:collect")
     @PostMapping("/collect")
-    public int collectCryptoMessages() {
-        return bizCryptoMessageService.collectCryptoMessages();
+    public int collectCryptoMessages(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
+        return bizCryptoMessageService.collectCryptoMessages(refresh);
+    }
+
+    /**
+     * 查询新闻采集任务状态
+     */
+    @GetMapping("/collect/status")
+    public CollectTaskStatus collectStatus() {
+        return bizCryptoMessageService.getCollectStatus();
     }
 }
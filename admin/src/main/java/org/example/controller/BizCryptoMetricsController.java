@@ -3,10 +3,12 @@ package org.example.controller;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 
+import org.example.common.core.utils.DateUtils;
 import org.example.common.core.utils.poi.ExcelUtil;
 import org.example.common.core.web.domain.AjaxResult;
 import org.example.common.core.web.page.TableDataInfo;
 import org.example.system.domain.BizCryptoMetrics;
+import org.example.system.domain.BizCryptoMetricsBar;
 import org.example.system.service.IBizCryptoMetricsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -27,12 +29,12 @@ public class BizCryptoMetricsController extends BaseController
     @GetMapping("/list")
     public TableDataInfo list(BizCryptoMetrics bizCryptoMetrics)
     {
-        startPage();
-        // 如果没有查询条件，默认只返回每个币种最新的行情
+        // 如果没有查询条件，默认只返回每个币种最新的行情（内存快照，不走分页查询）
         List<BizCryptoMetrics> list;
         if (bizCryptoMetrics.getSymbol() == null && bizCryptoMetrics.getName() == null) {
             list = bizCryptoMetricsService.selectLatestMetrics();
         } else {
+            startPage();
             list = bizCryptoMetricsService.selectBizCryptoMetricsList(bizCryptoMetrics);
         }
         return getDataTable(list);
@@ -49,6 +51,22 @@ public class BizCryptoMetricsController extends BaseController
         util.exportExcel(response, list, "虚拟货币行情数据");
     }
 
+    /**
+     * 查询币种历史行情（raw / hour / day，不传粒度时按区间长度自动选择）
+     */
+    // 临时注释掉权限校验，便于测试
+//    @RequiresPermissions("crypto:metrics:query")
+    @GetMapping("/history")
+    public AjaxResult history(@RequestParam("symbol") String symbol,
+                              @RequestParam(value = "beginTime", required = false) String beginTime,
+                              @RequestParam(value = "endTime", required = false) String endTime,
+                              @RequestParam(value = "interval", required = false) String interval)
+    {
+        List<BizCryptoMetricsBar> bars = bizCryptoMetricsService.selectMetricsHistory(symbol,
+                DateUtils.parseDate(beginTime), DateUtils.parseDate(endTime), interval);
+        return success(bars);
+    }
+
     // 临时注释掉权限校验，便于测试
 //    @RequiresPermissions("crypto:metrics:query")
     @GetMapping(value = "/{id}")
@@ -61,8 +79,17 @@ public class BizCryptoMetricsController extends BaseController
 //    @RequiresPermissions("crypto:metrics:collect")
     @Log(title = "虚拟货币行情", businessType = BusinessType.OTHER)
     @PostMapping("/collect")
-    public AjaxResult collect()
+    public AjaxResult collect(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh)
+    {
+        return toAjax(bizCryptoMetricsService.collectCryptoMetrics(refresh));
+    }
+
+    /**
+     * 查询行情采集任务状态
+     */
+    @GetMapping("/collect/status")
+    public AjaxResult collectStatus()
     {
-        return toAjax(bizCryptoMetricsService.collectCryptoMetrics());
+        return success(bizCryptoMetricsService.getCollectStatus());
     }
 }
\ No newline at end of file
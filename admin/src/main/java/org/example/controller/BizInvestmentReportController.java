@@ -11,11 +11,15 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.example.system.log.annotation.Log;
 import org.example.system.log.enums.BusinessType;
 import org.example.system.security.annotation.RequiresPermissions;
+import org.example.system.crypto.ReportJobQueue;
 import org.example.system.domain.BizInvestmentReport;
+import org.example.system.domain.BizReportJob;
+import org.example.system.security.utils.SecurityUtils;
 import org.example.system.service.IBizInvestmentReportService;
 import org.example.common.core.web.controller.BaseController;
 import org.example.common.core.web.domain.AjaxResult;
@@ -28,6 +32,8 @@ public class BizInvestmentReportController extends BaseController
 {
     @Autowired
     private IBizInvestmentReportService bizInvestmentReportService;
+    @Autowired
+    private ReportJobQueue reportJobQueue;
 //    @RequiresPermissions("crypto:report:list")
     @GetMapping("/list")
     public TableDataInfo list(BizInvestmentReport bizInvestmentReport)
@@ -79,15 +85,61 @@ public class BizInvestmentReportController extends BaseController
     }
     
     /**
-     * 手动生成投资报告
+     * 手动生成投资报告（提交生成任务，立即返回任务信息，通过 /job/{jobId} 查询进度）
      */
 //    @RequiresPermissions("crypto:report:add")
     @Log(title = "AI投资建议报告", businessType = BusinessType.INSERT)
     @PostMapping("/generate")
-    public AjaxResult generate(@RequestBody Map<String, Long> requestData)
+    public AjaxResult generate(@RequestBody Map<String, Long> requestData,
+                               @RequestParam(value = "refresh", defaultValue = "false") boolean refresh)
     {
         Long messageId = requestData.get("messageId");
-        bizInvestmentReportService.generateReport(messageId);
-        return success("投资建议报告生成成功");
+        BizReportJob job = reportJobQueue.submitMessageReport(messageId, refresh, SecurityUtils.getUsername());
+        return AjaxResult.success("报告生成任务已提交", job);
+    }
+
+    /**
+     * 手动生成汇总投资报告（提交生成任务）
+     */
+//    @RequiresPermissions("crypto:report:add")
+    @Log(title = "AI投资建议报告", businessType = BusinessType.INSERT)
+    @PostMapping("/generate/summary")
+    public AjaxResult generateSummary(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh)
+    {
+        BizReportJob job = reportJobQueue.submitSummaryReport(refresh, SecurityUtils.getUsername());
+        return AjaxResult.success("报告生成任务已提交", job);
+    }
+
+    /**
+     * 报告生成任务列表
+     */
+//    @RequiresPermissions("crypto:report:list")
+    @GetMapping("/job/list")
+    public TableDataInfo jobList(BizReportJob job)
+    {
+        startPage();
+        List<BizReportJob> list = reportJobQueue.selectJobList(job);
+        return getDataTable(list);
+    }
+
+    /**
+     * 查询报告生成任务的状态与进度
+     */
+//    @RequiresPermissions("crypto:report:query")
+    @GetMapping("/job/{jobId}")
+    public AjaxResult getJob(@PathVariable("jobId") Long jobId)
+    {
+        return success(reportJobQueue.getJob(jobId));
+    }
+
+    /**
+     * 取消报告生成任务
+     */
+//    @RequiresPermissions("crypto:report:add")
+    @Log(title = "AI投资建议报告", businessType = BusinessType.UPDATE)
+    @PostMapping("/job/{jobId}/cancel")
+    public AjaxResult cancelJob(@PathVariable("jobId") Long jobId)
+    {
+        return success(reportJobQueue.cancel(jobId));
     }
 }
\ No newline at end of file
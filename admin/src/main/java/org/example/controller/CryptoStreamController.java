@@ -0,0 +1,36 @@
+package org.example.controller;
+
+import org.example.common.core.web.controller.BaseController;
+import org.example.system.crypto.CryptoEventHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 行情与新闻实时推送
+ */
+@RestController
+@RequestMapping("/crypto/stream")
+public class CryptoStreamController extends BaseController
+{
+    @Autowired
+    private CryptoEventHub cryptoEventHub;
+
+    /**
+     * 订阅推送（事件：metrics 最新行情快照、news 新入库消息、reset 需重新拉取列表）
+     *
+     * 浏览器 EventSource 断线重连时会自动携带 Last-Event-ID；也可通过 lastEventId 参数指定
+     */
+//    @RequiresPermissions("crypto:metrics:list")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                @RequestParam(value = "lastEventId", required = false) String lastEventId)
+    {
+        return cryptoEventHub.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.controller;
+
+import org.example.common.core.web.controller.BaseController;
+import org.example.common.core.web.domain.AjaxResult;
+import org.example.system.dify.DifyClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Dify 调用监控
+ */
+@RestController
+@RequestMapping("/crypto/dify")
+public class DifyMonitorController extends BaseController
+{
+    @Autowired
+    private DifyClient difyClient;
+
+    /**
+     * 各助手的熔断状态、延迟分位数、重试与对冲次数
+     */
+    // 临时注释掉权限校验，便于测试
+//    @RequiresPermissions("crypto:dify:stats")
+    @GetMapping("/stats")
+    public AjaxResult stats()
+    {
+        return success(difyClient.getStats());
+    }
+
+}
@@ -24,6 +24,7 @@ import org.example.common.core.web.page.TableDataInfo;
 import org.example.system.log.annotation.Log;
 import org.example.system.log.enums.BusinessType;
 import org.example.system.security.annotation.RequiresPermissions;
+import org.example.system.security.service.TokenService;
 
 
 /**
@@ -40,13 +41,20 @@ public class SysUserOnlineController extends BaseController {
     @Autowired
     private RedisService redisService;
 
+    @Autowired
+    private TokenService tokenService;
+
     @RequiresPermissions("monitor:online:list")
     @GetMapping("/list")
     public TableDataInfo list(String ipaddr, String userName) {
         Collection<String> keys = redisService.keys(CacheConstants.LOGIN_TOKEN_KEY + "*");
         List<SysUserOnline> userOnlineList = new ArrayList<SysUserOnline>();
         for (String key : keys) {
-            LoginUser user = redisService.getCacheObject(key);
+            LoginUser user = tokenService.getLoginUserByKey(key.substring(CacheConstants.LOGIN_TOKEN_KEY.length()));
+            if (user == null) {
+                // 列出键之后会话已过期或被强退
+                continue;
+            }
             if (StringUtils.isNotEmpty(ipaddr) && StringUtils.isNotEmpty(userName)) {
                 userOnlineList.add(userOnlineService.selectOnlineByInfo(ipaddr, userName, user));
             } else if (StringUtils.isNotEmpty(ipaddr)) {
@@ -69,7 +77,7 @@ public class SysUserOnlineController extends BaseController {
     @Log(title = "在线用户", businessType = BusinessType.FORCE)
     @DeleteMapping("/{tokenId}")
     public AjaxResult forceLogout(@PathVariable String tokenId) {
-        redisService.deleteObject(CacheConstants.LOGIN_TOKEN_KEY + tokenId);
+        tokenService.delLoginUserByKey(tokenId);
         return success();
     }
 }
@@ -58,7 +58,7 @@ public class TokenController {
         LoginUser loginUser = tokenService.getLoginUser(request);
         if (StringUtils.isNotNull(loginUser)) {
             // 刷新令牌有效期
-            tokenService.refreshToken(loginUser);
+            tokenService.touchToken(loginUser);
             return R.ok();
         }
         return R.ok();
@@ -1,5 +1,8 @@
 package org.example.system.security.aspect;
 
+import org.example.common.core.context.SecurityContextHolder;
+import org.example.common.core.utils.StringUtils;
+import org.example.system.security.annotation.Logical;
 import org.example.system.security.annotation.RequiresLogin;
 import org.example.system.security.annotation.RequiresPermissions;
 import org.example.system.security.annotation.RequiresRoles;
@@ -9,9 +12,18 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * 基于 Spring Aop 的注解鉴权
@@ -20,8 +32,16 @@ import java.lang.reflect.Method;
  */
 @Aspect
 @Component
-public class PreAuthorizeAspect
+public class PreAuthorizeAspect implements ApplicationListener<ApplicationReadyEvent>
 {
+    private static final Logger log = LoggerFactory.getLogger(PreAuthorizeAspect.class);
+
+    /** 合法的权限字符串：以 ":" 分隔的非空段，段内为字母、数字、下划线、短横线或通配符 */
+    private static final Pattern PERMISSION_PATTERN = Pattern.compile("[\\w\\-*]+(:[\\w\\-*]+)*");
+
+    /** 方法 -> 鉴权计划，首次调用或启动扫描时解析注解 */
+    private final Map<Method, AuthorizePlan> plans = new ConcurrentHashMap<Method, AuthorizePlan>();
+
     /**
      * 构建
      */
@@ -57,7 +77,7 @@ public class PreAuthorizeAspect
     {
         // 注解鉴权
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        checkMethodAnnotation(signature.getMethod());
+        getPlan(signature.getMethod()).check();
         try
         {
             // 执行原有逻辑
@@ -70,30 +90,138 @@ public class PreAuthorizeAspect
         }
     }
 
+    /**
+     * 启动完成后扫描所有接口方法，预先解析鉴权计划并检查权限字符串格式
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event)
+    {
+        int count = 0;
+        for (RequestMappingHandlerMapping mapping : event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values())
+        {
+            for (HandlerMethod handlerMethod : mapping.getHandlerMethods().values())
+            {
+                AuthorizePlan plan = getPlan(handlerMethod.getMethod());
+                if (plan.permissions != null)
+                {
+                    validatePermissions(handlerMethod, plan.permissions);
+                }
+                if (plan.isEmpty())
+                {
+                    plans.remove(handlerMethod.getMethod());
+                }
+                else
+                {
+                    count++;
+                }
+            }
+        }
+        log.info("已预解析 {} 个接口的鉴权注解", count);
+    }
+
+    /**
+     * 获取方法的鉴权计划
+     */
+    private AuthorizePlan getPlan(Method method)
+    {
+        AuthorizePlan plan = plans.get(method);
+        if (plan == null)
+        {
+            plan = plans.computeIfAbsent(method, AuthorizePlan::new);
+        }
+        return plan;
+    }
+
+    private void validatePermissions(HandlerMethod handlerMethod, String[] permissions)
+    {
+        if (permissions.length == 0)
+        {
+            log.warn("接口 {} 的 @RequiresPermissions 未声明任何权限，将不做权限校验", handlerMethod);
+        }
+        for (String permission : permissions)
+        {
+            if (permission == null || !PERMISSION_PATTERN.matcher(permission).matches())
+            {
+                log.warn("接口 {} 的权限字符串 [{}] 格式不正确，应为以 \":\" 分隔的非空段", handlerMethod, permission);
+            }
+        }
+    }
+
     /**
      * 对一个Method对象进行注解检查
      */
     public void checkMethodAnnotation(Method method)
     {
-        // 校验 @RequiresLogin 注解
-        RequiresLogin requiresLogin = method.getAnnotation(RequiresLogin.class);
-        if (requiresLogin != null)
+        getPlan(method).check();
+    }
+
+    /**
+     * 单个方法的鉴权计划（注解解析结果，不可变）
+     */
+    private static final class AuthorizePlan
+    {
+        private final boolean login;
+
+        private final String[] roles;
+
+        private final Logical roleLogical;
+
+        private final String[] permissions;
+
+        private final Logical permiLogical;
+
+        /** 写入安全上下文的权限描述 */
+        private final String permissionText;
+
+        private AuthorizePlan(Method method)
         {
-            AuthUtil.checkLogin();
+            this.login = method.getAnnotation(RequiresLogin.class) != null;
+            RequiresRoles requiresRoles = method.getAnnotation(RequiresRoles.class);
+            this.roles = requiresRoles == null ? null : requiresRoles.value().clone();
+            this.roleLogical = requiresRoles == null ? null : requiresRoles.logical();
+            RequiresPermissions requiresPermissions = method.getAnnotation(RequiresPermissions.class);
+            this.permissions = requiresPermissions == null ? null : requiresPermissions.value().clone();
+            this.permiLogical = requiresPermissions == null ? null : requiresPermissions.logical();
+            this.permissionText = permissions == null ? null : StringUtils.join(permissions, ",");
         }
 
-        // 校验 @RequiresRoles 注解
-        RequiresRoles requiresRoles = method.getAnnotation(RequiresRoles.class);
-        if (requiresRoles != null)
+        private boolean isEmpty()
         {
-            AuthUtil.checkRole(requiresRoles);
+            return !login && roles == null && permissions == null;
         }
 
-        // 校验 @RequiresPermissions 注解
-        RequiresPermissions requiresPermissions = method.getAnnotation(RequiresPermissions.class);
-        if (requiresPermissions != null)
+        /**
+         * 依次校验登录、角色、权限，与逐个读取注解时的顺序一致
+         */
+        private void check()
         {
-            AuthUtil.checkPermi(requiresPermissions);
+            if (login)
+            {
+                AuthUtil.checkLogin();
+            }
+            if (roles != null)
+            {
+                if (roleLogical == Logical.AND)
+                {
+                    AuthUtil.checkRoleAnd(roles);
+                }
+                else
+                {
+                    AuthUtil.checkRoleOr(roles);
+                }
+            }
+            if (permissions != null)
+            {
+                SecurityContextHolder.setPermission(permissionText);
+                if (permiLogical == Logical.AND)
+                {
+                    AuthUtil.checkPermiAnd(permissions);
+                }
+                else
+                {
+                    AuthUtil.checkPermiOr(permissions);
+                }
+            }
         }
     }
 }
@@ -112,7 +112,7 @@ public class AuthLogic
      */
     public boolean hasPermi(String permission)
     {
-        return hasPermi(getPermiList(), permission);
+        return getPermissionMatcher().matches(permission);
     }
 
     /**
@@ -123,7 +123,7 @@ public class AuthLogic
      */
     public void checkPermi(String permission)
     {
-        if (!hasPermi(getPermiList(), permission))
+        if (!getPermissionMatcher().matches(permission))
         {
             throw new NotPermissionException(permission);
         }
@@ -154,10 +154,10 @@ public class AuthLogic
      */
     public void checkPermiAnd(String... permissions)
     {
-        Set<String> permissionList = getPermiList();
+        PermissionMatcher matcher = getPermissionMatcher();
         for (String permission : permissions)
         {
-            if (!hasPermi(permissionList, permission))
+            if (!matcher.matches(permission))
             {
                 throw new NotPermissionException(permission);
             }
@@ -171,10 +171,10 @@ public class AuthLogic
      */
     public void checkPermiOr(String... permissions)
     {
-        Set<String> permissionList = getPermiList();
+        PermissionMatcher matcher = getPermissionMatcher();
         for (String permission : permissions)
         {
-            if (hasPermi(permissionList, permission))
+            if (matcher.matches(permission))
             {
                 return;
             }
@@ -346,6 +346,24 @@ public class AuthLogic
         }
     }
 
+    /**
+     * 获取当前账号的权限匹配器（登录后首次鉴权时编译，权限列表变化时重建）
+     *
+     * @return 权限匹配器
+     */
+    public PermissionMatcher getPermissionMatcher()
+    {
+        try
+        {
+            LoginUser loginUser = getLoginUser();
+            return loginUser.permissionMatcher();
+        }
+        catch (Exception e)
+        {
+            return PermissionMatcher.EMPTY;
+        }
+    }
+
     /**
      * 判断是否包含权限
      *
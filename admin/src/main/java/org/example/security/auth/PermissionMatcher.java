@@ -0,0 +1,197 @@
+package org.example.system.security.auth;
+
+import org.example.common.core.utils.StringUtils;
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的权限匹配器
+ *
+ * 将用户的权限集合按 ":" 分段编译为前缀树，整段为 "*" 的权限编译为通配节点（可匹配一个或多个段，
+ * 与 PatternMatchUtils.simpleMatch 中 "*" 可跨越 ":" 的行为一致）。判断一个权限只需按段走一遍树，
+ * 不再逐条遍历权限集合做通配匹配。段内混有 "*" 的少见写法（如 "sys*"）保留原有的逐条匹配。
+ */
+public final class PermissionMatcher
+{
+    /** 所有权限标识 */
+    private static final String ALL_PERMISSION = "*:*:*";
+
+    private static final String WILDCARD = "*";
+
+    private static final String SEPARATOR = ":";
+
+    /** 空权限集合 */
+    public static final PermissionMatcher EMPTY = new PermissionMatcher(false, new Node(), new ArrayList<String>());
+
+    /** 拥有所有权限（超级管理员） */
+    private final boolean all;
+
+    private final Node root;
+
+    /** 段内含通配符、无法编入前缀树的权限 */
+    private final List<String> patterns;
+
+    private PermissionMatcher(boolean all, Node root, List<String> patterns)
+    {
+        this.all = all;
+        this.root = root;
+        this.patterns = patterns;
+    }
+
+    /**
+     * 编译权限集合
+     *
+     * @param permissions 权限集合
+     * @return 权限匹配器
+     */
+    public static PermissionMatcher compile(Collection<String> permissions)
+    {
+        if (permissions == null || permissions.isEmpty())
+        {
+            return EMPTY;
+        }
+        Node root = new Node();
+        List<String> patterns = new ArrayList<String>();
+        for (String permission : permissions)
+        {
+            if (!StringUtils.hasText(permission))
+            {
+                continue;
+            }
+            // 与原有判断一致：权限是 "*:*:*" 的子串即视为拥有所有权限
+            if (ALL_PERMISSION.contains(permission))
+            {
+                return new PermissionMatcher(true, root, patterns);
+            }
+            String[] segments = permission.split(SEPARATOR, -1);
+            Node node = root;
+            boolean compiled = true;
+            for (String segment : segments)
+            {
+                if (WILDCARD.equals(segment))
+                {
+                    if (node.wildcard == null)
+                    {
+                        node.wildcard = new Node();
+                    }
+                    node = node.wildcard;
+                }
+                else if (segment.indexOf('*') >= 0)
+                {
+                    compiled = false;
+                    break;
+                }
+                else
+                {
+                    node = node.child(segment);
+                }
+            }
+            if (compiled)
+            {
+                node.terminal = true;
+            }
+            else
+            {
+                patterns.add(permission);
+            }
+        }
+        return new PermissionMatcher(false, root, patterns);
+    }
+
+    /**
+     * 是否拥有所有权限
+     */
+    public boolean isAll()
+    {
+        return all;
+    }
+
+    /**
+     * 判断是否包含权限
+     *
+     * @param permission 权限字符串
+     * @return 用户是否具备某权限
+     */
+    public boolean matches(String permission)
+    {
+        if (all)
+        {
+            return true;
+        }
+        if (permission == null)
+        {
+            return false;
+        }
+        if (match(root, permission.split(SEPARATOR, -1), 0))
+        {
+            return true;
+        }
+        for (String pattern : patterns)
+        {
+            if (PatternMatchUtils.simpleMatch(pattern, permission))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean match(Node node, String[] segments, int index)
+    {
+        if (index == segments.length)
+        {
+            return node.terminal;
+        }
+        Node child = node.children == null ? null : node.children.get(segments[index]);
+        if (child != null && match(child, segments, index + 1))
+        {
+            return true;
+        }
+        Node any = node.wildcard;
+        if (any != null)
+        {
+            // 末尾的通配段匹配剩余所有段
+            if (any.terminal)
+            {
+                return true;
+            }
+            for (int next = index + 1; next < segments.length; next++)
+            {
+                if (match(any, segments, next))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class Node
+    {
+        private Map<String, Node> children;
+
+        private Node wildcard;
+
+        private boolean terminal;
+
+        private Node child(String segment)
+        {
+            if (children == null)
+            {
+                children = new HashMap<String, Node>(4);
+            }
+            Node child = children.get(segment);
+            if (child == null)
+            {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
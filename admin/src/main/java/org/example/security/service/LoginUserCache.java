@@ -0,0 +1,192 @@
+package org.example.system.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.example.common.redis.service.RedisService;
+import org.example.system.model.LoginUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录用户本地缓存（Redis 之前的一级缓存）
+ *
+ * 每个请求都要按令牌读取登录用户，命中本地缓存时省去一次 Redis 读取和整个 LoginUser 的反序列化。
+ * 条目有效期很短且不超过会话本身的过期时间；登录信息被修改、退出或强退时通过 Redis 发布/订阅通知所有节点剔除。
+ */
+@Component
+public class LoginUserCache implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(LoginUserCache.class);
+
+    /** 失效通知频道，消息体为令牌标识（uuid） */
+    public static final String INVALIDATE_CHANNEL = "login_tokens:invalidate";
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 本地缓存有效期（毫秒），0 表示不使用本地缓存 */
+    @Value("${token.local-cache.ttl:10000}")
+    private long ttl;
+
+    /** 本地缓存最大条数 */
+    @Value("${token.local-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> local = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+        {
+            return size() > Math.max(1, maxEntries);
+        }
+    };
+
+    /**
+     * 失效代数：每次剔除加一。读取 Redis 前记下代数，写回本地时代数已变化说明期间发生过剔除，
+     * 读到的可能是旧数据，不再写入本地
+     */
+    private long generation;
+
+    @PostConstruct
+    public void init()
+    {
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public boolean isEnabled()
+    {
+        return ttl > 0;
+    }
+
+    /**
+     * 读取本地缓存
+     *
+     * @param userKey 令牌标识
+     * @return 登录用户，未命中或已过期返回 null
+     */
+    public LoginUser get(String userKey)
+    {
+        long now = System.currentTimeMillis();
+        synchronized (local)
+        {
+            Entry entry = local.get(userKey);
+            if (entry == null)
+            {
+                return null;
+            }
+            if (entry.expireAt < now)
+            {
+                local.remove(userKey);
+                return null;
+            }
+            return entry.user;
+        }
+    }
+
+    /**
+     * 当前失效代数，从 Redis 读取前调用，写回时传给 {@link #put(String, LoginUser, long)}
+     */
+    public long generation()
+    {
+        synchronized (local)
+        {
+            return generation;
+        }
+    }
+
+    /**
+     * 写入本地缓存
+     *
+     * @param userKey 令牌标识
+     * @param user 登录用户
+     * @param readGeneration 读取 Redis 前的失效代数，期间发生过剔除时放弃写入
+     */
+    public void put(String userKey, LoginUser user, long readGeneration)
+    {
+        if (!isEnabled() || user == null)
+        {
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + ttl;
+        if (user.getExpireTime() != null)
+        {
+            expireAt = Math.min(expireAt, user.getExpireTime());
+        }
+        synchronized (local)
+        {
+            if (readGeneration == generation)
+            {
+                local.put(userKey, new Entry(user, expireAt));
+            }
+        }
+    }
+
+    /**
+     * 本节点刷新了会话（内容未变，只延长了有效期），直接替换本地条目，不通知其他节点
+     */
+    public void refresh(String userKey, LoginUser user)
+    {
+        put(userKey, user, generation());
+    }
+
+    /**
+     * 剔除本地条目并通知其他节点剔除
+     *
+     * @param userKey 令牌标识
+     */
+    public void invalidate(String userKey)
+    {
+        evict(userKey);
+        try
+        {
+            redisService.publish(INVALIDATE_CHANNEL, userKey);
+        }
+        catch (Exception e)
+        {
+            // 其他节点的旧条目最多保留一个本地有效期
+            log.warn("发布登录用户失效通知失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        evict(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evict(String userKey)
+    {
+        synchronized (local)
+        {
+            generation++;
+            local.remove(userKey);
+        }
+    }
+
+    private static class Entry
+    {
+        private final LoginUser user;
+
+        private final long expireAt;
+
+        private Entry(LoginUser user, long expireAt)
+        {
+            this.user = user;
+            this.expireAt = expireAt;
+        }
+    }
+}
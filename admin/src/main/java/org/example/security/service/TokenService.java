@@ -4,6 +4,7 @@ import org.example.system.model.LoginUser;
 import org.example.system.security.utils.SecurityUtils;
 import org.example.common.core.constant.CacheConstants;
 import org.example.common.core.constant.SecurityConstants;
+import org.example.common.core.text.Convert;
 import org.example.common.core.utils.JwtUtils;
 import org.example.common.core.utils.ServletUtils;
 import org.example.common.core.utils.StringUtils;
@@ -11,11 +12,18 @@ import org.example.common.core.utils.ip.IpUtils;
 import org.example.common.core.utils.uuid.IdUtils;
 import org.example.common.redis.service.RedisService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -29,6 +37,9 @@ public class TokenService
     @Autowired
     private RedisService redisService;
 
+    @Autowired
+    private LoginUserCache loginUserCache;
+
     protected static final long MILLIS_SECOND = 1000;
 
     protected static final long MILLIS_MINUTE = 60 * MILLIS_SECOND;
@@ -39,6 +50,30 @@ public class TokenService
 
     private final static Long MILLIS_MINUTE_TEN = CacheConstants.REFRESH_TIME * MILLIS_MINUTE;
 
+    /** 会话 Hash 字段：用户身份信息 */
+    private final static String FIELD_USER = "user";
+
+    /** 会话 Hash 字段：过期时间（毫秒时间戳） */
+    private final static String FIELD_EXPIRE = "expireTime";
+
+    private final static List<Object> TOKEN_FIELDS = Arrays.<Object>asList(FIELD_USER, FIELD_EXPIRE);
+
+    /** 会话仍存在（且已是 Hash 格式）时更新过期时间字段并延长有效期 */
+    private final static RedisScript<Long> TOUCH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('type', KEYS[1]).ok == 'hash' then redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[3]) end return 0", Long.class);
+
+    /** 将升级前以字符串整体存放的会话原样转存为 Hash，保留剩余有效期；会话已删除或已转存时不做任何事 */
+    private final static RedisScript<Long> MIGRATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('type', KEYS[1]).ok ~= 'string' then return 0 end "
+                    + "local ttl = redis.call('pttl', KEYS[1]) if ttl <= 0 then return 0 end "
+                    + "local user = redis.call('get', KEYS[1]) redis.call('del', KEYS[1]) "
+                    + "redis.call('hset', KEYS[1], ARGV[1], user, ARGV[2], ARGV[3]) "
+                    + "return redis.call('pexpire', KEYS[1], ttl)", Long.class);
+
+    /** 正在续期的令牌，合并同一令牌的并发续期 */
+    private final ConcurrentHashMap<String, Boolean> refreshing = new ConcurrentHashMap<String, Boolean>();
+
     /**
      * 创建令牌
      */
@@ -101,7 +136,14 @@ public class TokenService
             if (StringUtils.isNotEmpty(token))
             {
                 String userkey = JwtUtils.getUserKey(token);
-                user = redisService.getCacheObject(getTokenKey(userkey));
+                user = loginUserCache.get(userkey);
+                if (user != null)
+                {
+                    return user;
+                }
+                long generation = loginUserCache.generation();
+                user = getLoginUserByKey(userkey);
+                loginUserCache.put(userkey, user, generation);
                 return user;
             }
         }
@@ -111,6 +153,88 @@ public class TokenService
         return user;
     }
 
+    /**
+     * 按令牌标识从 Redis 读取用户身份信息（不经过本地缓存）
+     *
+     * @param userKey 令牌标识
+     * @return 用户信息，会话不存在时返回 null
+     */
+    public LoginUser getLoginUserByKey(String userKey)
+    {
+        String key = getTokenKey(userKey);
+        try
+        {
+            return getHashLoginUser(key);
+        }
+        catch (DataAccessException e)
+        {
+            if (!isWrongType(e))
+            {
+                throw e;
+            }
+            return getLegacyLoginUser(key);
+        }
+    }
+
+    private LoginUser getHashLoginUser(String key)
+    {
+        List<Object> values = redisService.getMultiCacheMapValue(key, TOKEN_FIELDS);
+        if (values == null || !(values.get(0) instanceof LoginUser))
+        {
+            return null;
+        }
+        LoginUser user = (LoginUser) values.get(0);
+        Long expire = Convert.toLong(values.get(1));
+        if (expire != null)
+        {
+            user.setExpireTime(expire);
+        }
+        return user;
+    }
+
+    /**
+     * 读取升级前以字符串整体存放的会话（HMGET 报 WRONGTYPE），并就地转存为 Hash，之后的读取与续期都走新格式
+     */
+    private LoginUser getLegacyLoginUser(String key)
+    {
+        Object value;
+        try
+        {
+            value = redisService.getCacheObject(key);
+        }
+        catch (DataAccessException e)
+        {
+            // 其他线程或节点刚完成转存
+            if (!isWrongType(e))
+            {
+                throw e;
+            }
+            return getHashLoginUser(key);
+        }
+        if (!(value instanceof LoginUser))
+        {
+            return null;
+        }
+        LoginUser user = (LoginUser) value;
+        if (user.getExpireTime() != null)
+        {
+            redisService.execute(MIGRATE_SCRIPT, Collections.singletonList(key), FIELD_USER, FIELD_EXPIRE, user.getExpireTime());
+        }
+        return user;
+    }
+
+    private static boolean isWrongType(Throwable e)
+    {
+        for (Throwable t = e; t != null; t = t.getCause())
+        {
+            if (t.getMessage() != null && t.getMessage().startsWith("WRONGTYPE"))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * 设置用户身份信息
      */
@@ -119,6 +243,8 @@ public class TokenService
         if (StringUtils.isNotNull(loginUser) && StringUtils.isNotEmpty(loginUser.getToken()))
         {
             refreshToken(loginUser);
+            // 用户信息已修改，通知各节点剔除本地缓存
+            loginUserCache.invalidate(loginUser.getToken());
         }
     }
 
@@ -130,10 +256,21 @@ public class TokenService
         if (StringUtils.isNotEmpty(token))
         {
             String userkey = JwtUtils.getUserKey(token);
-            redisService.deleteObject(getTokenKey(userkey));
+            delLoginUserByKey(userkey);
         }
     }
 
+    /**
+     * 按令牌标识删除用户缓存信息（强退）
+     *
+     * @param userKey 令牌标识
+     */
+    public void delLoginUserByKey(String userKey)
+    {
+        redisService.deleteObject(getTokenKey(userKey));
+        loginUserCache.invalidate(userKey);
+    }
+
     /**
      * 验证令牌有效期，相差不足120分钟，自动刷新缓存
      *
@@ -145,12 +282,42 @@ public class TokenService
         long currentTime = System.currentTimeMillis();
         if (expireTime - currentTime <= MILLIS_MINUTE_TEN)
         {
-            refreshToken(loginUser);
+            touchToken(loginUser);
+        }
+    }
+
+    /**
+     * 延长令牌有效期：只更新过期时间并 PEXPIRE，不重写用户身份信息。
+     * 同一令牌同时只有一个线程执行，其余线程直接返回（会话此时仍然有效）
+     *
+     * @param loginUser 登录信息
+     */
+    public void touchToken(LoginUser loginUser)
+    {
+        String token = loginUser.getToken();
+        if (refreshing.putIfAbsent(token, Boolean.TRUE) != null)
+        {
+            return;
+        }
+        try
+        {
+            long ttl = expireTime * MILLIS_MINUTE;
+            long expire = System.currentTimeMillis() + ttl;
+            Long ok = redisService.execute(TOUCH_SCRIPT, Collections.singletonList(getTokenKey(token)), FIELD_EXPIRE, expire, ttl);
+            if (ok != null && ok == 1L)
+            {
+                loginUser.setExpireTime(expire);
+                loginUserCache.refresh(token, loginUser);
+            }
+        }
+        finally
+        {
+            refreshing.remove(token);
         }
     }
 
     /**
-     * 刷新令牌有效期
+     * 刷新令牌有效期并写入完整的用户身份信息（登录或用户信息变更时）
      *
      * @param loginUser 登录信息
      */
@@ -158,9 +325,12 @@ public class TokenService
     {
         loginUser.setLoginTime(System.currentTimeMillis());
         loginUser.setExpireTime(loginUser.getLoginTime() + expireTime * MILLIS_MINUTE);
-        // 根据uuid将loginUser缓存
-        String userKey = getTokenKey(loginUser.getToken());
-        redisService.setCacheObject(userKey, loginUser, expireTime, TimeUnit.MINUTES);
+        // 根据uuid将loginUser缓存：身份信息与过期时间分字段存放，续期时只改过期时间
+        Map<String, Object> fields = new HashMap<String, Object>();
+        fields.put(FIELD_USER, loginUser);
+        fields.put(FIELD_EXPIRE, String.valueOf(loginUser.getExpireTime()));
+        redisService.setCacheMap(getTokenKey(loginUser.getToken()), fields, expireTime, TimeUnit.MINUTES);
+        loginUserCache.refresh(loginUser.getToken(), loginUser);
     }
 
     private String getTokenKey(String token)
@@ -0,0 +1,102 @@
+package org.example.system.crypto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 币种身份索引持有者
+ *
+ * 索引与行情快照、币种登记表绑定：快照被替换（采集成功、行情被修改）、登记表重新加载或别名变更后才重建，
+ * 其余时间所有估值与交易路径共享同一个索引。别名优先取币种登记表，crypto.coin.aliases 中按“符号: 别名1,别名2”补充。
+ */
+@Component
+@ConfigurationProperties(prefix = "crypto.coin")
+public class CoinIdentityHolder
+{
+    private static final Logger log = LoggerFactory.getLogger(CoinIdentityHolder.class);
+
+    @Autowired
+    private MetricsSnapshotHolder metricsSnapshotHolder;
+
+    @Autowired
+    private CoinRegistry coinRegistry;
+
+    /** 符号 -> 逗号分隔的别名 */
+    private Map<String, String> aliases = new LinkedHashMap<>();
+
+    /** 当前索引，为 null 表示需要重建 */
+    private volatile CoinIdentityIndex current;
+
+    /**
+     * 获取当前索引，行情快照已更新时先重建
+     */
+    public CoinIdentityIndex get()
+    {
+        CoinIdentityIndex index = current;
+        if (index == null || index.getSnapshot() != metricsSnapshotHolder.get()
+                || index.getRegistryVersion() != coinRegistry.getVersion())
+        {
+            index = rebuild();
+        }
+        return index;
+    }
+
+    /**
+     * 按当前行情快照与别名重建索引
+     */
+    private synchronized CoinIdentityIndex rebuild()
+    {
+        MetricsSnapshot snapshot = metricsSnapshotHolder.get();
+        long registryVersion = coinRegistry.getVersion();
+        if (current != null && current.getSnapshot() == snapshot && current.getRegistryVersion() == registryVersion)
+        {
+            return current;
+        }
+        Map<String, String> merged = new LinkedHashMap<>(coinRegistry.getAliases());
+        for (Map.Entry<String, String> entry : flattenAliases().entrySet())
+        {
+            merged.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        CoinIdentityIndex index = new CoinIdentityIndex(snapshot, merged, registryVersion);
+        current = index;
+        log.info("币种身份索引已重建，共 {} 个写法", index.size());
+        return index;
+    }
+
+    /**
+     * 别名 -> 符号
+     */
+    private Map<String, String> flattenAliases()
+    {
+        Map<String, String> flat = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : aliases.entrySet())
+        {
+            if (entry.getValue() == null)
+            {
+                continue;
+            }
+            for (String alias : entry.getValue().split("[,，]"))
+            {
+                flat.put(alias, entry.getKey());
+            }
+        }
+        return flat;
+    }
+
+    public Map<String, String> getAliases()
+    {
+        return aliases;
+    }
+
+    public synchronized void setAliases(Map<String, String> aliases)
+    {
+        this.aliases = aliases != null ? aliases : new LinkedHashMap<>();
+        // 别名变更后强制下次访问时重建
+        this.current = null;
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.system.crypto;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.example.system.domain.BizCryptoMetrics;
+
+/**
+ * 币种身份索引（不可变）
+ *
+ * 把持仓、AI 建议中出现的任意币种写法（符号不区分大小写、中文名称、配置的别名）统一换算为标准符号，
+ * 并直接关联到对应的最新行情，查询为一次 Map 访问。
+ */
+public final class CoinIdentityIndex
+{
+    /** 构建时使用的行情快照，用于判断是否需要重建 */
+    private final MetricsSnapshot snapshot;
+
+    /** 构建时使用的币种登记表版本，用于判断是否需要重建 */
+    private final long registryVersion;
+
+    /** 规范化写法 -> 标准符号 */
+    private final Map<String, String> symbols;
+
+    /**
+     * @param snapshot 最新行情快照
+     * @param aliases 别名 -> 标准符号（符号与别名均不区分大小写）
+     * @param registryVersion 币种登记表版本
+     */
+    public CoinIdentityIndex(MetricsSnapshot snapshot, Map<String, String> aliases, long registryVersion)
+    {
+        Map<String, String> map = new HashMap<>();
+        // 优先级：行情中的符号 > 行情中的名称 > 配置别名
+        for (BizCryptoMetrics m : snapshot.getMetrics())
+        {
+            String symbol = normalize(m.getSymbol());
+            if (symbol != null && !"UNKNOWN".equals(symbol))
+            {
+                map.putIfAbsent(symbol, symbol);
+            }
+        }
+        for (BizCryptoMetrics m : snapshot.getMetrics())
+        {
+            String symbol = normalize(m.getSymbol());
+            String name = normalize(m.getName());
+            if (symbol != null && !"UNKNOWN".equals(symbol) && name != null)
+            {
+                map.putIfAbsent(name, symbol);
+            }
+        }
+        for (Map.Entry<String, String> entry : aliases.entrySet())
+        {
+            String alias = normalize(entry.getKey());
+            String symbol = normalize(entry.getValue());
+            if (alias != null && symbol != null)
+            {
+                map.putIfAbsent(symbol, symbol);
+                map.putIfAbsent(alias, symbol);
+            }
+        }
+        this.snapshot = snapshot;
+        this.registryVersion = registryVersion;
+        this.symbols = map;
+    }
+
+    /**
+     * 换算为标准符号
+     *
+     * @param coin 任意写法的币种
+     * @return 标准符号（大写），无法识别时返回 null
+     */
+    public String resolve(String coin)
+    {
+        String key = normalize(coin);
+        return key == null ? null : symbols.get(key);
+    }
+
+    /**
+     * 换算为标准符号，无法识别时返回去空格、转大写后的原值，保证同一币种的不同写法得到相同的键
+     */
+    public String canonical(String coin)
+    {
+        String key = normalize(coin);
+        if (key == null)
+        {
+            return null;
+        }
+        String symbol = symbols.get(key);
+        return symbol != null ? symbol : key;
+    }
+
+    /**
+     * 查询币种的最新行情
+     */
+    public BizCryptoMetrics findMetrics(String coin)
+    {
+        String symbol = resolve(coin);
+        return symbol == null ? null : snapshot.getBySymbol(symbol);
+    }
+
+    /**
+     * 两种写法是否为同一币种
+     */
+    public boolean sameCoin(String a, String b)
+    {
+        String ca = canonical(a);
+        return ca != null && ca.equals(canonical(b));
+    }
+
+    public MetricsSnapshot getSnapshot()
+    {
+        return snapshot;
+    }
+
+    public long getRegistryVersion()
+    {
+        return registryVersion;
+    }
+
+    public int size()
+    {
+        return symbols.size();
+    }
+
+    private static String normalize(String coin)
+    {
+        if (coin == null)
+        {
+            return null;
+        }
+        String key = coin.trim();
+        return key.isEmpty() ? null : key.toUpperCase();
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.system.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.example.common.redis.service.RedisLeaseService;
+import org.example.common.redis.service.RedisService;
+import org.example.system.domain.BizCoinRegistry;
+import org.example.system.mapper.BizCoinRegistryMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 币种登记表的内存字典
+ *
+ * 启动时加载 biz_coin_registry，登记表被修改后整体替换；符号、中文名称与别名（均不区分大小写）
+ * 都可以一次 Map 查询到对应的币种，行情入库循环与提示词生成只读内存，不访问数据库。
+ * 多节点部署时，修改登记表的节点提交后通过 Redis 发布/订阅通知其他节点重新加载。
+ */
+@Component
+public class CoinRegistry implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(CoinRegistry.class);
+
+    /** 登记表变更通知频道，消息体为发出通知的节点标识 */
+    public static final String CHANGED_CHANNEL = "crypto:coin-registry:changed";
+
+    @Autowired
+    private BizCoinRegistryMapper coinRegistryMapper;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private volatile Dictionary current = new Dictionary(Collections.<BizCoinRegistry>emptyList(), 0);
+
+    @PostConstruct
+    public void init()
+    {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANGED_CHANNEL));
+        try
+        {
+            reload();
+        }
+        catch (Exception e)
+        {
+            log.error("加载币种登记表失败，请确认 biz_coin_registry 已创建", e);
+        }
+    }
+
+    /**
+     * 从数据库重新加载并原子替换字典
+     */
+    public synchronized void reload()
+    {
+        List<BizCoinRegistry> coins = coinRegistryMapper.selectBizCoinRegistryList(new BizCoinRegistry());
+        current = new Dictionary(coins, current.version + 1);
+        log.info("币种登记表已加载，共 {} 个币种，其中 {} 个采集行情", coins.size(), current.tracked.size());
+    }
+
+    /**
+     * 当前存在事务时在提交后重新加载，否则立即加载；加载后通知其他节点重新加载
+     */
+    public void reloadAfterCommit()
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    reload();
+                    notifyChanged();
+                }
+            });
+        }
+        else
+        {
+            reload();
+            notifyChanged();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        // 本节点发出的通知已在本地加载
+        if (leaseService.getNodeId().equals(new String(message.getBody(), StandardCharsets.UTF_8)))
+        {
+            return;
+        }
+        try
+        {
+            reload();
+        }
+        catch (Exception e)
+        {
+            log.error("收到登记表变更通知，重新加载币种登记表失败", e);
+        }
+    }
+
+    private void notifyChanged()
+    {
+        try
+        {
+            redisService.publish(CHANGED_CHANNEL, leaseService.getNodeId());
+        }
+        catch (Exception e)
+        {
+            log.warn("发布币种登记表变更通知失败，其他节点需重启或再次修改后才会加载: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按符号、中文名称或别名查找币种
+     *
+     * @return 未登记时返回 null
+     */
+    public BizCoinRegistry find(String coin)
+    {
+        String key = normalize(coin);
+        return key == null ? null : current.lookup.get(key);
+    }
+
+    /**
+     * 按符号、中文名称或别名换算为标准符号
+     *
+     * @return 未登记时返回 null
+     */
+    public String resolveSymbol(String coin)
+    {
+        BizCoinRegistry registry = find(coin);
+        return registry != null ? registry.getSymbol() : null;
+    }
+
+    /**
+     * 需要采集行情的币种（按显示顺序）
+     */
+    public List<BizCoinRegistry> getTrackedCoins()
+    {
+        return current.tracked;
+    }
+
+    /**
+     * 名称与别名 -> 符号，供币种身份索引使用
+     */
+    public Map<String, String> getAliases()
+    {
+        return current.aliases;
+    }
+
+    /**
+     * 字典版本号，每次重新加载后递增
+     */
+    public long getVersion()
+    {
+        return current.version;
+    }
+
+    private static String normalize(String coin)
+    {
+        if (coin == null)
+        {
+            return null;
+        }
+        String key = coin.trim();
+        return key.isEmpty() ? null : key.toUpperCase();
+    }
+
+    /**
+     * 不可变字典
+     */
+    private static class Dictionary
+    {
+        private final Map<String, BizCoinRegistry> lookup;
+
+        private final Map<String, String> aliases;
+
+        private final List<BizCoinRegistry> tracked;
+
+        private final long version;
+
+        Dictionary(List<BizCoinRegistry> coins, long version)
+        {
+            Map<String, BizCoinRegistry> lookupMap = new HashMap<>();
+            Map<String, String> aliasMap = new LinkedHashMap<>();
+            List<BizCoinRegistry> trackedList = new ArrayList<>();
+            // 优先级：符号 > 名称 > 别名，避免别名覆盖其它币种的符号
+            for (BizCoinRegistry coin : coins)
+            {
+                String symbol = normalize(coin.getSymbol());
+                if (symbol == null)
+                {
+                    continue;
+                }
+                coin.setSymbol(symbol);
+                lookupMap.putIfAbsent(symbol, coin);
+                if (BizCoinRegistry.TRACKED.equals(coin.getTracked()))
+                {
+                    trackedList.add(coin);
+                }
+            }
+            for (BizCoinRegistry coin : coins)
+            {
+                String name = normalize(coin.getName());
+                if (coin.getSymbol() != null && name != null)
+                {
+                    lookupMap.putIfAbsent(name, coin);
+                    aliasMap.put(coin.getName(), coin.getSymbol());
+                }
+            }
+            for (BizCoinRegistry coin : coins)
+            {
+                if (coin.getSymbol() == null || coin.getAliases() == null)
+                {
+                    continue;
+                }
+                for (String alias : coin.getAliases().split("[,，]"))
+                {
+                    String key = normalize(alias);
+                    if (key != null)
+                    {
+                        lookupMap.putIfAbsent(key, coin);
+                        aliasMap.put(alias.trim(), coin.getSymbol());
+                    }
+                }
+            }
+            this.lookup = lookupMap;
+            this.aliases = Collections.unmodifiableMap(aliasMap);
+            this.tracked = Collections.unmodifiableList(trackedList);
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.system.crypto;
+
+import org.example.common.core.exception.ServiceException;
+import org.example.common.redis.service.RedisLease;
+import org.example.system.mapper.BizCollectFenceMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 采集写入的防护令牌校验
+ *
+ * 租约只保证同一时刻通常只有一个节点在执行，节点长时间停顿（GC、网络分区）后租约可能已被其他节点接手，
+ * 单靠写入前查一次 Redis 仍可能在查完之后才被接手。因此写库时在同一事务内把租约的防护令牌写入
+ * biz_collect_fence，条件是不小于已写入的令牌：旧租约的写入在新租约写过之后一定失败并回滚；
+ * 两者同时写入时行锁使其按顺序提交。
+ */
+@Component
+public class CollectFence
+{
+    @Autowired
+    private BizCollectFenceMapper fenceMapper;
+
+    /**
+     * 在当前事务内校验并前移防护令牌，须在采集数据写入之前、与写入处于同一事务中调用
+     *
+     * @param lease 本次执行持有的集群租约
+     */
+    public void guard(RedisLease lease)
+    {
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+        {
+            throw new IllegalStateException("防护令牌须与采集数据在同一事务内写入");
+        }
+        String taskName = lease.getName();
+        long fence = lease.getFence();
+        // 先更新：任务行通常已存在；不存在时登记，与其他节点同时登记失败的一方再更新一次
+        if (fenceMapper.advance(taskName, fence) == 0 && fenceMapper.insertIgnore(taskName, fence) == 0
+                && fenceMapper.advance(taskName, fence) == 0)
+        {
+            throw new ServiceException("租约 [" + lease.getName() + "] 已被其他节点接手（令牌 " + lease.getFence() + " 已过期），放弃写入");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.example.system.crypto;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.example.common.redis.service.RedisLease;
+import org.example.common.redis.service.RedisLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 采集任务单飞执行器
+ *
+ * 同一任务同一时刻只会真正执行一次：手动点击与定时任务并发触发时，后来者直接加入正在进行的运行并拿到同一结果；
+ * 手动触发在冷却期内直接返回上一次的结果，避免重复调用 LLM 与重复写库。
+ * 多节点部署时，真正执行前还要取得 Redis 中的同名租约：同一时刻全集群只有一个节点在执行，
+ * 定时触发的租约在执行完后至少保留 crypto.collect.lease-min-hold，时钟略有偏差的其他节点在同一周期内不会再执行一次。
+ * 租约的防护令牌由任务体在写库事务内交给 {@link CollectFence} 校验，旧租约的迟到写入会被拒绝。
+ */
+@Component
+public class CollectTaskRunner
+{
+    private static final Logger log = LoggerFactory.getLogger(CollectTaskRunner.class);
+
+    /** 行情采集任务 */
+    public static final String TASK_METRICS = "metrics";
+
+    /** 新闻采集任务 */
+    public static final String TASK_NEWS = "news";
+
+    /** 手动触发的冷却时间（秒） */
+    @Value("${crypto.collect.cooldown:60}")
+    private long cooldownSeconds;
+
+    /** 集群租约有效期（毫秒），执行期间自动续期 */
+    @Value("${crypto.collect.lease-ttl:60000}")
+    private long leaseTtl;
+
+    /** 定时触发的租约最短保留时间（毫秒） */
+    @Value("${crypto.collect.lease-min-hold:300000}")
+    private long leaseMinHold;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    private final Map<String, TaskState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 执行采集任务
+     *
+     * @param taskName 任务名称
+     * @param manual 是否手动触发（手动触发受冷却期限制）
+     * @param task 任务体，返回入库条数；写库时应在同一事务内调用 {@link CollectFence#guard} 校验防护令牌
+     * @return 本次（或被合并的）运行结果
+     */
+    public CollectTaskStatus run(String taskName, boolean manual, CollectTask task)
+    {
+        return run(taskName, manual, manual, task);
+    }
+
+    /**
+     * 执行采集任务
+     *
+     * @param taskName 任务名称
+     * @param manual 是否手动触发（定时触发的租约在执行完后保留最短时长，手动触发立即释放）
+     * @param cooldown 是否受冷却期限制
+     * @param task 任务体，返回入库条数；写库时应在同一事务内调用 {@link CollectFence#guard} 校验防护令牌
+     * @return 本次（或被合并的）运行结果
+     */
+    public CollectTaskStatus run(String taskName, boolean manual, boolean cooldown, CollectTask task)
+    {
+        TaskState state = states.computeIfAbsent(taskName, k -> new TaskState());
+        CompletableFuture<CollectTaskStatus> mine = new CompletableFuture<>();
+        while (true)
+        {
+            CompletableFuture<CollectTaskStatus> current = state.inFlight.get();
+            if (current != null)
+            {
+                log.info(">>> 采集任务 [{}] 正在运行，本次触发合并到进行中的运行", taskName);
+                return current.join().asShared();
+            }
+            CollectTaskStatus last = state.last;
+            if (cooldown && last != null && last.isSuccess() && last.getEndTime() != null
+                    && System.currentTimeMillis() - last.getEndTime().getTime() < cooldownSeconds * 1000)
+            {
+                log.info(">>> 采集任务 [{}] 处于冷却期，直接返回上一次结果", taskName);
+                return last.asShared();
+            }
+            if (state.inFlight.compareAndSet(null, mine))
+            {
+                break;
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        state.startTime = new Date(start);
+        RedisLease lease = null;
+        String leaseError = null;
+        try
+        {
+            lease = leaseService.tryAcquire("collect:" + taskName, leaseTtl);
+            if (lease == null)
+            {
+                leaseError = "其他节点正在执行该任务，本次跳过";
+            }
+        }
+        catch (Exception e)
+        {
+            log.error(">>> 采集任务 [{}] 获取集群租约失败", taskName, e);
+            leaseError = "获取集群租约失败，本次跳过";
+        }
+        if (lease == null)
+        {
+            log.info(">>> 采集任务 [{}]：{}", taskName, leaseError);
+            CollectTaskStatus skipped = new CollectTaskStatus(taskName, false, new Date(start), new Date(),
+                    System.currentTimeMillis() - start, 0, leaseError, true);
+            state.inFlight.set(null);
+            mine.complete(skipped);
+            return skipped;
+        }
+
+        int result = 0;
+        String errorMsg = null;
+        try
+        {
+            Integer count = task.call(lease);
+            result = count == null ? 0 : count;
+        }
+        catch (Throwable e)
+        {
+            log.error(">>> 采集任务 [{}] 执行失败", taskName, e);
+            errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        finally
+        {
+            lease.release(manual ? 0L : leaseMinHold);
+        }
+        long end = System.currentTimeMillis();
+        CollectTaskStatus status = new CollectTaskStatus(taskName, false, new Date(start), new Date(end),
+                end - start, result, errorMsg, false);
+        state.last = status;
+        state.inFlight.set(null);
+        mine.complete(status);
+        log.info(">>> 采集任务 [{}] 完成，入库 {} 条，耗时 {} ms", taskName, result, end - start);
+        return status;
+    }
+
+    /**
+     * 查询任务状态：运行中返回当前运行，否则返回上一次运行
+     *
+     * @param taskName 任务名称
+     * @return 任务状态，从未运行过返回 null
+     */
+    public CollectTaskStatus getStatus(String taskName)
+    {
+        TaskState state = states.get(taskName);
+        if (state == null)
+        {
+            return null;
+        }
+        if (state.inFlight.get() != null && state.startTime != null)
+        {
+            long start = state.startTime.getTime();
+            return new CollectTaskStatus(taskName, true, state.startTime, null,
+                    System.currentTimeMillis() - start, 0, null, false);
+        }
+        return state.last;
+    }
+
+    /**
+     * 采集任务体
+     */
+    @FunctionalInterface
+    public interface CollectTask
+    {
+        /**
+         * @param lease 本次执行持有的集群租约
+         * @return 入库条数
+         */
+        Integer call(RedisLease lease) throws Exception;
+    }
+
+    /**
+     * 单个任务的运行状态
+     */
+    private static class TaskState
+    {
+        private final AtomicReference<CompletableFuture<CollectTaskStatus>> inFlight = new AtomicReference<>();
+
+        private volatile Date startTime;
+
+        private volatile CollectTaskStatus last;
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.system.crypto;
+
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * 采集任务运行状态（一次运行的快照，不可变）
+ */
+public class CollectTaskStatus
+{
+    /** 任务名称 */
+    private final String taskName;
+
+    /** 是否正在运行 */
+    private final boolean running;
+
+    /** 开始时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final Date startTime;
+
+    /** 结束时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final Date endTime;
+
+    /** 运行耗时（毫秒），运行中为已耗时 */
+    private final long duration;
+
+    /** 入库条数 */
+    private final int result;
+
+    /** 失败原因 */
+    private final String errorMsg;
+
+    /** 本次调用是否复用了其它触发的结果（合并执行或冷却期内） */
+    private final boolean shared;
+
+    public CollectTaskStatus(String taskName, boolean running, Date startTime, Date endTime, long duration,
+            int result, String errorMsg, boolean shared)
+    {
+        this.taskName = taskName;
+        this.running = running;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.duration = duration;
+        this.result = result;
+        this.errorMsg = errorMsg;
+        this.shared = shared;
+    }
+
+    /**
+     * 复制为"共享结果"，返回给合并进来的调用方
+     */
+    public CollectTaskStatus asShared()
+    {
+        return new CollectTaskStatus(taskName, running, startTime, endTime, duration, result, errorMsg, true);
+    }
+
+    public String getTaskName()
+    {
+        return taskName;
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    public Date getStartTime()
+    {
+        return startTime;
+    }
+
+    public Date getEndTime()
+    {
+        return endTime;
+    }
+
+    public long getDuration()
+    {
+        return duration;
+    }
+
+    public int getResult()
+    {
+        return result;
+    }
+
+    public String getErrorMsg()
+    {
+        return errorMsg;
+    }
+
+    public boolean isShared()
+    {
+        return shared;
+    }
+
+    public boolean isSuccess()
+    {
+        return !running && errorMsg == null && result > 0;
+    }
+}
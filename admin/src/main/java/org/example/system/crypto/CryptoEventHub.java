@@ -0,0 +1,435 @@
+package org.example.system.crypto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.common.core.exception.ServiceException;
+import org.example.common.redis.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 行情与新闻实时推送（Server-Sent Events）
+ *
+ * 采集提交后发布一次事件：数据只序列化一次，再放入每个连接自己的有界缓冲区，由发送线程异步写出；
+ * 缓冲区满时丢弃最旧的事件，并在下一条事件前补发 reset 提示前端重新拉取列表，慢连接不会拖慢发布方。
+ * 事件经 Redis 发布/订阅转发到所有节点（包括发布节点自己），事件ID取自集群共享的递增序号，
+ * 序号分配与发布在同一个 Lua 脚本内完成，各节点收到的事件顺序一致，连接到任一节点的页面都能收到采集节点的事件。
+ * 最近的事件保留在历史队列中，断线重连时按 Last-Event-ID 补发（重连到其他节点同样可以补发）；
+ * ID 无法识别或已超出本节点历史范围时发送 reset。Redis 不可用时事件只推送给本节点的连接，且不带ID。
+ * 空闲时只有定时心跳，没有任何查询。
+ */
+@Component
+public class CryptoEventHub implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(CryptoEventHub.class);
+
+    /** 事件转发频道，消息体为「序号\n类型\n数据」 */
+    public static final String EVENT_CHANNEL = "crypto:stream:events";
+
+    /** 集群共享的事件序号 */
+    private static final String SEQUENCE_KEY = "crypto:stream:sequence";
+
+    /** 分配序号并发布，返回序号 */
+    private static final RedisScript<Long> PUBLISH = new DefaultRedisScript<>(
+            "local seq = redis.call('incr', KEYS[1]) "
+                    + "redis.call('publish', ARGV[1], seq .. '\\n' .. ARGV[2]) return seq", Long.class);
+
+    /** 最新行情快照 */
+    public static final String EVENT_METRICS = "metrics";
+
+    /** 新入库的市场消息 */
+    public static final String EVENT_NEWS = "news";
+
+    /** 有事件丢失，前端应重新拉取列表 */
+    public static final String EVENT_RESET = "reset";
+
+    private static final Event HEARTBEAT = new Event(null, 0, null, null);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 最大连接数 */
+    @Value("${crypto.stream.max-clients:500}")
+    private int maxClients;
+
+    /** 每个连接的缓冲事件数 */
+    @Value("${crypto.stream.client-buffer:16}")
+    private int clientBuffer;
+
+    /** 断线补发保留的事件数 */
+    @Value("${crypto.stream.history-size:64}")
+    private int historySize;
+
+    /** 连接超时（毫秒），到期后浏览器自动带 Last-Event-ID 重连 */
+    @Value("${crypto.stream.timeout:1800000}")
+    private long timeout;
+
+    /** 发送线程数 */
+    @Value("${crypto.stream.sender-threads:2}")
+    private int senderThreads;
+
+    private final Deque<Event> history = new ArrayDeque<>();
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    /** 本节点收到的最大序号 */
+    private long sequence;
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void init()
+    {
+        AtomicInteger seq = new AtomicInteger();
+        sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread t = new Thread(r, "crypto-sse-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        listenerContainer.addMessageListener(this, new ChannelTopic(EVENT_CHANNEL));
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        for (Client client : clients)
+        {
+            client.close();
+        }
+        sender.shutdownNow();
+    }
+
+    /**
+     * 建立推送连接
+     *
+     * @param lastEventId 浏览器重连时携带的最后一个事件ID，首次连接为 null
+     */
+    public SseEmitter subscribe(String lastEventId)
+    {
+        if (clients.size() >= maxClients)
+        {
+            throw new ServiceException("实时推送连接数已达上限，请稍后重试");
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Client client = new Client(emitter, Math.max(1, clientBuffer));
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError(e -> client.close());
+        synchronized (history)
+        {
+            // 补发与注册在同一把锁内完成，与发布互斥，事件既不重复也不遗漏
+            if (lastEventId != null && !lastEventId.isEmpty())
+            {
+                long last = parseSequence(lastEventId);
+                Event oldest = history.peekFirst();
+                if (last < 0 || last > sequence || (oldest != null && last < oldest.sequence - 1))
+                {
+                    client.offer(new Event(null, 0, EVENT_RESET, "{}"));
+                }
+                else
+                {
+                    for (Event event : history)
+                    {
+                        if (event.sequence > last)
+                        {
+                            client.offer(event);
+                        }
+                    }
+                }
+            }
+            clients.add(client);
+        }
+        return emitter;
+    }
+
+    /**
+     * 发布事件（在数据提交之后调用），经 Redis 转发给所有节点的连接
+     *
+     * @param type 事件类型
+     * @param payload 事件数据，序列化为 JSON
+     */
+    public void publish(String type, Object payload)
+    {
+        String data;
+        try
+        {
+            data = objectMapper.writeValueAsString(payload);
+        }
+        catch (JsonProcessingException e)
+        {
+            log.error("推送事件 [{}] 序列化失败", type, e);
+            return;
+        }
+        try
+        {
+            redisService.execute(PUBLISH, Collections.singletonList(SEQUENCE_KEY), EVENT_CHANNEL, type + "\n" + data);
+        }
+        catch (Exception e)
+        {
+            // 不带ID，不进入历史：重连时仍按之前的ID补发
+            log.warn("转发推送事件 [{}] 失败，只推送给本节点的连接: {}", type, e.getMessage());
+            deliver(new Event(null, 0, type, data));
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf('\n');
+        int second = first < 0 ? -1 : body.indexOf('\n', first + 1);
+        if (second < 0)
+        {
+            log.warn("忽略无法识别的推送事件: {}", body.length() > 100 ? body.substring(0, 100) : body);
+            return;
+        }
+        long seq;
+        try
+        {
+            seq = Long.parseLong(body.substring(0, first));
+        }
+        catch (NumberFormatException e)
+        {
+            log.warn("忽略序号无法识别的推送事件");
+            return;
+        }
+        deliver(new Event(Long.toString(seq), seq, body.substring(first + 1, second), body.substring(second + 1)));
+    }
+
+    private void deliver(Event event)
+    {
+        synchronized (history)
+        {
+            if (event.id != null)
+            {
+                sequence = Math.max(sequence, event.sequence);
+                history.addLast(event);
+                while (history.size() > Math.max(1, historySize))
+                {
+                    history.pollFirst();
+                }
+            }
+            for (Client client : clients)
+            {
+                client.offer(event);
+            }
+        }
+        log.debug("已推送事件 [{}] 至 {} 个连接", event.type, clients.size());
+    }
+
+    /**
+     * 定时心跳，保持连接不被代理断开，同时及时清理已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${crypto.stream.heartbeat-interval:15000}")
+    public void heartbeat()
+    {
+        for (Client client : clients)
+        {
+            client.offerHeartbeat();
+        }
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getClientCount()
+    {
+        return clients.size();
+    }
+
+    /**
+     * 解析 Last-Event-ID，无法识别（如升级前「进程标识-序号」格式的ID）时返回 -1
+     */
+    private long parseSequence(String lastEventId)
+    {
+        try
+        {
+            return Long.parseLong(lastEventId);
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * 推送事件
+     */
+    private static class Event
+    {
+        private final String id;
+
+        private final long sequence;
+
+        private final String type;
+
+        private final String data;
+
+        Event(String id, long sequence, String type, String data)
+        {
+            this.id = id;
+            this.sequence = sequence;
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 单个连接：有界缓冲区 + 同一时刻最多一个发送任务
+     */
+    private class Client
+    {
+        private final SseEmitter emitter;
+
+        private final int capacity;
+
+        private final ArrayDeque<Event> buffer;
+
+        private boolean draining;
+
+        private boolean lost;
+
+        private volatile boolean closed;
+
+        Client(SseEmitter emitter, int capacity)
+        {
+            this.emitter = emitter;
+            this.capacity = capacity;
+            this.buffer = new ArrayDeque<>(capacity);
+        }
+
+        synchronized void offer(Event event)
+        {
+            if (closed)
+            {
+                return;
+            }
+            if (buffer.size() >= capacity)
+            {
+                buffer.pollFirst();
+                lost = true;
+            }
+            buffer.addLast(event);
+            schedule();
+        }
+
+        synchronized void offerHeartbeat()
+        {
+            if (!closed && buffer.isEmpty() && !draining)
+            {
+                buffer.addLast(HEARTBEAT);
+                schedule();
+            }
+        }
+
+        private void schedule()
+        {
+            if (!draining)
+            {
+                draining = true;
+                try
+                {
+                    sender.execute(this::drain);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    draining = false;
+                }
+            }
+        }
+
+        private void drain()
+        {
+            while (true)
+            {
+                Event event;
+                boolean reset;
+                synchronized (this)
+                {
+                    event = buffer.pollFirst();
+                    if (event == null || closed)
+                    {
+                        draining = false;
+                        return;
+                    }
+                    reset = lost && event != HEARTBEAT;
+                    lost = false;
+                }
+                try
+                {
+                    if (reset)
+                    {
+                        emitter.send(SseEmitter.event().name(EVENT_RESET).data("{}"));
+                    }
+                    if (event == HEARTBEAT)
+                    {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    else
+                    {
+                        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.type).data(event.data);
+                        emitter.send(event.id != null ? builder.id(event.id) : builder);
+                    }
+                }
+                catch (IOException | IllegalStateException e)
+                {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close()
+        {
+            synchronized (this)
+            {
+                if (closed)
+                {
+                    return;
+                }
+                closed = true;
+                buffer.clear();
+                draining = false;
+            }
+            clients.remove(this);
+            try
+            {
+                emitter.complete();
+            }
+            catch (Exception ignored)
+            {
+                // 连接已断开
+            }
+        }
+    }
+}
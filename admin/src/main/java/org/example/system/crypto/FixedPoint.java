@@ -0,0 +1,96 @@
+package org.example.system.crypto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 8 位小数的定点数运算
+ *
+ * 数量、价格与金额统一按 1e-8 精度存为 long（与库表 decimal(20,8) 一致），加减即整数加减；
+ * 乘法按整数部分与小数部分拆开计算，常见量级下不会溢出，也不创建任何对象。
+ */
+public final class FixedPoint
+{
+    /** 小数位数 */
+    public static final int SCALE = 8;
+
+    /** 1.0 */
+    public static final long ONE = 100_000_000L;
+
+    /** 比例的基数（万分之一，basis point） */
+    public static final long BP = 10_000L;
+
+    private FixedPoint()
+    {
+    }
+
+    /**
+     * BigDecimal 转定点数（四舍五入到 8 位小数），null 视为 0
+     */
+    public static long of(BigDecimal value)
+    {
+        if (value == null)
+        {
+            return 0L;
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 定点数转 BigDecimal
+     */
+    public static BigDecimal toDecimal(long value)
+    {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * 定点数相乘：a * b（结果仍为 8 位小数，四舍五入）
+     */
+    public static long mul(long a, long b)
+    {
+        boolean negative = (a < 0) != (b < 0);
+        long x = Math.abs(a);
+        long y = Math.abs(b);
+        long xh = x / ONE;
+        long xl = x % ONE;
+        long yh = y / ONE;
+        long yl = y % ONE;
+        // x * y / ONE = xh*yh*ONE + xh*yl + xl*yh + xl*yl/ONE
+        long result = Math.addExact(Math.addExact(Math.multiplyExact(Math.multiplyExact(xh, yh), ONE),
+                Math.addExact(Math.multiplyExact(xh, yl), Math.multiplyExact(xl, yh))), (xl * yl + ONE / 2) / ONE);
+        return negative ? -result : result;
+    }
+
+    /**
+     * 比例：part / total，以万分之一为单位（四舍五入），total 为 0 时返回 0
+     */
+    public static long ratioBp(long part, long total)
+    {
+        if (total == 0)
+        {
+            return 0L;
+        }
+        if (Math.abs(part) <= Long.MAX_VALUE / BP)
+        {
+            long scaled = part * BP;
+            long q = scaled / total;
+            long r = Math.abs(scaled % total);
+            if (r >= Math.abs(total) - r)
+            {
+                q += (scaled < 0) == (total < 0) ? 1 : -1;
+            }
+            return q;
+        }
+        return BigDecimal.valueOf(part).multiply(BigDecimal.valueOf(BP))
+                .divide(BigDecimal.valueOf(total), 0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * 万分比转百分比（两位小数），如 1234 -> 12.34
+     */
+    public static BigDecimal bpToPercent(long bp)
+    {
+        return BigDecimal.valueOf(bp, 2);
+    }
+}
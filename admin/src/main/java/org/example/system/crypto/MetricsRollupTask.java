@@ -0,0 +1,165 @@
+package org.example.system.crypto;
+
+import java.util.Calendar;
+import java.util.Date;
+import org.example.common.core.utils.DateUtils;
+import org.example.common.redis.service.RedisLease;
+import org.example.common.redis.service.RedisLeaseService;
+import org.example.system.mapper.BizCryptoMetricsHistoryMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 行情历史聚合与清理任务
+ *
+ * 原始快照只追加不覆盖；每小时把最近的快照聚合为小时 / 日 OHLC，每天按保留期分批清理过期数据，
+ * 长区间查询走聚合表，原始表的体积保持在保留期内。
+ * 定时任务在每个节点上都会触发，由集群租约保证同一周期只有一个节点执行。
+ */
+@Component
+public class MetricsRollupTask
+{
+    private static final Logger log = LoggerFactory.getLogger(MetricsRollupTask.class);
+
+    /** 聚合任务的集群租约 */
+    private static final String ROLLUP_LEASE = "metrics:rollup";
+
+    /** 清理任务的集群租约 */
+    private static final String PRUNE_LEASE = "metrics:prune";
+
+    /** 租约自获取起至少保留的时长：各节点的定时任务同时触发，执行完成后也不让其他节点在同一周期内重复执行 */
+    private static final long MIN_HOLD_MILLIS = 10 * 60 * 1000L;
+
+    @Autowired
+    private BizCryptoMetricsHistoryMapper historyMapper;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    /** 每次聚合回看的小时数（覆盖迟到或补采的快照） */
+    @Value("${crypto.metrics.rollup-lookback-hours:3}")
+    private int lookbackHours;
+
+    /** 原始快照保留天数 */
+    @Value("${crypto.metrics.raw-retention-days:30}")
+    private int rawRetentionDays;
+
+    /** 小时K线保留天数 */
+    @Value("${crypto.metrics.hourly-retention-days:365}")
+    private int hourlyRetentionDays;
+
+    /** 清理时每批删除的行数 */
+    @Value("${crypto.metrics.prune-batch-size:5000}")
+    private int pruneBatchSize;
+
+    /**
+     * 每小时第 5 分钟聚合最近几个小时的快照（行情采集在整点执行）
+     */
+    @Scheduled(cron = "0 5 * * * ?")
+    public void rollup()
+    {
+        RedisLease lease = acquire(ROLLUP_LEASE);
+        if (lease == null)
+        {
+            return;
+        }
+        try
+        {
+            doRollup();
+        }
+        catch (Exception e)
+        {
+            log.error("行情聚合失败", e);
+        }
+        finally
+        {
+            lease.release(MIN_HOLD_MILLIS);
+        }
+    }
+
+    private void doRollup()
+    {
+        Date now = DateUtils.getNowDate();
+        Date hourFrom = DateUtils.addHours(DateUtils.truncate(now, Calendar.HOUR_OF_DAY), -Math.max(1, lookbackHours));
+        Date dayFrom = DateUtils.truncate(hourFrom, Calendar.DATE);
+        Date dayTo = DateUtils.addDays(DateUtils.truncate(now, Calendar.DATE), 1);
+        int hourly = historyMapper.rollupHourly(hourFrom, now);
+        int daily = historyMapper.rollupDaily(dayFrom, dayTo);
+        log.info("行情聚合完成，小时K线影响 {} 行，日K线影响 {} 行", hourly, daily);
+    }
+
+    /**
+     * 每天凌晨清理超过保留期的原始快照与小时K线（日K线长期保留）
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void prune()
+    {
+        RedisLease lease = acquire(PRUNE_LEASE);
+        if (lease == null)
+        {
+            return;
+        }
+        try
+        {
+            doPrune();
+        }
+        catch (Exception e)
+        {
+            log.error("行情历史清理失败", e);
+        }
+        finally
+        {
+            lease.release(MIN_HOLD_MILLIS);
+        }
+    }
+
+    private void doPrune()
+    {
+        Date now = DateUtils.getNowDate();
+        int raw = 0;
+        int hourly = 0;
+        if (rawRetentionDays > 0)
+        {
+            Date before = DateUtils.addDays(now, -rawRetentionDays);
+            int rows;
+            do
+            {
+                rows = historyMapper.pruneRaw(before, pruneBatchSize);
+                raw += rows;
+            }
+            while (rows >= pruneBatchSize);
+        }
+        if (hourlyRetentionDays > 0)
+        {
+            Date before = DateUtils.addDays(now, -hourlyRetentionDays);
+            int rows;
+            do
+            {
+                rows = historyMapper.pruneHourly(before, pruneBatchSize);
+                hourly += rows;
+            }
+            while (rows >= pruneBatchSize);
+        }
+        log.info("行情历史清理完成，删除原始快照 {} 行，小时K线 {} 行", raw, hourly);
+    }
+
+    /**
+     * 获取集群租约，其他节点正在或刚刚执行、Redis 不可用时返回 null（本周期跳过）
+     */
+    private RedisLease acquire(String name)
+    {
+        try
+        {
+            return leaseService.tryAcquire(name, 60000L);
+        }
+        catch (Exception e)
+        {
+            log.warn("获取租约 {} 失败: {}", name, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.system.crypto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.example.system.domain.BizCryptoMetrics;
+
+/**
+ * 最新行情快照（不可变）
+ *
+ * 创建后不再修改，按币种符号（忽略大小写）和中文名称建立索引，可被任意线程无锁读取。
+ * 快照中的行情对象为共享实例，调用方只读，不要修改其字段。
+ */
+public final class MetricsSnapshot
+{
+    /** 空快照 */
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(Collections.<BizCryptoMetrics>emptyList(), null);
+
+    private final List<BizCryptoMetrics> metrics;
+
+    private final Map<String, BizCryptoMetrics> bySymbol;
+
+    private final Map<String, BizCryptoMetrics> byName;
+
+    private final Date loadTime;
+
+    public MetricsSnapshot(List<BizCryptoMetrics> metrics, Date loadTime)
+    {
+        Map<String, BizCryptoMetrics> symbolMap = new HashMap<>();
+        Map<String, BizCryptoMetrics> nameMap = new HashMap<>();
+        for (BizCryptoMetrics m : metrics)
+        {
+            String symbol = m.getSymbol();
+            if (symbol != null && !symbol.isEmpty() && !"UNKNOWN".equalsIgnoreCase(symbol))
+            {
+                symbolMap.putIfAbsent(symbol.toUpperCase(), m);
+            }
+            if (m.getName() != null && !m.getName().isEmpty())
+            {
+                nameMap.putIfAbsent(m.getName(), m);
+            }
+        }
+        this.metrics = Collections.unmodifiableList(new ArrayList<>(metrics));
+        this.bySymbol = symbolMap;
+        this.byName = nameMap;
+        this.loadTime = loadTime;
+    }
+
+    /**
+     * 全部币种最新行情（按市值倒序）
+     */
+    public List<BizCryptoMetrics> getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * 按币种符号查询，忽略大小写
+     */
+    public BizCryptoMetrics getBySymbol(String symbol)
+    {
+        return symbol == null ? null : bySymbol.get(symbol.toUpperCase());
+    }
+
+    /**
+     * 按币种名称查询
+     */
+    public BizCryptoMetrics getByName(String name)
+    {
+        return name == null ? null : byName.get(name);
+    }
+
+    /**
+     * 按符号或名称查询，符号优先
+     */
+    public BizCryptoMetrics find(String coin)
+    {
+        BizCryptoMetrics m = getBySymbol(coin);
+        return m != null ? m : getByName(coin);
+    }
+
+    public Date getLoadTime()
+    {
+        return loadTime;
+    }
+
+    public int size()
+    {
+        return metrics.size();
+    }
+}
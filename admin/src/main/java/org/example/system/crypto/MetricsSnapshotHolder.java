@@ -0,0 +1,149 @@
+package org.example.system.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PostConstruct;
+import org.example.common.core.utils.DateUtils;
+import org.example.common.redis.service.RedisLeaseService;
+import org.example.common.redis.service.RedisService;
+import org.example.system.domain.BizCryptoMetrics;
+import org.example.system.mapper.BizCryptoMetricsMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 最新行情快照持有者
+ *
+ * 启动时从数据库加载一次，之后仅在行情采集成功或行情数据被修改后整体替换；
+ * 读取方直接拿当前快照做 Map 查询，不再每次访问数据库。
+ * 采集只在持有租约的节点上执行，提交后通过 Redis 发布/订阅通知其他节点重新加载。
+ */
+@Component
+public class MetricsSnapshotHolder implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(MetricsSnapshotHolder.class);
+
+    /** 行情变更通知频道，消息体为发出通知的节点标识 */
+    public static final String CHANGED_CHANNEL = "crypto:metrics:changed";
+
+    @Autowired
+    private BizCryptoMetricsMapper bizCryptoMetricsMapper;
+
+    @Autowired
+    private CryptoEventHub cryptoEventHub;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final AtomicReference<MetricsSnapshot> current = new AtomicReference<>(MetricsSnapshot.EMPTY);
+
+    @PostConstruct
+    public void init()
+    {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANGED_CHANNEL));
+        try
+        {
+            refresh();
+        }
+        catch (Exception e)
+        {
+            log.error("初始化最新行情快照失败，将在下次采集后重试", e);
+        }
+    }
+
+    /**
+     * 获取当前快照（无锁）
+     */
+    public MetricsSnapshot get()
+    {
+        return current.get();
+    }
+
+    /**
+     * 从数据库重新加载并原子替换快照
+     *
+     * @return 新快照
+     */
+    public MetricsSnapshot refresh()
+    {
+        List<BizCryptoMetrics> latest = bizCryptoMetricsMapper.selectLatestMetrics();
+        MetricsSnapshot snapshot = new MetricsSnapshot(latest, DateUtils.getNowDate());
+        current.set(snapshot);
+        log.info("最新行情快照已刷新，共 {} 个币种", snapshot.size());
+        return snapshot;
+    }
+
+    /**
+     * 当前存在事务时在提交后刷新，否则立即刷新，避免读到未提交或已回滚的数据；刷新后推送给订阅的页面
+     */
+    public void refreshAfterCommit()
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    refreshAndPublish();
+                }
+            });
+        }
+        else
+        {
+            refreshAndPublish();
+        }
+    }
+
+    private void refreshAndPublish()
+    {
+        MetricsSnapshot snapshot = refresh();
+        notifyChanged();
+        cryptoEventHub.publish(CryptoEventHub.EVENT_METRICS, snapshot.getMetrics());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        // 本节点发出的通知已在本地刷新
+        if (leaseService.getNodeId().equals(new String(message.getBody(), StandardCharsets.UTF_8)))
+        {
+            return;
+        }
+        try
+        {
+            refresh();
+        }
+        catch (Exception e)
+        {
+            log.error("收到行情变更通知，刷新最新行情快照失败", e);
+        }
+    }
+
+    private void notifyChanged()
+    {
+        try
+        {
+            redisService.publish(CHANGED_CHANNEL, leaseService.getNodeId());
+        }
+        catch (Exception e)
+        {
+            log.warn("发布行情变更通知失败，其他节点要到下次采集后才会刷新: {}", e.getMessage());
+        }
+    }
+}
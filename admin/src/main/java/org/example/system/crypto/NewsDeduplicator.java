@@ -0,0 +1,150 @@
+package org.example.system.crypto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.example.common.core.utils.DateUtils;
+import org.example.system.domain.BizCryptoMessage;
+import org.example.system.mapper.BizCryptoMessageMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 市场消息去重
+ *
+ * 按币种（换算为标准符号）在滑动窗口内比较内容指纹：精确哈希相同视为重复，
+ * SimHash 汉明距离不超过阈值视为近似重复；同一批次内的消息之间同样去重。
+ * 窗口内的指纹由覆盖索引一次查出，比较全部在内存中完成。
+ */
+@Component
+public class NewsDeduplicator
+{
+    private static final Logger log = LoggerFactory.getLogger(NewsDeduplicator.class);
+
+    @Autowired
+    private BizCryptoMessageMapper messageMapper;
+
+    @Autowired
+    private CoinIdentityHolder coinIdentityHolder;
+
+    /** 去重窗口（小时） */
+    @Value("${crypto.news.dedup-window-hours:48}")
+    private int windowHours;
+
+    /** SimHash 近似重复阈值（汉明距离），0 表示只做精确去重 */
+    @Value("${crypto.news.simhash-distance:4}")
+    private int maxDistance;
+
+    /**
+     * 为消息计算并填充内容指纹
+     */
+    public static void fingerprint(BizCryptoMessage message)
+    {
+        String normalized = NewsFingerprint.normalize(message.getContent());
+        message.setContentHash(NewsFingerprint.contentHash(normalized));
+        message.setSimhash(NewsFingerprint.simHash(normalized));
+    }
+
+    /**
+     * 过滤掉与窗口内已有消息或本批次前序消息重复的消息
+     *
+     * @param candidates 本次采集解析出的消息
+     * @return 需要入库的消息（已填充指纹）
+     */
+    public List<BizCryptoMessage> filter(List<BizCryptoMessage> candidates)
+    {
+        if (candidates.isEmpty())
+        {
+            return candidates;
+        }
+        CoinIdentityIndex index = coinIdentityHolder.get();
+        Map<String, Window> windows = new HashMap<>();
+        for (BizCryptoMessage seen : messageMapper.selectFingerprintsSince(DateUtils.addHours(DateUtils.getNowDate(), -windowHours)))
+        {
+            // 历史数据由 NewsFingerprintBackfill 在启动时回填，回填完成前的空指纹不参与比较
+            if (seen.getContentHash() == null)
+            {
+                continue;
+            }
+            window(windows, index.canonical(seen.getCoin())).add(seen);
+        }
+
+        List<BizCryptoMessage> accepted = new ArrayList<>();
+        int exact = 0;
+        int similar = 0;
+        for (BizCryptoMessage message : candidates)
+        {
+            String normalized = NewsFingerprint.normalize(message.getContent());
+            if (normalized.isEmpty())
+            {
+                continue;
+            }
+            message.setContentHash(NewsFingerprint.contentHash(normalized));
+            message.setSimhash(NewsFingerprint.simHash(normalized));
+            Window window = window(windows, index.canonical(message.getCoin()));
+            if (window.hashes.contains(message.getContentHash()))
+            {
+                exact++;
+                continue;
+            }
+            if (maxDistance > 0 && window.nearest(message.getSimhash()) <= maxDistance)
+            {
+                similar++;
+                continue;
+            }
+            window.add(message);
+            accepted.add(message);
+        }
+        log.info("消息去重：共 {} 条，重复 {} 条，近似重复 {} 条，保留 {} 条", candidates.size(), exact, similar, accepted.size());
+        return accepted;
+    }
+
+    private static Window window(Map<String, Window> windows, String coin)
+    {
+        return windows.computeIfAbsent(coin == null ? "" : coin, k -> new Window());
+    }
+
+    /**
+     * 单个币种窗口内的指纹（每个币种每个窗口通常只有几十条，SimHash 线性比较即可）
+     */
+    private static class Window
+    {
+        private final Set<String> hashes = new HashSet<>();
+
+        private long[] simhashes = new long[16];
+
+        private int size;
+
+        void add(BizCryptoMessage message)
+        {
+            hashes.add(message.getContentHash());
+            if (message.getSimhash() == null)
+            {
+                return;
+            }
+            if (size == simhashes.length)
+            {
+                long[] grown = new long[size * 2];
+                System.arraycopy(simhashes, 0, grown, 0, size);
+                simhashes = grown;
+            }
+            simhashes[size++] = message.getSimhash();
+        }
+
+        int nearest(long simhash)
+        {
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < size && best > 0; i++)
+            {
+                best = Math.min(best, NewsFingerprint.distance(simhash, simhashes[i]));
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.system.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+
+/**
+ * 新闻内容指纹
+ *
+ * 内容先做归一化（全角转半角、英文转小写、去掉空白与标点），再计算：
+ * 精确哈希（SHA-256）识别完全相同的内容；64 位 SimHash（按 3 字符滑窗分词）识别改写了个别字词的近似内容，
+ * 两条内容的 SimHash 汉明距离越小越相似。
+ */
+public final class NewsFingerprint
+{
+    /** SimHash 分词窗口（字符数），中文无需分词，按字符滑窗即可 */
+    private static final int SHINGLE = 3;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private NewsFingerprint()
+    {
+    }
+
+    /**
+     * 归一化内容
+     *
+     * @return 只保留字母、数字与汉字的小写文本，内容为空时返回空串
+     */
+    public static String normalize(String content)
+    {
+        if (content == null)
+        {
+            return "";
+        }
+        String text = Normalizer.normalize(content, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c))
+            {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 归一化内容的 SHA-256（十六进制）
+     */
+    public static String contentHash(String normalized)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+            {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 归一化内容的 64 位 SimHash
+     */
+    public static long simHash(String normalized)
+    {
+        if (normalized.isEmpty())
+        {
+            return 0L;
+        }
+        int[] weights = new int[64];
+        int shingles = Math.max(1, normalized.length() - SHINGLE + 1);
+        for (int i = 0; i < shingles; i++)
+        {
+            long h = hash(normalized, i, Math.min(normalized.length(), i + SHINGLE));
+            for (int bit = 0; bit < 64; bit++)
+            {
+                weights[bit] += ((h >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+        }
+        long simHash = 0L;
+        for (int bit = 0; bit < 64; bit++)
+        {
+            if (weights[bit] > 0)
+            {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    /**
+     * 两个 SimHash 的汉明距离
+     */
+    public static int distance(long a, long b)
+    {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * FNV-1a 哈希后再做一次位混合，使相邻分词的哈希位分布均匀
+     */
+    private static long hash(String text, int from, int to)
+    {
+        long h = FNV_OFFSET;
+        for (int i = from; i < to; i++)
+        {
+            h ^= text.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.system.crypto;
+
+import java.util.List;
+import org.example.common.redis.service.RedisService;
+import org.example.system.domain.BizCryptoMessage;
+import org.example.system.mapper.BizCryptoMessageMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 新闻内容指纹的一次性回填
+ *
+ * 增加 content_hash / simhash 列之前入库的消息没有指纹。指纹由归一化内容在 Java 中计算，无法用 SQL 迁移，
+ * 因此在启动完成后按主键分批补齐，之后去重窗口查询只读 idx_fingerprint 覆盖索引，不再带出内容现算。
+ * 全部补齐后在 Redis 中记下完成标记，后续启动不再扫描表。
+ */
+@Component
+public class NewsFingerprintBackfill implements ApplicationListener<ApplicationReadyEvent>
+{
+    private static final Logger log = LoggerFactory.getLogger(NewsFingerprintBackfill.class);
+
+    /** 回填完成标记 */
+    private static final String DONE_KEY = "crypto:news:fingerprint-backfilled";
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private BizCryptoMessageMapper messageMapper;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event)
+    {
+        try
+        {
+            if (Boolean.TRUE.equals(redisService.hasKey(DONE_KEY)))
+            {
+                return;
+            }
+            int updated = backfill();
+            redisService.setCacheObject(DONE_KEY, System.currentTimeMillis());
+            if (updated > 0)
+            {
+                log.info("新闻内容指纹回填完成，共 {} 条", updated);
+            }
+        }
+        catch (Exception e)
+        {
+            // 未完成时不写标记，下次启动从头继续（已回填的行不会再被查出）
+            log.warn("新闻内容指纹回填失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 为所有尚无指纹的消息计算并写入指纹
+     *
+     * @return 写入条数
+     */
+    public int backfill()
+    {
+        int updated = 0;
+        long afterId = 0L;
+        List<BizCryptoMessage> batch;
+        do
+        {
+            batch = messageMapper.selectWithoutFingerprint(afterId, BATCH_SIZE);
+            for (BizCryptoMessage message : batch)
+            {
+                NewsDeduplicator.fingerprint(message);
+                updated += messageMapper.updateFingerprint(message);
+                afterId = message.getId();
+            }
+        }
+        while (batch.size() == BATCH_SIZE);
+        return updated;
+    }
+}
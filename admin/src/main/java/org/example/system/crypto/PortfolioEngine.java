@@ -0,0 +1,451 @@
+package org.example.system.crypto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import org.example.common.redis.service.RedisLeaseService;
+import org.example.common.redis.service.RedisService;
+import org.example.system.domain.BizAssetHoldings;
+import org.example.system.domain.BizCryptoMetrics;
+import org.example.system.domain.vo.PortfolioPosition;
+import org.example.system.domain.vo.PortfolioValuation;
+import org.example.system.mapper.BizAssetHoldingsMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 组合估值引擎
+ *
+ * 持仓常驻内存，数量、价格、估值与成本均为 8 位定点 long（见 {@link FixedPoint}），组合总值与总成本增量维护：
+ * 行情快照替换后只重算价格有变化的币种，持仓变更提交后只重新加载变更的记录，每次都按差额调整总计。
+ * 对外的估值结果在数据变化后首次读取时生成一次，之后直接返回同一个不可变结果。
+ * 多节点部署时，持仓变更提交后通过 Redis 发布/订阅通知其他节点，其他节点放弃内存状态并在下次读取时全量加载；
+ * 另外每隔 crypto.portfolio.reload-interval 全量加载一次，通知丢失时最多滞后一个间隔。
+ * 单个持仓的估值或成本需在 ±9.2e10 USDT 以内。
+ */
+@Component
+public class PortfolioEngine implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(PortfolioEngine.class);
+
+    /** 持仓变更通知频道，消息体为发出通知的节点标识 */
+    public static final String CHANGED_CHANNEL = "crypto:portfolio:changed";
+
+    @Autowired
+    private BizAssetHoldingsMapper holdingsMapper;
+
+    @Autowired
+    private CoinIdentityHolder coinIdentityHolder;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 全量加载间隔（毫秒），0 表示只依赖变更通知 */
+    @Value("${crypto.portfolio.reload-interval:300000}")
+    private long reloadInterval;
+
+    /** 持仓ID -> 持仓 */
+    private final Map<Long, Position> positions = new HashMap<>();
+
+    /** 标准符号 -> 持仓ID */
+    private final Map<String, Set<Long>> bySymbol = new HashMap<>();
+
+    private long totalValue;
+
+    private long totalCost;
+
+    private boolean loaded;
+
+    /** 最近一次全量加载的时间 */
+    private volatile long loadedAt;
+
+    /** 当前价格所依据的币种索引（随行情快照替换） */
+    private volatile CoinIdentityIndex pricedBy;
+
+    /** 已生成的估值结果，为 null 表示需要重新生成 */
+    private volatile PortfolioValuation view;
+
+    @PostConstruct
+    public void init()
+    {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANGED_CHANNEL));
+    }
+
+    /**
+     * 当前组合估值（数据未变化时直接返回上次的结果）
+     */
+    public PortfolioValuation getValuation()
+    {
+        CoinIdentityIndex index = coinIdentityHolder.get();
+        PortfolioValuation result = view;
+        if (result != null && pricedBy == index && !isStale())
+        {
+            return result;
+        }
+        return rebuild(index);
+    }
+
+    /**
+     * 持仓变更后同步：存在事务时在提交后执行，否则立即执行
+     *
+     * @param ids 新增、修改或删除的持仓ID
+     * @param coins 新增但尚未取得ID的持仓币种
+     */
+    public void refreshAfterCommit(Collection<Long> ids, Collection<String> coins)
+    {
+        Set<Long> idSet = ids != null ? new LinkedHashSet<>(ids) : Collections.<Long>emptySet();
+        Set<String> coinSet = coins != null ? new LinkedHashSet<>(coins) : Collections.<String>emptySet();
+        if (idSet.isEmpty() && coinSet.isEmpty())
+        {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    refresh(idSet, coinSet);
+                    notifyChanged();
+                }
+            });
+        }
+        else
+        {
+            refresh(idSet, coinSet);
+            notifyChanged();
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        // 本节点发出的通知已增量同步
+        if (!leaseService.getNodeId().equals(new String(message.getBody(), StandardCharsets.UTF_8)))
+        {
+            synchronized (this)
+            {
+                reset();
+            }
+        }
+    }
+
+    private void notifyChanged()
+    {
+        try
+        {
+            redisService.publish(CHANGED_CHANNEL, leaseService.getNodeId());
+        }
+        catch (Exception e)
+        {
+            // 其他节点最多滞后一个全量加载间隔
+            log.warn("发布持仓变更通知失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean isStale()
+    {
+        return reloadInterval > 0 && System.currentTimeMillis() - loadedAt >= reloadInterval;
+    }
+
+    /**
+     * 重新加载指定持仓：查到的覆盖，按ID查不到的视为已删除
+     */
+    private synchronized void refresh(Set<Long> ids, Set<String> coins)
+    {
+        if (!loaded)
+        {
+            // 尚未加载过，首次读取时会全量加载
+            return;
+        }
+        try
+        {
+            CoinIdentityIndex index = pricedBy;
+            Set<Long> missing = new HashSet<>(ids);
+            for (BizAssetHoldings holding : holdingsMapper.selectBizAssetHoldingsByIdsOrCoins(ids, coins))
+            {
+                missing.remove(holding.getId());
+                remove(holding.getId());
+                add(holding, index);
+            }
+            for (Long id : missing)
+            {
+                remove(id);
+            }
+            view = null;
+        }
+        catch (Exception e)
+        {
+            // 增量同步失败时放弃内存状态，下次读取全量加载
+            log.error("组合估值增量同步失败，将重新加载全部持仓", e);
+            reset();
+        }
+    }
+
+    private synchronized PortfolioValuation rebuild(CoinIdentityIndex index)
+    {
+        if (!loaded || isStale())
+        {
+            load(index);
+        }
+        else if (pricedBy != index)
+        {
+            reprice(index);
+        }
+        if (view == null)
+        {
+            view = buildView(index);
+        }
+        return view;
+    }
+
+    /**
+     * 全量加载持仓
+     */
+    private void load(CoinIdentityIndex index)
+    {
+        reset();
+        for (BizAssetHoldings holding : holdingsMapper.selectBizAssetHoldingsList(new BizAssetHoldings()))
+        {
+            add(holding, index);
+        }
+        pricedBy = index;
+        loaded = true;
+        loadedAt = System.currentTimeMillis();
+        log.info("组合估值已加载，共 {} 个持仓", positions.size());
+    }
+
+    private void reset()
+    {
+        positions.clear();
+        bySymbol.clear();
+        totalValue = 0L;
+        totalCost = 0L;
+        loaded = false;
+        view = null;
+    }
+
+    /**
+     * 行情快照替换后按币种比对价格，只重算价格有变化的持仓；别名变更时重新归类全部持仓
+     */
+    private void reprice(CoinIdentityIndex index)
+    {
+        CoinIdentityIndex previous = pricedBy;
+        pricedBy = index;
+        if (previous == null || previous.getRegistryVersion() != index.getRegistryVersion())
+        {
+            List<Position> all = new ArrayList<>(positions.values());
+            for (Position position : all)
+            {
+                remove(position.id);
+                add(position.holding, index);
+            }
+            view = null;
+            return;
+        }
+        int changed = 0;
+        for (Map.Entry<String, Set<Long>> entry : bySymbol.entrySet())
+        {
+            BizCryptoMetrics metrics = index.findMetrics(entry.getKey());
+            for (Long id : entry.getValue())
+            {
+                Position position = positions.get(id);
+                long before = position.value;
+                try
+                {
+                    if (position.applyPrice(metrics))
+                    {
+                        totalValue += position.value - before;
+                        changed++;
+                    }
+                }
+                catch (ArithmeticException e)
+                {
+                    log.error("持仓 {}（{}）估值超出范围，保留原估值", id, position.holding.getCoin());
+                }
+            }
+        }
+        if (changed > 0)
+        {
+            view = null;
+            log.debug("行情更新，重算 {} 个持仓", changed);
+        }
+    }
+
+    private void add(BizAssetHoldings holding, CoinIdentityIndex index)
+    {
+        if (holding == null || holding.getId() == null)
+        {
+            return;
+        }
+        Position position;
+        try
+        {
+            position = new Position(holding, index.canonical(holding.getCoin()));
+            position.applyPrice(index.findMetrics(holding.getCoin()));
+        }
+        catch (ArithmeticException e)
+        {
+            log.error("持仓 {}（{}）金额超出估值范围，已跳过", holding.getId(), holding.getCoin());
+            return;
+        }
+        positions.put(position.id, position);
+        bySymbol.computeIfAbsent(position.symbol, k -> new LinkedHashSet<>()).add(position.id);
+        totalValue += position.value;
+        totalCost += position.cost;
+    }
+
+    private void remove(Long id)
+    {
+        Position position = positions.remove(id);
+        if (position == null)
+        {
+            return;
+        }
+        Set<Long> ids = bySymbol.get(position.symbol);
+        if (ids != null)
+        {
+            ids.remove(id);
+            if (ids.isEmpty())
+            {
+                bySymbol.remove(position.symbol);
+            }
+        }
+        totalValue -= position.value;
+        totalCost -= position.cost;
+    }
+
+    /**
+     * 生成不可变的估值结果
+     */
+    private PortfolioValuation buildView(CoinIdentityIndex index)
+    {
+        List<Position> sorted = new ArrayList<>(positions.values());
+        sorted.sort((a, b) -> Long.compare(b.value, a.value));
+        List<PortfolioPosition> list = new ArrayList<>(sorted.size());
+        for (Position position : sorted)
+        {
+            PortfolioPosition item = new PortfolioPosition();
+            item.setId(position.id);
+            item.setCoin(position.holding.getCoin());
+            item.setSymbol(position.symbol);
+            item.setAmount(FixedPoint.toDecimal(position.amount));
+            item.setCostPrice(FixedPoint.toDecimal(position.costPrice));
+            item.setCurrentPrice(position.priced ? FixedPoint.toDecimal(position.price) : null);
+            item.setChange24h(position.change24h);
+            item.setValue(FixedPoint.toDecimal(position.value));
+            item.setCost(FixedPoint.toDecimal(position.cost));
+            item.setUnrealizedPnl(FixedPoint.toDecimal(position.value - position.cost));
+            item.setPnlPercent(FixedPoint.bpToPercent(FixedPoint.ratioBp(position.value - position.cost, position.cost)));
+            item.setAllocationPercent(FixedPoint.bpToPercent(FixedPoint.ratioBp(position.value, totalValue)));
+            list.add(item);
+        }
+        PortfolioValuation valuation = new PortfolioValuation();
+        valuation.setTotalValue(FixedPoint.toDecimal(totalValue));
+        valuation.setTotalCost(FixedPoint.toDecimal(totalCost));
+        valuation.setUnrealizedPnl(FixedPoint.toDecimal(totalValue - totalCost));
+        valuation.setPnlPercent(FixedPoint.bpToPercent(FixedPoint.ratioBp(totalValue - totalCost, totalCost)));
+        valuation.setPriceTime(index.getSnapshot().getLoadTime());
+        valuation.setPositions(Collections.unmodifiableList(list));
+        return valuation;
+    }
+
+    /**
+     * 单个持仓（定点数）
+     */
+    private static class Position
+    {
+        private final Long id;
+
+        private final BizAssetHoldings holding;
+
+        private final String symbol;
+
+        private final long amount;
+
+        private final long costPrice;
+
+        /** 持仓成本 = 数量 * 成本价 */
+        private final long cost;
+
+        /** 无行情时的估值（库中记录的估值） */
+        private final long storedValue;
+
+        private boolean priced;
+
+        private long price;
+
+        private BigDecimal change24h;
+
+        private long value;
+
+        Position(BizAssetHoldings holding, String symbol)
+        {
+            this.id = holding.getId();
+            this.holding = holding;
+            this.symbol = symbol != null ? symbol : "";
+            this.amount = FixedPoint.of(holding.getAmount());
+            this.costPrice = FixedPoint.of(holding.getCostPrice());
+            this.cost = FixedPoint.mul(amount, costPrice);
+            this.storedValue = FixedPoint.of(holding.getUsdtValue());
+            this.value = storedValue;
+        }
+
+        /**
+         * 按最新行情更新价格、涨跌幅与估值；调用方负责按前后估值的差额调整组合总值
+         *
+         * @return 是否有变化
+         */
+        boolean applyPrice(BizCryptoMetrics metrics)
+        {
+            BigDecimal latest = metrics != null ? metrics.getPriceUsd() : null;
+            BigDecimal change = metrics != null ? metrics.getChange24h() : null;
+            boolean changed = !Objects.equals(change24h, change);
+            change24h = change;
+            if (latest == null)
+            {
+                changed |= priced;
+                priced = false;
+                price = 0L;
+                value = storedValue;
+                return changed;
+            }
+            long next = FixedPoint.of(latest);
+            if (priced && next == price)
+            {
+                return changed;
+            }
+            // 先算估值，溢出时价格与估值都保持不变
+            value = FixedPoint.mul(amount, next);
+            priced = true;
+            price = next;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.system.crypto;
+
+/**
+ * 报告提示词上下文（紧凑表格文本）
+ */
+public final class PromptContext
+{
+    /** 持仓表 */
+    private final String holdings;
+
+    /** 行情表 */
+    private final String metrics;
+
+    /** 市场情报列表 */
+    private final String news;
+
+    /** 币种情绪指数表 */
+    private final String sentiment;
+
+    /** 估算的 token 数 */
+    private final int tokens;
+
+    /** 因预算不足省略的行情行数 */
+    private final int droppedMetrics;
+
+    /** 因预算不足省略的情报条数 */
+    private final int droppedNews;
+
+    public PromptContext(String holdings, String metrics, String news, String sentiment, int tokens, int droppedMetrics,
+                         int droppedNews)
+    {
+        this.holdings = holdings;
+        this.metrics = metrics;
+        this.news = news;
+        this.sentiment = sentiment;
+        this.tokens = tokens;
+        this.droppedMetrics = droppedMetrics;
+        this.droppedNews = droppedNews;
+    }
+
+    public String getHoldings()
+    {
+        return holdings;
+    }
+
+    public String getMetrics()
+    {
+        return metrics;
+    }
+
+    public String getNews()
+    {
+        return news;
+    }
+
+    public String getSentiment()
+    {
+        return sentiment;
+    }
+
+    public int getTokens()
+    {
+        return tokens;
+    }
+
+    public int getDroppedMetrics()
+    {
+        return droppedMetrics;
+    }
+
+    public int getDroppedNews()
+    {
+        return droppedNews;
+    }
+}
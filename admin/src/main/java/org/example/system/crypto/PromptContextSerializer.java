@@ -0,0 +1,292 @@
+package org.example.system.crypto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.example.system.domain.BizAssetHoldings;
+import org.example.system.domain.BizCoinSentiment;
+import org.example.system.domain.BizCryptoMessage;
+import org.example.system.domain.BizCryptoMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 报告提示词上下文序列化
+ *
+ * 持仓、行情与情报只输出决策相关的字段，按「表头 + 竖线分隔行」的紧凑表格输出，不带实体的审计字段与空值；
+ * 情绪指数表直接取内存中预先汇总的各币种 24h / 7d 情绪分，与持仓表一样始终完整保留。
+ * 超出 token 预算时按优先级从低到高省略：中性情报（旧的先省略）→ 未持有币种的行情（市值小的先省略）
+ * → 其余情报（影响分数绝对值小的先省略）→ 持有币种的行情；持仓表始终完整保留。
+ */
+@Component
+public class PromptContextSerializer
+{
+    private static final Logger log = LoggerFactory.getLogger(PromptContextSerializer.class);
+
+    private static final String HOLDINGS_HEADER = "币种|数量|成本价|现价|市值USDT|24h涨跌%";
+
+    private static final String METRICS_HEADER = "符号|名称|价格USD|24h涨跌%|市值亿USD|历史最高USD";
+
+    private static final String SENTIMENT_HEADER = "币种|1h条数|24h条数|24h利好/利空|24h情绪分|7d条数|7d情绪分";
+
+    @Autowired
+    private CoinIdentityHolder coinIdentityHolder;
+
+    @Autowired
+    private SentimentIndex sentimentIndex;
+
+    /** 上下文（持仓 + 行情 + 情报）的 token 预算，0 表示不限制 */
+    @Value("${crypto.report.context-token-budget:3000}")
+    private int tokenBudget;
+
+    /**
+     * 序列化报告上下文
+     *
+     * @param holdings 当前持仓
+     * @param metrics 最新行情（每个币种一条）
+     * @param news 市场情报（按时间倒序），单条新闻报告传空列表
+     */
+    public PromptContext serialize(List<BizAssetHoldings> holdings, List<BizCryptoMetrics> metrics, List<BizCryptoMessage> news)
+    {
+        CoinIdentityIndex index = coinIdentityHolder.get();
+
+        // 持仓表
+        StringBuilder holdingsText = new StringBuilder(HOLDINGS_HEADER);
+        Set<String> held = new HashSet<>();
+        for (BizAssetHoldings h : holdings)
+        {
+            holdingsText.append('\n').append(h.getCoin())
+                    .append('|').append(format(h.getAmount(), 8))
+                    .append('|').append(format(h.getCostPrice(), 8))
+                    .append('|').append(format(h.getCurrentPrice(), 8))
+                    .append('|').append(format(h.getUsdtValue(), 2))
+                    .append('|').append(format(h.getChange24h(), 2));
+            String symbol = index.canonical(h.getCoin());
+            if (symbol != null)
+            {
+                held.add(symbol);
+            }
+        }
+        if (holdings.isEmpty())
+        {
+            holdingsText.append("\n（无持仓）");
+        }
+
+        // 行情行：持有币种在前，其余按市值从大到小
+        List<Item> metricItems = new ArrayList<>();
+        for (BizCryptoMetrics m : metrics)
+        {
+            String symbol = m.getSymbol() != null ? index.canonical(m.getSymbol()) : index.canonical(m.getName());
+            boolean isHeld = symbol != null && held.contains(symbol);
+            String line = (m.getSymbol() != null ? m.getSymbol() : "-")
+                    + '|' + (m.getName() != null ? m.getName() : "-")
+                    + '|' + format(m.getPriceUsd(), 8)
+                    + '|' + format(m.getChange24h(), 2)
+                    + '|' + format(m.getMarketCap(), 2)
+                    + '|' + format(m.getAthPrice(), 8);
+            metricItems.add(new Item(line, false, isHeld ? 3 : 1, m.getMarketCap() != null ? m.getMarketCap().doubleValue() : 0D));
+        }
+        Collections.sort(metricItems, Comparator.comparingInt((Item i) -> -i.tier).thenComparingDouble(i -> -i.weight));
+
+        // 情报行：保持时间倒序
+        List<Item> newsItems = new ArrayList<>();
+        for (int i = 0; i < news.size(); i++)
+        {
+            BizCryptoMessage msg = news.get(i);
+            int impact = impact(msg.getImpactScore());
+            String line = "- [" + msg.getCoin() + "] " + msg.getContent() + " (影响分数: " + msg.getImpactScore() + ")";
+            // 同一档内越新的权重越大
+            newsItems.add(new Item(line, true, impact == 0 ? 0 : 2, Math.abs(impact) * 10000D - i));
+        }
+
+        String sentimentText = renderSentiment(held);
+
+        // 超出预算时按档位、权重从低到高省略
+        int tokens = estimateTokens(holdingsText) + estimateTokens(sentimentText) + estimateTokens(METRICS_HEADER);
+        List<Item> all = new ArrayList<>(metricItems);
+        all.addAll(newsItems);
+        for (Item item : all)
+        {
+            tokens += item.tokens;
+        }
+        int droppedMetrics = 0;
+        int droppedNews = 0;
+        if (tokenBudget > 0 && tokens > tokenBudget)
+        {
+            List<Item> dropOrder = new ArrayList<>(all);
+            Collections.sort(dropOrder, Comparator.comparingInt((Item i) -> i.tier).thenComparingDouble(i -> i.weight));
+            for (Item item : dropOrder)
+            {
+                if (tokens <= tokenBudget)
+                {
+                    break;
+                }
+                item.dropped = true;
+                tokens -= item.tokens;
+                if (item.news)
+                {
+                    droppedNews++;
+                }
+                else
+                {
+                    droppedMetrics++;
+                }
+            }
+        }
+
+        PromptContext context = new PromptContext(holdingsText.toString(),
+                render(METRICS_HEADER, metricItems, "（暂无行情）"), render(null, newsItems, ""), sentimentText,
+                tokens, droppedMetrics, droppedNews);
+        log.info("报告上下文约 {} tokens（预算 {}）：持仓 {} 行，行情 {}/{} 行，情报 {}/{} 条",
+                tokens, tokenBudget, holdings.size(), metricItems.size() - droppedMetrics, metricItems.size(),
+                newsItems.size() - droppedNews, newsItems.size());
+        return context;
+    }
+
+    /**
+     * 情绪指数表：最近 7 天有消息的币种，持有币种在前，其余按 24h 条数从多到少
+     */
+    private String renderSentiment(Set<String> held)
+    {
+        List<BizCoinSentiment> rows;
+        try
+        {
+            rows = sentimentIndex.snapshot(null);
+        }
+        catch (Exception e)
+        {
+            log.error("读取币种情绪指数失败，报告上下文不含情绪指数", e);
+            rows = Collections.emptyList();
+        }
+        // 快照按币种、窗口（1h / 24h / 7d）排列，每个币种三行
+        List<BizCoinSentiment[]> coins = new ArrayList<>();
+        for (int i = 0; i + 2 < rows.size(); i += 3)
+        {
+            coins.add(new BizCoinSentiment[] { rows.get(i), rows.get(i + 1), rows.get(i + 2) });
+        }
+        Collections.sort(coins, Comparator.comparingInt((BizCoinSentiment[] c) -> held.contains(c[0].getCoin()) ? 0 : 1)
+                .thenComparingInt(c -> -c[1].getMessageCount()));
+        StringBuilder sb = new StringBuilder(SENTIMENT_HEADER);
+        for (BizCoinSentiment[] c : coins)
+        {
+            sb.append('\n').append(c[0].getCoin())
+                    .append('|').append(c[0].getMessageCount())
+                    .append('|').append(c[1].getMessageCount())
+                    .append('|').append(c[1].getPositiveCount()).append('/').append(c[1].getNegativeCount())
+                    .append('|').append(format(c[1].getScore(), 2))
+                    .append('|').append(c[2].getMessageCount())
+                    .append('|').append(format(c[2].getScore(), 2));
+        }
+        if (coins.isEmpty())
+        {
+            sb.append("\n（暂无情绪指数）");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 估算文本的 token 数：汉字等宽字符按 1 个计，其余字符按每 4 个 1 个计
+     */
+    public static int estimateTokens(CharSequence text)
+    {
+        int wide = 0;
+        int narrow = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) >= 0x2E80)
+            {
+                wide++;
+            }
+            else
+            {
+                narrow++;
+            }
+        }
+        return wide + (narrow + 3) / 4;
+    }
+
+    private static String render(String header, List<Item> items, String empty)
+    {
+        StringBuilder sb = new StringBuilder();
+        if (header != null)
+        {
+            sb.append(header);
+        }
+        for (Item item : items)
+        {
+            if (!item.dropped)
+            {
+                if (sb.length() > 0)
+                {
+                    sb.append('\n');
+                }
+                sb.append(item.line);
+            }
+        }
+        if (sb.length() == (header != null ? header.length() : 0) && !empty.isEmpty())
+        {
+            sb.append(sb.length() > 0 ? "\n" : "").append(empty);
+        }
+        return sb.toString();
+    }
+
+    private static String format(BigDecimal value, int maxScale)
+    {
+        if (value == null)
+        {
+            return "-";
+        }
+        if (value.scale() > maxScale)
+        {
+            value = value.setScale(maxScale, RoundingMode.HALF_UP);
+        }
+        return value.stripTrailingZeros().toPlainString();
+    }
+
+    private static int impact(String score)
+    {
+        try
+        {
+            return score == null ? 0 : Integer.parseInt(score.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * 一行上下文及其省略优先级（档位越低、权重越小越先省略）
+     */
+    private static class Item
+    {
+        private final String line;
+
+        private final boolean news;
+
+        private final int tier;
+
+        private final double weight;
+
+        private final int tokens;
+
+        private boolean dropped;
+
+        Item(String line, boolean news, int tier, double weight)
+        {
+            this.line = line;
+            this.news = news;
+            this.tier = tier;
+            this.weight = weight;
+            this.tokens = estimateTokens(line) + 1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.system.crypto;
+
+/**
+ * 报告生成进度回调
+ */
+public interface ReportJobProgress
+{
+    /** 不关心进度的调用方（定时任务直接生成等） */
+    ReportJobProgress NONE = new ReportJobProgress()
+    {
+        @Override
+        public void update(int progress, String stage, Long reportId)
+        {
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return false;
+        }
+    };
+
+    /**
+     * 报告进度
+     *
+     * @param progress 进度（0-100）
+     * @param stage 当前阶段
+     * @param reportId 已创建的报告ID，尚未创建时为 null
+     */
+    void update(int progress, String stage, Long reportId);
+
+    /**
+     * 任务是否已被取消，生成过程在各阶段之间检查
+     */
+    boolean isCancelled();
+}
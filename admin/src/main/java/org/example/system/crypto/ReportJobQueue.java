@@ -0,0 +1,307 @@
+package org.example.system.crypto;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.example.common.core.exception.ServiceException;
+import org.example.common.redis.service.RedisLeaseService;
+import org.example.system.domain.BizReportJob;
+import org.example.system.mapper.BizReportJobMapper;
+import org.example.system.service.IBizInvestmentReportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 报告生成任务队列
+ *
+ * 提交时只写入 biz_report_job 并立即返回任务ID，由固定大小的工作线程池按提交顺序领取执行；
+ * 任务的状态、进度、报告ID与错误信息都落库，可随时查询或取消。
+ * 队列以表为准：定时轮询补领排队中的任务。领取时记录执行节点，执行期间定时心跳；
+ * 任一节点发现心跳超时的任务（执行节点已停止或失联）即重新排队（超过最大执行次数的标记失败），
+ * 其他节点仍在执行的任务不会被重复领取。
+ */
+@Component
+public class ReportJobQueue
+{
+    private static final Logger log = LoggerFactory.getLogger(ReportJobQueue.class);
+
+    @Autowired
+    private BizReportJobMapper jobMapper;
+
+    @Autowired
+    private IBizInvestmentReportService reportService;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 工作线程数（同时生成的报告数） */
+    @Value("${crypto.report.job-workers:2}")
+    private int workers;
+
+    /** 单个任务最大执行次数（含重启后的恢复执行） */
+    @Value("${crypto.report.job-max-attempts:2}")
+    private int maxAttempts;
+
+    /** 心跳超时（毫秒）：执行中的任务超过该时长没有心跳即视为执行节点已中断 */
+    @Value("${crypto.report.job-stale-timeout:60000}")
+    private long staleTimeout;
+
+    private ExecutorService executor;
+
+    /** 本实例正在执行的任务 */
+    private final Map<Long, FutureTask<Void>> running = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init()
+    {
+        AtomicInteger seq = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, "report-job-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        recoverStaleJobs();
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        // 执行中的任务保持「执行中」状态，心跳超时后由存活的节点重新排队
+        executor.shutdownNow();
+    }
+
+    /**
+     * 本节点执行中任务的心跳；间隔为心跳超时的 1/3
+     */
+    @Scheduled(fixedDelayString = "#{${crypto.report.job-stale-timeout:60000} / 3}")
+    public void heartbeat()
+    {
+        if (running.isEmpty())
+        {
+            return;
+        }
+        try
+        {
+            jobMapper.heartbeat(leaseService.getNodeId(), running.keySet());
+        }
+        catch (Exception e)
+        {
+            log.warn("报告生成任务心跳失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 恢复心跳超时的任务（启动时执行一次，之后随心跳周期检查）
+     */
+    @Scheduled(initialDelayString = "${crypto.report.job-stale-timeout:60000}", fixedDelayString = "${crypto.report.job-stale-timeout:60000}")
+    public void recoverStaleJobs()
+    {
+        try
+        {
+            long staleSeconds = Math.max(1L, staleTimeout / 1000);
+            int[] counts = transactionTemplate.execute(status -> {
+                Date cutoff = jobMapper.selectStaleCutoff(staleSeconds);
+                // 先处理草稿：任务重新排队或失败后 report_id 会被新草稿覆盖，旧草稿将永远停在「生成中」
+                int drafts = jobMapper.failStaleDrafts(cutoff);
+                return new int[] { jobMapper.failStaleJobs(maxAttempts, cutoff), jobMapper.requeueStaleJobs(cutoff), drafts };
+            });
+            if (counts != null && counts[0] + counts[1] > 0)
+            {
+                log.info("报告生成任务恢复：{} 个重新排队，{} 个已达最大执行次数标记失败，{} 个报告草稿标记为生成失败",
+                        counts[1], counts[0], counts[2]);
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("恢复报告生成任务失败，请确认 biz_report_job 已创建", e);
+        }
+    }
+
+    /**
+     * 提交单条新闻报告任务
+     */
+    public BizReportJob submitMessageReport(Long messageId, boolean refresh, String createBy)
+    {
+        if (messageId == null)
+        {
+            throw new ServiceException("消息ID不能为空");
+        }
+        return submit(BizReportJob.TYPE_MESSAGE, messageId, refresh, createBy);
+    }
+
+    /**
+     * 提交汇总报告任务
+     */
+    public BizReportJob submitSummaryReport(boolean refresh, String createBy)
+    {
+        return submit(BizReportJob.TYPE_SUMMARY, null, refresh, createBy);
+    }
+
+    private BizReportJob submit(String type, Long messageId, boolean refresh, String createBy)
+    {
+        BizReportJob job = new BizReportJob();
+        job.setJobType(type);
+        job.setMessageId(messageId);
+        job.setRefresh(refresh ? "1" : "0");
+        job.setStage("排队中");
+        job.setCreateBy(createBy);
+        jobMapper.insertJob(job);
+        log.info("已提交报告生成任务 {}（{}）", job.getId(), type);
+        dispatch();
+        return jobMapper.selectJobById(job.getId());
+    }
+
+    public BizReportJob getJob(Long id)
+    {
+        return jobMapper.selectJobById(id);
+    }
+
+    public List<BizReportJob> selectJobList(BizReportJob query)
+    {
+        return jobMapper.selectJobList(query);
+    }
+
+    /**
+     * 取消任务：排队中的不再执行；本节点执行中的立即断开 AI 请求，已生成的部分内容保留在报告草稿中。
+     * 在其他节点执行的任务只改了任务状态，要等执行节点下一次写进度（流式生成时为下一次写草稿）才发现已取消并中断
+     */
+    public BizReportJob cancel(Long id)
+    {
+        BizReportJob job = jobMapper.selectJobById(id);
+        if (job == null)
+        {
+            throw new ServiceException("任务不存在");
+        }
+        if (jobMapper.cancelJob(id) == 0)
+        {
+            throw new ServiceException("任务已结束，无法取消");
+        }
+        FutureTask<Void> task = running.get(id);
+        if (task != null)
+        {
+            // 中断等待 AI 结果的工作线程，由报告生成流程取消 AI 请求（断开连接）
+            task.cancel(true);
+        }
+        log.info("报告生成任务 {} 已取消", id);
+        return jobMapper.selectJobById(id);
+    }
+
+    /**
+     * 按空闲线程数领取排队中的任务（提交时立即调用，另有定时轮询兜底）
+     */
+    @Scheduled(fixedDelayString = "${crypto.report.job-poll-interval:5000}")
+    public synchronized void dispatch()
+    {
+        int free = Math.max(1, workers) - running.size();
+        if (free <= 0 || executor.isShutdown())
+        {
+            return;
+        }
+        for (BizReportJob job : jobMapper.selectPendingJobs(free))
+        {
+            if (jobMapper.claimJob(job.getId(), leaseService.getNodeId()) == 0)
+            {
+                continue;
+            }
+            FutureTask<Void> task = new FutureTask<Void>(() -> {
+                execute(job);
+                return null;
+            })
+            {
+                @Override
+                protected void done()
+                {
+                    running.remove(job.getId());
+                    // 空出线程后立即领取下一个任务
+                    dispatch();
+                }
+            };
+            running.put(job.getId(), task);
+            executor.execute(task);
+        }
+    }
+
+    private void execute(BizReportJob job)
+    {
+        Long jobId = job.getId();
+        JobProgress progress = new JobProgress(jobId);
+        try
+        {
+            log.info("开始执行报告生成任务 {}（{}）", jobId, job.getJobType());
+            boolean refresh = "1".equals(job.getRefresh());
+            Long reportId = BizReportJob.TYPE_SUMMARY.equals(job.getJobType())
+                    ? reportService.generateSummaryReport(refresh, progress)
+                    : reportService.generateReport(job.getMessageId(), refresh, progress);
+            if (progress.isCancelled())
+            {
+                log.info("报告生成任务 {} 已取消", jobId);
+            }
+            else
+            {
+                jobMapper.finishJob(jobId, BizReportJob.STATUS_SUCCESS, 100, "已完成", reportId, null);
+                log.info("报告生成任务 {} 完成，报告ID {}", jobId, reportId);
+            }
+        }
+        catch (Throwable e)
+        {
+            log.error("报告生成任务 {} 执行失败", jobId, e);
+            String msg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            jobMapper.finishJob(jobId, BizReportJob.STATUS_FAILED, progress.last, "执行失败",
+                    progress.reportId, msg.length() > 1000 ? msg.substring(0, 1000) : msg);
+        }
+    }
+
+    /**
+     * 任务进度：写回任务表；更新失败（任务已不在执行中）即视为已取消
+     */
+    private class JobProgress implements ReportJobProgress
+    {
+        private final Long jobId;
+
+        private volatile boolean cancelled;
+
+        private volatile int last;
+
+        private volatile Long reportId;
+
+        JobProgress(Long jobId)
+        {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void update(int progress, String stage, Long reportId)
+        {
+            this.last = progress;
+            if (reportId != null)
+            {
+                this.reportId = reportId;
+            }
+            if (jobMapper.updateProgress(jobId, progress, stage, reportId) == 0)
+            {
+                cancelled = true;
+            }
+        }
+
+        @Override
+        public boolean isCancelled()
+        {
+            return cancelled || Thread.currentThread().isInterrupted();
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package org.example.system.crypto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.example.common.core.utils.DateUtils;
+import org.example.common.redis.service.RedisLease;
+import org.example.common.redis.service.RedisLeaseService;
+import org.example.common.redis.service.RedisService;
+import org.example.system.domain.BizCoinSentiment;
+import org.example.system.domain.BizCryptoMessage;
+import org.example.system.mapper.BizCoinSentimentMapper;
+import org.example.system.mapper.BizCryptoMessageMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 币种情绪指数
+ *
+ * 每个币种在内存中保留最近 7 天、每 5 分钟一格的环形桶，1h / 24h / 7d 三个窗口的条数与影响分数之和随入库增量累加，
+ * 时间推进时只减去滑出窗口的桶；情绪分为窗口内消息按窗口长度 1/4 为半衰期做指数衰减后的加权平均影响分数。
+ * 读取只做 O(币种数) 的内存计算；首次读取时从近 7 天的消息重建，消息被修改或删除后下次读取重建。
+ * 多节点部署时，任一节点入库、修改或删除消息后经 Redis 发布/订阅通知其他节点下次读取时重建；
+ * 通知丢失时，内存状态最多保留一个写入周期后也会从消息表重建。
+ * 定时写入 biz_coin_sentiment 供其他系统查询：写入在集群租约下由单个节点执行，写入前先从消息表重建，
+ * 不会用某个节点的旧状态覆盖表中的数据。
+ */
+@Component
+public class SentimentIndex implements MessageListener
+{
+    private static final Logger log = LoggerFactory.getLogger(SentimentIndex.class);
+
+    /** 每格 5 分钟 */
+    private static final long BUCKET_MILLIS = 5 * 60 * 1000L;
+
+    /** 窗口（小时） */
+    private static final int[] WINDOW_HOURS = { 1, 24, 168 };
+
+    /** 窗口对应的格数 */
+    private static final int[] WINDOW_BUCKETS = { 12, 288, 2016 };
+
+    /** 环形桶总格数（最大窗口） */
+    private static final int RING = 2016;
+
+    /** 消息变化通知频道，消息体为发出通知的节点标识 */
+    public static final String CHANGED_CHANNEL = "crypto:sentiment:changed";
+
+    /** 写入 biz_coin_sentiment 的集群租约 */
+    private static final String PERSIST_LEASE = "sentiment:persist";
+
+    @Autowired
+    private BizCryptoMessageMapper messageMapper;
+
+    @Autowired
+    private BizCoinSentimentMapper sentimentMapper;
+
+    @Autowired
+    private CoinIdentityHolder coinIdentityHolder;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private RedisLeaseService leaseService;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /** 写入间隔（毫秒），也是内存状态的最长保留时间 */
+    @Value("${crypto.sentiment.persist-interval:300000}")
+    private long persistInterval;
+
+    /** 标准符号 -> 情绪累加器 */
+    private final Map<String, CoinSentiment> coins = new LinkedHashMap<>();
+
+    /** 为 false 时下次访问从消息表重建 */
+    private boolean loaded;
+
+    /** 最近一次重建的时间 */
+    private long loadedAt;
+
+    @PostConstruct
+    public void init()
+    {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANGED_CHANNEL));
+    }
+
+    /**
+     * 记录新入库的消息（入库提交后调用），并通知其他节点
+     */
+    public void record(Collection<BizCryptoMessage> messages)
+    {
+        if (messages == null || messages.isEmpty())
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            // 尚未加载时无需记录，重建会读到这些消息
+            if (loaded)
+            {
+                long now = System.currentTimeMillis();
+                CoinIdentityIndex index = coinIdentityHolder.get();
+                for (BizCryptoMessage message : messages)
+                {
+                    add(index, message, now);
+                }
+            }
+        }
+        notifyChanged();
+    }
+
+    /**
+     * 消息被修改或删除后调用，本节点与其他节点下次访问时重建
+     */
+    public void invalidate()
+    {
+        synchronized (this)
+        {
+            loaded = false;
+        }
+        notifyChanged();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern)
+    {
+        // 本节点发出的通知已在本地处理
+        if (!leaseService.getNodeId().equals(new String(message.getBody(), StandardCharsets.UTF_8)))
+        {
+            synchronized (this)
+            {
+                loaded = false;
+            }
+        }
+    }
+
+    private void notifyChanged()
+    {
+        try
+        {
+            redisService.publish(CHANGED_CHANNEL, leaseService.getNodeId());
+        }
+        catch (Exception e)
+        {
+            // 其他节点最多在一个写入周期后自行重建
+            log.warn("发布情绪指数变化通知失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前情绪指数
+     *
+     * @param coin 币种（任意写法），为空时返回全部币种
+     * @return 每个币种每个窗口一行，按币种、窗口排列
+     */
+    public synchronized List<BizCoinSentiment> snapshot(String coin)
+    {
+        ensureLoaded();
+        long now = System.currentTimeMillis();
+        Date time = new Date(now);
+        List<BizCoinSentiment> rows = new ArrayList<>();
+        if (coin != null && !coin.trim().isEmpty())
+        {
+            String symbol = coinIdentityHolder.get().canonical(coin);
+            CoinSentiment sentiment = symbol != null ? coins.get(symbol) : null;
+            if (sentiment != null)
+            {
+                sentiment.advance(now);
+                sentiment.appendTo(rows, time);
+            }
+            return rows;
+        }
+        Iterator<CoinSentiment> it = coins.values().iterator();
+        while (it.hasNext())
+        {
+            CoinSentiment sentiment = it.next();
+            sentiment.advance(now);
+            if (sentiment.isEmpty())
+            {
+                it.remove();
+                continue;
+            }
+            sentiment.appendTo(rows, time);
+        }
+        return rows;
+    }
+
+    /**
+     * 定时把当前情绪指数写入 biz_coin_sentiment，并删除已无消息的币种
+     */
+    @Scheduled(fixedDelayString = "${crypto.sentiment.persist-interval:300000}")
+    public void persist()
+    {
+        RedisLease lease;
+        try
+        {
+            lease = leaseService.tryAcquire(PERSIST_LEASE, 60000L);
+        }
+        catch (Exception e)
+        {
+            log.warn("获取情绪指数写入租约失败: {}", e.getMessage());
+            return;
+        }
+        if (lease == null)
+        {
+            // 其他节点正在或刚刚写入
+            return;
+        }
+        try
+        {
+            // 以消息表为准重建，避免用本节点可能过期的状态覆盖表中的数据
+            synchronized (this)
+            {
+                loaded = false;
+            }
+            // 库表时间精确到秒，截断后再比较，避免本次写入的行被当作过期删除
+            Date time = new Date(System.currentTimeMillis() / 1000 * 1000);
+            List<BizCoinSentiment> rows = snapshot(null);
+            for (BizCoinSentiment row : rows)
+            {
+                row.setUpdateTime(time);
+            }
+            if (!rows.isEmpty())
+            {
+                sentimentMapper.batchUpsert(rows);
+            }
+            sentimentMapper.deleteBefore(time);
+        }
+        catch (Exception e)
+        {
+            log.error("写入币种情绪指数失败", e);
+        }
+        finally
+        {
+            // 至少保留半个周期，各节点错开的定时任务不会在同一周期内重复写入
+            lease.release(persistInterval / 2);
+        }
+    }
+
+    private void ensureLoaded()
+    {
+        long now = System.currentTimeMillis();
+        if (loaded && now - loadedAt < persistInterval)
+        {
+            return;
+        }
+        coins.clear();
+        Date since = new Date(now - RING * BUCKET_MILLIS);
+        CoinIdentityIndex index = coinIdentityHolder.get();
+        List<BizCryptoMessage> messages = messageMapper.selectSentimentSince(since);
+        for (BizCryptoMessage message : messages)
+        {
+            add(index, message, now);
+        }
+        loaded = true;
+        loadedAt = now;
+        log.debug("币种情绪指数已重建：{} 条消息，{} 个币种", messages.size(), coins.size());
+    }
+
+    private void add(CoinIdentityIndex index, BizCryptoMessage message, long now)
+    {
+        String symbol = index.canonical(message.getCoin());
+        if (symbol == null)
+        {
+            return;
+        }
+        Date time = message.getPublishTime() != null ? message.getPublishTime()
+                : message.getCreateTime() != null ? message.getCreateTime() : DateUtils.getNowDate();
+        int impact = impact(message.getImpactScore());
+        int polarity;
+        if ("POSITIVE".equalsIgnoreCase(message.getSentiment()))
+        {
+            polarity = 1;
+        }
+        else if ("NEGATIVE".equalsIgnoreCase(message.getSentiment()))
+        {
+            polarity = -1;
+        }
+        else
+        {
+            polarity = message.getSentiment() == null ? Integer.signum(impact) : 0;
+        }
+        coins.computeIfAbsent(symbol, k -> new CoinSentiment(k, now))
+                .add(Math.min(time.getTime(), now), impact, polarity, now);
+    }
+
+    /**
+     * 影响分数（-2 ~ 2），无法解析时为 0
+     */
+    private static int impact(String score)
+    {
+        if (score == null)
+        {
+            return 0;
+        }
+        try
+        {
+            return Math.max(-2, Math.min(2, (int) Math.round(Double.parseDouble(score.trim()))));
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * 单个币种的环形桶与各窗口累加值
+     */
+    private static class CoinSentiment
+    {
+        private final String symbol;
+
+        /** 每格对应的桶号（时间 / 5 分钟），未使用为 Long.MIN_VALUE */
+        private final long[] ids = new long[RING];
+
+        private final int[] count = new int[RING];
+
+        private final int[] positive = new int[RING];
+
+        private final int[] negative = new int[RING];
+
+        private final int[] impact = new int[RING];
+
+        private final int[] absImpact = new int[RING];
+
+        /** 各窗口的累加值 */
+        private final int[] wCount = new int[WINDOW_BUCKETS.length];
+
+        private final int[] wPositive = new int[WINDOW_BUCKETS.length];
+
+        private final int[] wNegative = new int[WINDOW_BUCKETS.length];
+
+        private final int[] wImpact = new int[WINDOW_BUCKETS.length];
+
+        private final int[] wAbsImpact = new int[WINDOW_BUCKETS.length];
+
+        /** 各窗口衰减后的影响分数加权和与权重和 */
+        private final double[] decayedImpact = new double[WINDOW_BUCKETS.length];
+
+        private final double[] decayedWeight = new double[WINDOW_BUCKETS.length];
+
+        /** 衰减值对应的时间 */
+        private long decayedAt;
+
+        /** 当前最新的桶号 */
+        private long head;
+
+        CoinSentiment(String symbol, long now)
+        {
+            this.symbol = symbol;
+            this.head = now / BUCKET_MILLIS;
+            this.decayedAt = now;
+            Arrays.fill(ids, Long.MIN_VALUE);
+        }
+
+        void add(long time, int score, int polarity, long now)
+        {
+            advance(now);
+            long bucket = time / BUCKET_MILLIS;
+            if (bucket <= head - RING)
+            {
+                return;
+            }
+            int slot = slot(bucket);
+            if (ids[slot] != bucket)
+            {
+                clear(slot);
+                ids[slot] = bucket;
+            }
+            count[slot]++;
+            impact[slot] += score;
+            absImpact[slot] += Math.abs(score);
+            if (polarity > 0)
+            {
+                positive[slot]++;
+            }
+            else if (polarity < 0)
+            {
+                negative[slot]++;
+            }
+            for (int w = 0; w < WINDOW_BUCKETS.length; w++)
+            {
+                if (bucket > head - WINDOW_BUCKETS[w])
+                {
+                    wCount[w]++;
+                    wImpact[w] += score;
+                    wAbsImpact[w] += Math.abs(score);
+                    if (polarity > 0)
+                    {
+                        wPositive[w]++;
+                    }
+                    else if (polarity < 0)
+                    {
+                        wNegative[w]++;
+                    }
+                    // 早于衰减时间点的消息（重建时乱序）直接按其年龄折算权重
+                    double weight = Math.pow(0.5, (decayedAt - time) / (double) halfLife(w));
+                    decayedImpact[w] += score * weight;
+                    decayedWeight[w] += weight;
+                }
+            }
+        }
+
+        /**
+         * 推进到当前时间：滑出各窗口的桶从窗口累加值中减去，衰减值按经过的时间折算
+         */
+        void advance(long now)
+        {
+            long target = now / BUCKET_MILLIS;
+            if (target - head >= RING)
+            {
+                Arrays.fill(ids, Long.MIN_VALUE);
+                for (int w = 0; w < WINDOW_BUCKETS.length; w++)
+                {
+                    wCount[w] = wPositive[w] = wNegative[w] = wImpact[w] = wAbsImpact[w] = 0;
+                }
+                head = target;
+            }
+            while (head < target)
+            {
+                head++;
+                for (int w = 0; w < WINDOW_BUCKETS.length; w++)
+                {
+                    long leaving = head - WINDOW_BUCKETS[w];
+                    int slot = slot(leaving);
+                    if (ids[slot] == leaving)
+                    {
+                        wCount[w] -= count[slot];
+                        wPositive[w] -= positive[slot];
+                        wNegative[w] -= negative[slot];
+                        wImpact[w] -= impact[slot];
+                        wAbsImpact[w] -= absImpact[slot];
+                        // 滑出的消息按桶中点时间折算后从衰减值中扣除
+                        double weight = Math.pow(0.5, (decayedAt - (leaving * BUCKET_MILLIS + BUCKET_MILLIS / 2)) / (double) halfLife(w));
+                        decayedImpact[w] -= impact[slot] * weight;
+                        decayedWeight[w] = Math.max(0D, decayedWeight[w] - count[slot] * weight);
+                    }
+                }
+                // 最大窗口滑出的格子即新桶的格子
+                clear(slot(head));
+                ids[slot(head)] = head;
+            }
+            if (now > decayedAt)
+            {
+                for (int w = 0; w < WINDOW_BUCKETS.length; w++)
+                {
+                    if (wCount[w] == 0)
+                    {
+                        // 窗口内已无消息，情绪分归零
+                        decayedImpact[w] = 0D;
+                        decayedWeight[w] = 0D;
+                        continue;
+                    }
+                    double factor = Math.pow(0.5, (now - decayedAt) / (double) halfLife(w));
+                    decayedImpact[w] *= factor;
+                    decayedWeight[w] *= factor;
+                }
+                decayedAt = now;
+            }
+        }
+
+        boolean isEmpty()
+        {
+            return wCount[WINDOW_BUCKETS.length - 1] == 0;
+        }
+
+        void appendTo(List<BizCoinSentiment> rows, Date time)
+        {
+            for (int w = 0; w < WINDOW_BUCKETS.length; w++)
+            {
+                BizCoinSentiment row = new BizCoinSentiment();
+                row.setCoin(symbol);
+                row.setWindowHours(WINDOW_HOURS[w]);
+                row.setMessageCount(wCount[w]);
+                row.setPositiveCount(wPositive[w]);
+                row.setNegativeCount(wNegative[w]);
+                row.setImpactSum(wImpact[w]);
+                row.setAbsImpactSum(wAbsImpact[w]);
+                double score = decayedWeight[w] > 0D ? Math.max(-2D, Math.min(2D, decayedImpact[w] / decayedWeight[w])) : 0D;
+                row.setScore(BigDecimal.valueOf(score).setScale(4, RoundingMode.HALF_UP));
+                row.setUpdateTime(time);
+                rows.add(row);
+            }
+        }
+
+        private void clear(int slot)
+        {
+            ids[slot] = Long.MIN_VALUE;
+            count[slot] = positive[slot] = negative[slot] = impact[slot] = absImpact[slot] = 0;
+        }
+
+        private static int slot(long bucket)
+        {
+            return (int) Math.floorMod(bucket, (long) RING);
+        }
+
+        private static long halfLife(int w)
+        {
+            return WINDOW_BUCKETS[w] * BUCKET_MILLIS / 4;
+        }
+    }
+}
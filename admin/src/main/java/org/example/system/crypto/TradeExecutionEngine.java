@@ -0,0 +1,216 @@
+package org.example.system.crypto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.example.common.core.exception.ServiceException;
+import org.example.common.core.utils.DateUtils;
+import org.example.system.domain.BizAssetHoldings;
+import org.example.system.domain.BizInvestmentReport;
+import org.example.system.mapper.BizAssetHoldingsMapper;
+import org.example.system.mapper.BizTradeExecutionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 投资建议报告调仓引擎
+ *
+ * 一次性加载（并锁定）全部持仓，在内存中按顺序应用报告中的所有操作，最后批量写回；
+ * 整个过程在一个事务内完成，并以报告 ID 作为幂等键，同一报告重复审核通过不会重复调仓。
+ */
+@Component
+public class TradeExecutionEngine
+{
+    private static final Logger log = LoggerFactory.getLogger(TradeExecutionEngine.class);
+
+    /** 自动调仓的操作人 */
+    private static final String OPERATOR = "AI_AUTO";
+
+    @Autowired
+    private BizAssetHoldingsMapper holdingsMapper;
+
+    @Autowired
+    private BizTradeExecutionMapper tradeExecutionMapper;
+
+    @Autowired
+    private CoinIdentityHolder coinIdentityHolder;
+
+    @Autowired
+    private PortfolioEngine portfolioEngine;
+
+    /**
+     * 执行报告中的调仓指令
+     *
+     * @param report 已审核通过的报告
+     * @return 实际生效的操作数，报告已执行过时返回 0
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int execute(BizInvestmentReport report)
+    {
+        if (report == null || report.getExecuteJson() == null || report.getExecuteJson().trim().isEmpty())
+        {
+            return 0;
+        }
+        JSONArray actions;
+        try
+        {
+            actions = JSONUtil.parseArray(report.getExecuteJson());
+        }
+        catch (Exception e)
+        {
+            throw new ServiceException("报告 " + report.getId() + " 的操作指令格式错误，无法调仓");
+        }
+        if (actions.isEmpty())
+        {
+            return 0;
+        }
+
+        // 1. 幂等键：并发审核同一报告时后到者在此等待，先到者提交后直接返回 0
+        if (tradeExecutionMapper.insertIgnore("report:" + report.getId(), report.getId(), actions.size()) == 0)
+        {
+            log.info("报告 {} 已执行过调仓，跳过", report.getId());
+            return 0;
+        }
+
+        // 2. 一次加载并锁定全部持仓，按标准符号建立索引
+        CoinIdentityIndex index = coinIdentityHolder.get();
+        Map<String, BizAssetHoldings> positions = new LinkedHashMap<>();
+        for (BizAssetHoldings h : holdingsMapper.selectBizAssetHoldingsForUpdate())
+        {
+            String symbol = index.canonical(h.getCoin());
+            if (symbol != null)
+            {
+                positions.putIfAbsent(symbol, h);
+            }
+        }
+
+        // 3. 在内存中依次应用所有操作
+        Date now = DateUtils.getNowDate();
+        Set<String> changed = new LinkedHashSet<>();
+        List<Long> removed = new ArrayList<>();
+        int applied = 0;
+        for (int i = 0; i < actions.size(); i++)
+        {
+            JSONObject action = actions.getJSONObject(i);
+            String type = action.getStr("type");
+            String coin = action.getStr("coin");
+            BigDecimal amount = action.getBigDecimal("amount", BigDecimal.ZERO);
+            BigDecimal price = action.getBigDecimal("price", BigDecimal.ZERO);
+            String symbol = index.canonical(coin);
+            if (symbol == null || amount.compareTo(BigDecimal.ZERO) <= 0)
+            {
+                continue;
+            }
+
+            BizAssetHoldings holding = positions.get(symbol);
+            if ("BUY".equalsIgnoreCase(type))
+            {
+                if (holding == null)
+                {
+                    holding = new BizAssetHoldings();
+                    holding.setCoin(coin);
+                    holding.setAmount(BigDecimal.ZERO);
+                    holding.setCostPrice(BigDecimal.ZERO);
+                    holding.setCreateBy(OPERATOR);
+                    holding.setCreateTime(now);
+                    positions.put(symbol, holding);
+                }
+                BigDecimal oldAmount = holding.getAmount() != null ? holding.getAmount() : BigDecimal.ZERO;
+                BigDecimal oldCost = holding.getCostPrice() != null ? holding.getCostPrice() : BigDecimal.ZERO;
+                BigDecimal newAmount = oldAmount.add(amount);
+                // 加权平均持仓成本
+                BigDecimal totalCost = oldAmount.multiply(oldCost).add(amount.multiply(price));
+                holding.setCostPrice(totalCost.divide(newAmount, 8, RoundingMode.HALF_UP));
+                holding.setAmount(newAmount);
+                if (price.compareTo(BigDecimal.ZERO) > 0)
+                {
+                    holding.setUsdtValue(newAmount.multiply(price));
+                }
+                changed.add(symbol);
+                applied++;
+                log.info("买入: {}, 增加数量: {}, 新总量: {}, 新均价: {}", coin, amount, newAmount, holding.getCostPrice());
+            }
+            else if ("SELL".equalsIgnoreCase(type))
+            {
+                if (holding == null)
+                {
+                    log.warn("卖出失败: 未找到币种 {} 的持仓", coin);
+                    continue;
+                }
+                BigDecimal currentAmount = holding.getAmount() != null ? holding.getAmount() : BigDecimal.ZERO;
+                // 卖出数量不能超过持有数量
+                BigDecimal sellAmount = amount.min(currentAmount);
+                BigDecimal newAmount = currentAmount.subtract(sellAmount);
+                if (newAmount.compareTo(BigDecimal.ZERO) <= 0)
+                {
+                    // 清仓：已有记录删除，本批次新建的记录不再写入
+                    positions.remove(symbol);
+                    changed.remove(symbol);
+                    if (holding.getId() != null)
+                    {
+                        removed.add(holding.getId());
+                    }
+                    log.info("卖出: {} 已清仓", holding.getCoin());
+                }
+                else
+                {
+                    holding.setAmount(newAmount);
+                    if (price.compareTo(BigDecimal.ZERO) > 0)
+                    {
+                        holding.setUsdtValue(newAmount.multiply(price));
+                    }
+                    changed.add(symbol);
+                    log.info("卖出: {}, 减少数量: {}, 剩余数量: {}", coin, sellAmount, newAmount);
+                }
+                applied++;
+            }
+        }
+
+        // 4. 批量写回：一次 upsert + 一次删除
+        List<BizAssetHoldings> upserts = new ArrayList<>();
+        for (String symbol : changed)
+        {
+            BizAssetHoldings holding = positions.get(symbol);
+            holding.setUpdateBy(OPERATOR);
+            holding.setUpdateTime(now);
+            upserts.add(holding);
+        }
+        if (!upserts.isEmpty())
+        {
+            holdingsMapper.batchUpsertBizAssetHoldings(upserts);
+        }
+        if (!removed.isEmpty())
+        {
+            holdingsMapper.deleteBizAssetHoldingsByIds(removed.toArray(new Long[0]));
+        }
+        // 5. 提交后只把本次变更的持仓同步到组合估值：已有记录按ID，新建记录按币种
+        List<Long> touched = new ArrayList<>(removed);
+        List<String> created = new ArrayList<>();
+        for (BizAssetHoldings holding : upserts)
+        {
+            if (holding.getId() != null)
+            {
+                touched.add(holding.getId());
+            }
+            else
+            {
+                created.add(holding.getCoin());
+            }
+        }
+        portfolioEngine.refreshAfterCommit(touched, created);
+        log.info("报告 {} 调仓完成：{} 条指令生效，写入 {} 条持仓，清仓 {} 条", report.getId(), applied, upserts.size(), removed.size());
+        return applied;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.system.dify;
+
+/**
+ * Dify 聊天助手类型（每个助手对应一个独立的 API Key）
+ */
+public enum DifyAssistant
+{
+    /** 市场情报/新闻 */
+    NEWS("市场情报"),
+
+    /** 市场行情数据 */
+    METRICS("市场行情"),
+
+    /** 投资建议报告 */
+    REPORT("投资建议报告");
+
+    private final String logTag;
+
+    DifyAssistant(String logTag)
+    {
+        this.logTag = logTag;
+    }
+
+    public String getLogTag()
+    {
+        return logTag;
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.system.dify;
+
+/**
+ * 助手运行状态（熔断、延迟、重试与对冲次数）
+ */
+public class DifyAssistantStats
+{
+    /** 助手 */
+    private String assistant;
+
+    /** 熔断状态 CLOSED / OPEN / HALF_OPEN */
+    private String breakerState;
+
+    /** 连续失败次数 */
+    private int consecutiveFailures;
+
+    /** 熔断剩余时间（毫秒） */
+    private long openRemaining;
+
+    /** 成功次数 */
+    private long successCount;
+
+    /** 失败次数 */
+    private long failureCount;
+
+    /** 熔断拒绝次数 */
+    private long rejectedCount;
+
+    /** 重试次数 */
+    private long retryCount;
+
+    /** 对冲请求次数 */
+    private long hedgeCount;
+
+    /** 延迟样本数 */
+    private int samples;
+
+    /** 延迟 P50（毫秒） */
+    private long p50;
+
+    /** 延迟 P95（毫秒） */
+    private long p95;
+
+    /** 延迟 P99（毫秒） */
+    private long p99;
+
+    /** 线程池状态 */
+    private String pool;
+
+    public String getAssistant()
+    {
+        return assistant;
+    }
+
+    public void setAssistant(String assistant)
+    {
+        this.assistant = assistant;
+    }
+
+    public String getBreakerState()
+    {
+        return breakerState;
+    }
+
+    public void setBreakerState(String breakerState)
+    {
+        this.breakerState = breakerState;
+    }
+
+    public int getConsecutiveFailures()
+    {
+        return consecutiveFailures;
+    }
+
+    public void setConsecutiveFailures(int consecutiveFailures)
+    {
+        this.consecutiveFailures = consecutiveFailures;
+    }
+
+    public long getOpenRemaining()
+    {
+        return openRemaining;
+    }
+
+    public void setOpenRemaining(long openRemaining)
+    {
+        this.openRemaining = openRemaining;
+    }
+
+    public long getSuccessCount()
+    {
+        return successCount;
+    }
+
+    public void setSuccessCount(long successCount)
+    {
+        this.successCount = successCount;
+    }
+
+    public long getFailureCount()
+    {
+        return failureCount;
+    }
+
+    public void setFailureCount(long failureCount)
+    {
+        this.failureCount = failureCount;
+    }
+
+    public long getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(long rejectedCount)
+    {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public long getRetryCount()
+    {
+        return retryCount;
+    }
+
+    public void setRetryCount(long retryCount)
+    {
+        this.retryCount = retryCount;
+    }
+
+    public long getHedgeCount()
+    {
+        return hedgeCount;
+    }
+
+    public void setHedgeCount(long hedgeCount)
+    {
+        this.hedgeCount = hedgeCount;
+    }
+
+    public int getSamples()
+    {
+        return samples;
+    }
+
+    public void setSamples(int samples)
+    {
+        this.samples = samples;
+    }
+
+    public long getP50()
+    {
+        return p50;
+    }
+
+    public void setP50(long p50)
+    {
+        this.p50 = p50;
+    }
+
+    public long getP95()
+    {
+        return p95;
+    }
+
+    public void setP95(long p95)
+    {
+        this.p95 = p95;
+    }
+
+    public long getP99()
+    {
+        return p99;
+    }
+
+    public void setP99(long p99)
+    {
+        this.p99 = p99;
+    }
+
+    public String getPool()
+    {
+        return pool;
+    }
+
+    public void setPool(String pool)
+    {
+        this.pool = pool;
+    }
+}
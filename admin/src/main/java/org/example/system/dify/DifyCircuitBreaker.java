@@ -0,0 +1,134 @@
+package org.example.system.dify;
+
+/**
+ * 单个助手的熔断器
+ *
+ * 只统计网络错误、超时、429 与 5xx 为失败。连续失败达到阈值后打开，打开期间直接拒绝请求；
+ * 冷却时间过后放行一个探测请求（半开），探测成功则关闭，失败则重新打开，结果无关健康状况时继续半开等待下一次探测。
+ */
+public class DifyCircuitBreaker
+{
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAt;
+
+    private boolean probing;
+
+    private long successCount;
+
+    private long failureCount;
+
+    private long rejectedCount;
+
+    public DifyCircuitBreaker(int failureThreshold, long openMillis)
+    {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+    }
+
+    /**
+     * 请求前调用，返回 false 表示熔断中应直接失败
+     */
+    public synchronized boolean tryAcquire()
+    {
+        switch (state)
+        {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt >= openMillis)
+                {
+                    state = State.HALF_OPEN;
+                    probing = true;
+                    return true;
+                }
+                rejectedCount++;
+                return false;
+            default:
+                if (probing)
+                {
+                    rejectedCount++;
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess()
+    {
+        successCount++;
+        consecutiveFailures = 0;
+        probing = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure()
+    {
+        failureCount++;
+        consecutiveFailures++;
+        probing = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold)
+        {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 结果不能说明上游是否健康（对冲落败、调用方取消、请求本身有误、生成内容出错等）：
+     * 不计成功也不计失败，状态不变，只归还探测名额
+     */
+    public synchronized void onIgnored()
+    {
+        probing = false;
+    }
+
+    public synchronized State getState()
+    {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures()
+    {
+        return consecutiveFailures;
+    }
+
+    public synchronized long getSuccessCount()
+    {
+        return successCount;
+    }
+
+    public synchronized long getFailureCount()
+    {
+        return failureCount;
+    }
+
+    public synchronized long getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+    /**
+     * 打开状态下距离允许探测的剩余毫秒数，其它状态为 0
+     */
+    public synchronized long getRemainingOpenMillis()
+    {
+        if (state != State.OPEN)
+        {
+            return 0;
+        }
+        return Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+    }
+}
@@ -0,0 +1,837 @@
+package org.example.system.dify;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import cn.hutool.http.HttpConnection;
+import cn.hutool.http.HttpRequest;
+import cn.hutool.http.HttpResponse;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.example.common.core.exception.ServiceException;
+import org.example.common.core.utils.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dify 异步客户端
+ *
+ * 每个助手（新闻 / 行情 / 报告）使用独立的有界线程池，调用方拿到 CompletableFuture 后即可释放
+ * Tomcat 或调度线程；底层连接开启 keep-alive，由 JDK 连接缓存复用，不再每次新建连接。
+ *
+ * 每次调用有总时限，网络错误、超时、429 与 5xx 按带抖动的指数退避重试（响应解析失败等其他错误不重试）；
+ * 助手连续失败后熔断，熔断期间直接失败而不占用线程等待超时。行情查询（幂等）慢于历史延迟分位数时追加一次对冲请求，
+ * 取先返回者，并断开仍未返回的请求的连接。
+ */
+@Component
+public class DifyClient
+{
+    private static final Logger log = LoggerFactory.getLogger(DifyClient.class);
+
+    @Value("${dify.api.news-key}")
+    private String newsApiKey;
+
+    @Value("${dify.api.metrics-key}")
+    private String metricsApiKey;
+
+    @Value("${dify.api.report-key}")
+    private String reportApiKey;
+
+    @Value("${dify.api.url}")
+    private String apiUrl;
+
+    @Autowired
+    private DifyProperties properties;
+
+    @Autowired
+    private DifyResponseCache responseCache;
+
+    private final Map<DifyAssistant, ThreadPoolExecutor> executors = new EnumMap<>(DifyAssistant.class);
+
+    private final Map<DifyAssistant, Guard> guards = new EnumMap<>(DifyAssistant.class);
+
+    /** 对冲请求的延迟触发器 */
+    private ScheduledExecutorService hedgeScheduler;
+
+    @PostConstruct
+    public void init()
+    {
+        // HttpURLConnection 的 keep-alive 连接缓存大小（JDK 默认每主机仅 5 条）
+        if (System.getProperty("http.maxConnections") == null)
+        {
+            System.setProperty("http.maxConnections", String.valueOf(properties.getMaxConnections()));
+        }
+        for (DifyAssistant assistant : DifyAssistant.values())
+        {
+            int concurrency = Math.max(1, properties.getConcurrency(assistant));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(Math.max(1, properties.getQueueCapacity())),
+                    new NamedThreadFactory("dify-" + assistant.name().toLowerCase()),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            executors.put(assistant, executor);
+            guards.put(assistant, new Guard(properties));
+        }
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("dify-hedge"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        hedgeScheduler = scheduler;
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        for (ThreadPoolExecutor executor : executors.values())
+        {
+            executor.shutdownNow();
+        }
+        if (hedgeScheduler != null)
+        {
+            hedgeScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 异步发送聊天消息（blocking 模式），返回 answer 字段
+     *
+     * @param assistant 助手类型
+     * @param query 用户问题
+     * @param user 用户标识
+     * @param inputs 助手输入变量
+     * @return answer 内容
+     */
+    public CompletableFuture<String> chatAsync(DifyAssistant assistant, String query, String user, Map<String, Object> inputs)
+    {
+        return chatAsync(assistant, query, user, inputs, false);
+    }
+
+    /**
+     * 异步发送聊天消息（blocking 模式），返回 answer 字段
+     *
+     * @param assistant 助手类型
+     * @param query 用户问题
+     * @param user 用户标识
+     * @param inputs 助手输入变量
+     * @param refresh 是否跳过答案缓存强制请求（结果仍会写入缓存）
+     * @return answer 内容
+     */
+    public CompletableFuture<String> chatAsync(DifyAssistant assistant, String query, String user,
+            Map<String, Object> inputs, boolean refresh)
+    {
+        final String cacheKey = cacheKey(assistant, query, inputs);
+        if (cacheKey != null && !refresh)
+        {
+            String cached = responseCache.get(assistant, cacheKey);
+            if (cached != null)
+            {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        final String body = buildBody(query, user, inputs, "blocking");
+        final long deadline = System.currentTimeMillis() + properties.getCallDeadline();
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        // 进行中的尝试数（主请求 + 对冲请求），全部失败才算失败
+        final AtomicInteger pending = new AtomicInteger(1);
+        final InFlight inFlight = new InFlight();
+        if (!submitBlocking(assistant, body, deadline, properties.getMaxAttempts(), cacheKey, future, pending, inFlight))
+        {
+            log.warn("Dify {} 请求队列已满，拒绝本次请求", assistant.getLogTag());
+            future.completeExceptionally(new ServiceException("Dify " + assistant.getLogTag() + " 请求过多，请稍后再试"));
+            return future;
+        }
+        scheduleHedge(assistant, body, deadline, cacheKey, future, pending, inFlight);
+        // 先返回的尝试已在完成前注销，这里只会断开落败的请求
+        future.whenComplete((answer, e) -> inFlight.cancel());
+        return future;
+    }
+
+    /**
+     * 向助手线程池提交一次 blocking 请求
+     *
+     * @return 线程池已满时返回 false
+     */
+    private boolean submitBlocking(DifyAssistant assistant, String body, long deadline, int maxAttempts, String cacheKey,
+            CompletableFuture<String> future, AtomicInteger pending, InFlight inFlight)
+    {
+        try
+        {
+            executors.get(assistant).execute(() -> {
+                if (future.isDone())
+                {
+                    return;
+                }
+                try
+                {
+                    String answer = callWithResilience(assistant, deadline, maxAttempts,
+                            timeout -> execute(assistant, body, timeout, inFlight), null);
+                    if (cacheKey != null && !future.isDone())
+                    {
+                        responseCache.put(assistant, cacheKey, answer);
+                    }
+                    future.complete(answer);
+                }
+                catch (Throwable e)
+                {
+                    if (pending.decrementAndGet() <= 0)
+                    {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * 行情查询超过历史延迟分位数仍未返回时，再发一次请求，取先返回者
+     */
+    private void scheduleHedge(DifyAssistant assistant, String body, long deadline, String cacheKey,
+            CompletableFuture<String> future, AtomicInteger pending, InFlight inFlight)
+    {
+        if (assistant != DifyAssistant.METRICS || !properties.isHedgeMetrics())
+        {
+            return;
+        }
+        Guard guard = guards.get(assistant);
+        if (guard.latency.size() < properties.getHedgeMinSamples())
+        {
+            return;
+        }
+        long delay = guard.latency.percentile(properties.getHedgePercentile());
+        if (delay <= 0 || System.currentTimeMillis() + delay >= deadline)
+        {
+            return;
+        }
+        ScheduledFuture<?> hedge = hedgeScheduler.schedule(() -> {
+            if (future.isDone() || guard.breaker.getState() != DifyCircuitBreaker.State.CLOSED)
+            {
+                return;
+            }
+            pending.incrementAndGet();
+            // 对冲请求不再重试，避免放大下游压力
+            if (submitBlocking(assistant, body, deadline, 1, cacheKey, future, pending, inFlight))
+            {
+                guard.hedges.incrementAndGet();
+                log.info("Dify {} 请求超过 P{} 延迟 {} ms，发出对冲请求", assistant.getLogTag(),
+                        Math.round(properties.getHedgePercentile() * 100), delay);
+            }
+            else
+            {
+                pending.decrementAndGet();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        // 主请求先返回时撤销定时任务
+        future.whenComplete((answer, e) -> hedge.cancel(false));
+    }
+
+    /**
+     * 异步发送聊天消息（streaming 模式），逐个片段回调监听器，完成时返回去除 think 内容后的完整答案
+     *
+     * @param assistant 助手类型
+     * @param query 用户问题
+     * @param user 用户标识
+     * @param inputs 助手输入变量
+     * @param listener 片段监听器
+     * @return 完整答案
+     */
+    public CompletableFuture<String> streamAsync(DifyAssistant assistant, String query, String user,
+            Map<String, Object> inputs, DifyStreamListener listener)
+    {
+        return streamAsync(assistant, query, user, inputs, listener, false);
+    }
+
+    /**
+     * 异步发送聊天消息（streaming 模式），命中答案缓存时一次性回调完整答案。
+     * 取消返回的 Future 会断开进行中的连接，释放助手线程，已收到的片段不会写入答案缓存
+     *
+     * @param assistant 助手类型
+     * @param query 用户问题
+     * @param user 用户标识
+     * @param inputs 助手输入变量
+     * @param listener 片段监听器
+     * @param refresh 是否跳过答案缓存强制请求（结果仍会写入缓存）
+     * @return 完整答案
+     */
+    public CompletableFuture<String> streamAsync(DifyAssistant assistant, String query, String user,
+            Map<String, Object> inputs, DifyStreamListener listener, boolean refresh)
+    {
+        final String cacheKey = cacheKey(assistant, query, inputs);
+        if (cacheKey != null && !refresh)
+        {
+            String cached = responseCache.get(assistant, cacheKey);
+            if (cached != null)
+            {
+                if (listener != null)
+                {
+                    listener.onDelta(cached, cached);
+                }
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        final String body = buildBody(query, user, inputs, "streaming");
+        final long deadline = System.currentTimeMillis() + properties.getCallDeadline();
+        // 已向调用方推送过片段后不再重试，避免重复内容
+        final AtomicBoolean delivered = new AtomicBoolean(false);
+        final DifyStreamListener tracked = listener == null ? null : (delta, answer) -> {
+            delivered.set(true);
+            listener.onDelta(delta, answer);
+        };
+        CompletableFuture<String> future = new CompletableFuture<>();
+        final InFlight inFlight = new InFlight();
+        try
+        {
+            executors.get(assistant).execute(() -> {
+                if (future.isDone())
+                {
+                    return;
+                }
+                try
+                {
+                    String answer = callWithResilience(assistant, deadline, properties.getMaxAttempts(),
+                            timeout -> executeStream(assistant, body, tracked, timeout, inFlight), () -> !delivered.get());
+                    if (cacheKey != null)
+                    {
+                        responseCache.put(assistant, cacheKey, answer);
+                    }
+                    future.complete(answer);
+                }
+                catch (Throwable e)
+                {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.warn("Dify {} 请求队列已满，拒绝本次流式请求", assistant.getLogTag());
+            future.completeExceptionally(new ServiceException("Dify " + assistant.getLogTag() + " 请求过多，请稍后再试"));
+        }
+        // 调用方取消时断开连接，正常完成时请求已注销
+        future.whenComplete((answer, e) -> inFlight.cancel());
+        return future;
+    }
+
+    /**
+     * 删除某次请求的答案缓存（答案无法使用时调用）
+     */
+    public void evictCache(DifyAssistant assistant, String query, Map<String, Object> inputs)
+    {
+        String cacheKey = cacheKey(assistant, query, inputs);
+        if (cacheKey != null)
+        {
+            responseCache.evict(cacheKey);
+        }
+    }
+
+    /**
+     * 计算答案缓存键，助手未启用缓存时返回 null
+     */
+    private String cacheKey(DifyAssistant assistant, String query, Map<String, Object> inputs)
+    {
+        if (!responseCache.isEnabled(assistant))
+        {
+            return null;
+        }
+        return responseCache.key(assistant, getApiKey(assistant), query, inputs);
+    }
+
+    /**
+     * 在总时限内执行一次调用：熔断检查、按剩余时间收紧读取超时、失败后带抖动的指数退避重试
+     *
+     * @param maxAttempts 最大尝试次数
+     * @param attempt 单次请求，参数为本次读取超时
+     * @param retryAllowed 是否还允许重试，为 null 时总是允许
+     */
+    private String callWithResilience(DifyAssistant assistant, long deadline, int maxAttempts, Attempt attempt,
+            BooleanSupplier retryAllowed) throws Exception
+    {
+        Guard guard = guards.get(assistant);
+        Exception last = null;
+        for (int i = 0; i < Math.max(1, maxAttempts); i++)
+        {
+            if (i > 0)
+            {
+                if (!isRetryable(last) || (retryAllowed != null && !retryAllowed.getAsBoolean()))
+                {
+                    break;
+                }
+                long backoff = backoff(i);
+                if (System.currentTimeMillis() + backoff >= deadline)
+                {
+                    break;
+                }
+                guard.retries.incrementAndGet();
+                log.warn("Dify {} 第 {} 次请求失败（{}），{} ms 后重试", assistant.getLogTag(), i, last.getMessage(), backoff);
+                Thread.sleep(backoff);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                break;
+            }
+            if (!guard.breaker.tryAcquire())
+            {
+                throw new ServiceException("Dify " + assistant.getLogTag() + " 服务暂不可用，请 "
+                        + (guard.breaker.getRemainingOpenMillis() / 1000 + 1) + " 秒后再试");
+            }
+            long start = System.currentTimeMillis();
+            try
+            {
+                String answer = attempt.call((int) Math.min(properties.getReadTimeout(), remaining));
+                guard.breaker.onSuccess();
+                guard.latency.record(System.currentTimeMillis() - start);
+                return answer;
+            }
+            catch (InterruptedException | CancellationException e)
+            {
+                // 对冲落败或调用方取消而被主动断开，既不是成功也不是失败
+                guard.breaker.onIgnored();
+                throw e;
+            }
+            catch (Exception e)
+            {
+                if (!isRetryable(e))
+                {
+                    // 4xx、流式生成错误、响应解析失败等只说明这次请求本身有问题，不能证明上游恢复或故障，不改变熔断状态也不重试
+                    guard.breaker.onIgnored();
+                    throw e;
+                }
+                guard.breaker.onFailure();
+                last = e;
+            }
+        }
+        if (last != null)
+        {
+            throw last;
+        }
+        throw new ServiceException("Dify " + assistant.getLogTag() + " 请求超时");
+    }
+
+    /**
+     * 第 n 次重试前的退避时间：min(上限, 基数 * 2^(n-1))，再乘以 [0.5, 1) 的随机抖动
+     */
+    private long backoff(int retry)
+    {
+        long base = Math.max(1, properties.getBackoffBase());
+        long exp = base << Math.min(20, retry - 1);
+        long capped = Math.min(Math.max(base, properties.getBackoffMax()), exp);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /**
+     * 只重试网络错误、超时、429 与 5xx；响应解析失败、流式生成错误等重试也不会改变结果
+     */
+    private static boolean isRetryable(Exception e)
+    {
+        if (e == null)
+        {
+            return false;
+        }
+        if (e instanceof ServiceException)
+        {
+            Integer code = ((ServiceException) e).getCode();
+            return code != null && (code >= 500 || code == 429);
+        }
+        // Hutool 将 IOException（含 SocketTimeoutException）包装为 IORuntimeException / HttpException
+        for (Throwable t = e; t != null; t = t.getCause())
+        {
+            if (t instanceof IOException)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 构造请求体
+     */
+    protected String buildBody(String query, String user, Map<String, Object> inputs, String responseMode)
+    {
+        JSONObject inputsJson = new JSONObject();
+        if (inputs != null)
+        {
+            for (Map.Entry<String, Object> entry : inputs.entrySet())
+            {
+                inputsJson.set(entry.getKey(), entry.getValue());
+            }
+        }
+        JSONObject body = new JSONObject();
+        body.set("inputs", inputsJson);
+        body.set("query", query);
+        body.set("response_mode", responseMode);
+        body.set("user", user);
+        return body.toString();
+    }
+
+    /**
+     * 创建指向 /chat-messages 的请求（长连接 + 独立的连接/读取超时）
+     */
+    protected HttpRequest newRequest(DifyAssistant assistant, String body, int readTimeout)
+    {
+        return HttpRequest.post(apiUrl + "/chat-messages")
+                .header("Authorization", "Bearer " + getApiKey(assistant))
+                .header("Content-Type", "application/json")
+                .keepAlive(true)
+                .setConnectionTimeout(properties.getConnectTimeout())
+                .setReadTimeout(readTimeout)
+                .body(body);
+    }
+
+    /**
+     * 在助手线程池中同步执行请求
+     *
+     * @param inFlight 同一调用的进行中请求，调用已完成时本请求会被断开
+     */
+    private String execute(DifyAssistant assistant, String body, int readTimeout, InFlight inFlight)
+    {
+        long start = System.currentTimeMillis();
+        HttpRequest request = newRequest(assistant, body, readTimeout);
+        inFlight.register(request);
+        try (HttpResponse response = request.execute())
+        {
+            String resStr = response.body();
+            if (!response.isOk())
+            {
+                log.error("Dify {} 请求失败: {}，响应内容: {}", assistant.getLogTag(), response.getStatus(), resStr);
+                throw new ServiceException("Dify " + assistant.getLogTag() + " 请求失败: " + response.getStatus(), response.getStatus());
+            }
+            JSONObject json = JSONUtil.parseObj(resStr);
+            String answer = json.getStr("answer");
+            log.info("Dify {} 请求完成，耗时 {} ms", assistant.getLogTag(), System.currentTimeMillis() - start);
+            return answer;
+        }
+        catch (RuntimeException e)
+        {
+            if (inFlight.isCancelled())
+            {
+                throw new CancellationException("Dify " + assistant.getLogTag() + " 请求已由其他尝试完成");
+            }
+            throw e;
+        }
+        finally
+        {
+            inFlight.unregister(request);
+        }
+    }
+
+    /**
+     * 在助手线程池中消费 SSE 事件流
+     *
+     * @param inFlight 本次调用的进行中请求，调用方取消时连接被断开
+     */
+    private String executeStream(DifyAssistant assistant, String body, DifyStreamListener listener, int readTimeout,
+            InFlight inFlight) throws IOException
+    {
+        HttpRequest request = newRequest(assistant, body, readTimeout);
+        inFlight.register(request);
+        try
+        {
+            return readStream(assistant, request, listener);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            if (inFlight.isCancelled())
+            {
+                throw new CancellationException("Dify " + assistant.getLogTag() + " 流式请求已取消");
+            }
+            throw e;
+        }
+        finally
+        {
+            inFlight.unregister(request);
+        }
+    }
+
+    private String readStream(DifyAssistant assistant, HttpRequest request, DifyStreamListener listener) throws IOException
+    {
+        long start = System.currentTimeMillis();
+        long firstToken = -1;
+        int maxChars = properties.getMaxAnswerChars();
+        ThinkTagFilter filter = new ThinkTagFilter();
+        StringBuilder answer = new StringBuilder();
+        boolean truncated = false;
+        boolean ended = false;
+        try (HttpResponse response = request.executeAsync())
+        {
+            if (!response.isOk())
+            {
+                String resStr = response.body();
+                log.error("Dify {} 流式请求失败: {}，响应内容: {}", assistant.getLogTag(), response.getStatus(), resStr);
+                throw new ServiceException("Dify " + assistant.getLogTag() + " 请求失败: " + response.getStatus(), response.getStatus());
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(response.bodyStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.startsWith("data:"))
+                {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if (data.isEmpty())
+                {
+                    continue;
+                }
+                JSONObject event = JSONUtil.parseObj(data);
+                String type = event.getStr("event");
+                if ("message".equals(type) || "agent_message".equals(type))
+                {
+                    String delta = filter.accept(event.getStr("answer"));
+                    if (delta.isEmpty() || truncated)
+                    {
+                        continue;
+                    }
+                    if (answer.length() + delta.length() > maxChars)
+                    {
+                        delta = delta.substring(0, Math.max(0, maxChars - answer.length()));
+                        truncated = true;
+                        log.warn("Dify {} 答案超过 {} 字符，后续内容将被丢弃", assistant.getLogTag(), maxChars);
+                    }
+                    if (firstToken < 0)
+                    {
+                        firstToken = System.currentTimeMillis() - start;
+                        log.info("Dify {} 首个片段耗时 {} ms", assistant.getLogTag(), firstToken);
+                    }
+                    answer.append(delta);
+                    if (listener != null && !delta.isEmpty())
+                    {
+                        listener.onDelta(delta, answer);
+                    }
+                }
+                else if ("message_replace".equals(type))
+                {
+                    // 内容审查触发时 Dify 会整体替换答案
+                    filter.reset();
+                    answer.setLength(0);
+                    truncated = false;
+                    String replaced = filter.accept(event.getStr("answer"));
+                    answer.append(replaced, 0, Math.min(replaced.length(), maxChars));
+                    if (listener != null)
+                    {
+                        listener.onDelta("", answer);
+                    }
+                }
+                else if ("message_end".equals(type))
+                {
+                    ended = true;
+                    break;
+                }
+                else if ("error".equals(type))
+                {
+                    log.error("Dify {} 流式响应错误: {}", assistant.getLogTag(), data);
+                    throw new ServiceException("Dify " + assistant.getLogTag() + " 生成失败: " + event.getStr("message"));
+                }
+            }
+        }
+        if (!ended)
+        {
+            // 连接在 message_end 之前断开：答案不完整，不能当作成功结果缓存或保存
+            log.error("Dify {} 流式响应未收到 message_end 即结束，已接收 {} 字符", assistant.getLogTag(), answer.length());
+            throw new ServiceException("Dify " + assistant.getLogTag() + " 流式响应中断，答案不完整");
+        }
+        String rest = filter.flush();
+        if (!rest.isEmpty() && !truncated && answer.length() + rest.length() <= maxChars)
+        {
+            answer.append(rest);
+            if (listener != null)
+            {
+                listener.onDelta(rest, answer);
+            }
+        }
+        log.info("Dify {} 流式请求完成，耗时 {} ms，答案 {} 字符", assistant.getLogTag(), System.currentTimeMillis() - start, answer.length());
+        return answer.toString();
+    }
+
+    /**
+     * 获取助手对应的 API Key
+     */
+    public String getApiKey(DifyAssistant assistant)
+    {
+        switch (assistant)
+        {
+            case NEWS:
+                return newsApiKey;
+            case METRICS:
+                return metricsApiKey;
+            default:
+                return reportApiKey;
+        }
+    }
+
+    public String getApiUrl()
+    {
+        return apiUrl;
+    }
+
+    /**
+     * 获取助手线程池当前的活跃数与排队数
+     */
+    public String getPoolStatus(DifyAssistant assistant)
+    {
+        ThreadPoolExecutor executor = executors.get(assistant);
+        if (executor == null)
+        {
+            return StringUtils.EMPTY;
+        }
+        return "active=" + executor.getActiveCount() + ", queued=" + executor.getQueue().size();
+    }
+
+    /**
+     * 获取各助手的熔断、延迟与重试统计
+     */
+    public List<DifyAssistantStats> getStats()
+    {
+        List<DifyAssistantStats> list = new ArrayList<>();
+        for (DifyAssistant assistant : DifyAssistant.values())
+        {
+            Guard guard = guards.get(assistant);
+            if (guard == null)
+            {
+                continue;
+            }
+            DifyAssistantStats stats = new DifyAssistantStats();
+            stats.setAssistant(assistant.name());
+            stats.setBreakerState(guard.breaker.getState().name());
+            stats.setConsecutiveFailures(guard.breaker.getConsecutiveFailures());
+            stats.setOpenRemaining(guard.breaker.getRemainingOpenMillis());
+            stats.setSuccessCount(guard.breaker.getSuccessCount());
+            stats.setFailureCount(guard.breaker.getFailureCount());
+            stats.setRejectedCount(guard.breaker.getRejectedCount());
+            stats.setRetryCount(guard.retries.get());
+            stats.setHedgeCount(guard.hedges.get());
+            stats.setSamples(guard.latency.size());
+            stats.setP50(guard.latency.percentile(0.5));
+            stats.setP95(guard.latency.percentile(0.95));
+            stats.setP99(guard.latency.percentile(0.99));
+            stats.setPool(getPoolStatus(assistant));
+            list.add(stats);
+        }
+        return list;
+    }
+
+    /**
+     * 单次请求
+     */
+    private interface Attempt
+    {
+        String call(int readTimeout) throws Exception;
+    }
+
+    /**
+     * 一次调用中进行中的请求（主请求与对冲请求，或流式请求）；调用完成或被取消后断开其余请求的连接，
+     * 不再占用助手线程等待落败或已无人需要的响应
+     */
+    private static class InFlight
+    {
+        private final Set<HttpRequest> requests = ConcurrentHashMap.newKeySet();
+
+        private volatile boolean cancelled;
+
+        void register(HttpRequest request)
+        {
+            requests.add(request);
+            if (cancelled)
+            {
+                requests.remove(request);
+                throw new CancellationException("Dify 请求已取消或已由其他尝试完成");
+            }
+        }
+
+        void unregister(HttpRequest request)
+        {
+            requests.remove(request);
+        }
+
+        boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        void cancel()
+        {
+            cancelled = true;
+            for (HttpRequest request : requests)
+            {
+                // 连接尚未建立时取不到，该请求建立连接后照常执行到读取超时
+                HttpConnection connection = request.getConnection();
+                if (connection != null)
+                {
+                    connection.disconnectQuietly();
+                }
+            }
+        }
+    }
+
+    /**
+     * 助手的熔断器、延迟统计与重试计数
+     */
+    private static class Guard
+    {
+        private final DifyCircuitBreaker breaker;
+
+        private final DifyLatencyTracker latency;
+
+        private final AtomicLong retries = new AtomicLong();
+
+        private final AtomicLong hedges = new AtomicLong();
+
+        Guard(DifyProperties properties)
+        {
+            this.breaker = new DifyCircuitBreaker(properties.getBreakerFailureThreshold(), properties.getBreakerOpenDuration());
+            this.latency = new DifyLatencyTracker(properties.getLatencyWindow());
+        }
+    }
+
+    /**
+     * 为助手线程命名，便于排查线程栈
+     */
+    private static class NamedThreadFactory implements java.util.concurrent.ThreadFactory
+    {
+        private final String prefix;
+
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix)
+        {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r)
+        {
+            Thread thread = new Thread(r, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
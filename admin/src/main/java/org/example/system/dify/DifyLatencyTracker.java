@@ -0,0 +1,57 @@
+package org.example.system.dify;
+
+import java.util.Arrays;
+
+/**
+ * 最近 N 次成功请求的耗时，用于计算延迟分位数（对冲请求的触发时机与监控）
+ */
+public class DifyLatencyTracker
+{
+    private final long[] samples;
+
+    private int next;
+
+    private int size;
+
+    public DifyLatencyTracker(int window)
+    {
+        this.samples = new long[Math.max(1, window)];
+    }
+
+    public synchronized void record(long millis)
+    {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (size < samples.length)
+        {
+            size++;
+        }
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * 计算分位数
+     *
+     * @param p 分位，0~1，如 0.95
+     * @return 耗时（毫秒），无样本时返回 -1
+     */
+    public long percentile(double p)
+    {
+        long[] copy;
+        synchronized (this)
+        {
+            if (size == 0)
+            {
+                return -1;
+            }
+            copy = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(copy);
+        int idx = (int) Math.ceil(Math.min(1, Math.max(0, p)) * copy.length) - 1;
+        return copy[Math.max(0, idx)];
+    }
+}
@@ -0,0 +1,288 @@
+package org.example.system.dify;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dify 客户端连接池与并发配置
+ */
+@Component
+@ConfigurationProperties(prefix = "dify.client")
+public class DifyProperties
+{
+    /** 建立连接超时（毫秒） */
+    private int connectTimeout = 10000;
+
+    /** 读取响应超时（毫秒），LLM 生成较慢，默认 5 分钟 */
+    private int readTimeout = 300000;
+
+    /** 每个目标主机保持的空闲长连接数 */
+    private int maxConnections = 32;
+
+    /** 新闻助手最大并发请求数 */
+    private int newsConcurrency = 2;
+
+    /** 行情助手最大并发请求数 */
+    private int metricsConcurrency = 2;
+
+    /** 报告助手最大并发请求数 */
+    private int reportConcurrency = 4;
+
+    /** 每个助手的排队上限，超过后直接拒绝 */
+    private int queueCapacity = 50;
+
+    /** 投资建议报告是否使用 streaming 模式生成 */
+    private boolean reportStreaming = true;
+
+    /** 流式生成时草稿落库的最小间隔（毫秒） */
+    private long streamFlushInterval = 2000;
+
+    /** 单次答案最大保留字符数，超出部分丢弃 */
+    private int maxAnswerChars = 200000;
+
+    /** 单次调用最大尝试次数（含首次），仅对网络错误、429 与 5xx 重试 */
+    private int maxAttempts = 3;
+
+    /** 重试退避基数（毫秒），按 2 的幂次增长并加随机抖动 */
+    private long backoffBase = 1000;
+
+    /** 重试退避上限（毫秒） */
+    private long backoffMax = 15000;
+
+    /** 单次调用的总时限（毫秒），包含所有重试与退避 */
+    private long callDeadline = 360000;
+
+    /** 连续失败多少次后熔断 */
+    private int breakerFailureThreshold = 5;
+
+    /** 熔断持续时间（毫秒），之后放行一个探测请求 */
+    private long breakerOpenDuration = 60000;
+
+    /** 行情查询是否启用对冲请求（慢于延迟分位数时再发一次，取先返回者） */
+    private boolean hedgeMetrics = true;
+
+    /** 触发对冲请求的延迟分位 */
+    private double hedgePercentile = 0.95;
+
+    /** 延迟样本数达到该值后才启用对冲 */
+    private int hedgeMinSamples = 20;
+
+    /** 延迟统计窗口（最近成功请求数） */
+    private int latencyWindow = 200;
+
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout)
+    {
+        this.readTimeout = readTimeout;
+    }
+
+    public int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections)
+    {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getNewsConcurrency()
+    {
+        return newsConcurrency;
+    }
+
+    public void setNewsConcurrency(int newsConcurrency)
+    {
+        this.newsConcurrency = newsConcurrency;
+    }
+
+    public int getMetricsConcurrency()
+    {
+        return metricsConcurrency;
+    }
+
+    public void setMetricsConcurrency(int metricsConcurrency)
+    {
+        this.metricsConcurrency = metricsConcurrency;
+    }
+
+    public int getReportConcurrency()
+    {
+        return reportConcurrency;
+    }
+
+    public void setReportConcurrency(int reportConcurrency)
+    {
+        this.reportConcurrency = reportConcurrency;
+    }
+
+    public int getQueueCapacity()
+    {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity)
+    {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public boolean isReportStreaming()
+    {
+        return reportStreaming;
+    }
+
+    public void setReportStreaming(boolean reportStreaming)
+    {
+        this.reportStreaming = reportStreaming;
+    }
+
+    public long getStreamFlushInterval()
+    {
+        return streamFlushInterval;
+    }
+
+    public void setStreamFlushInterval(long streamFlushInterval)
+    {
+        this.streamFlushInterval = streamFlushInterval;
+    }
+
+    public int getMaxAnswerChars()
+    {
+        return maxAnswerChars;
+    }
+
+    public void setMaxAnswerChars(int maxAnswerChars)
+    {
+        this.maxAnswerChars = maxAnswerChars;
+    }
+
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts)
+    {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getBackoffBase()
+    {
+        return backoffBase;
+    }
+
+    public void setBackoffBase(long backoffBase)
+    {
+        this.backoffBase = backoffBase;
+    }
+
+    public long getBackoffMax()
+    {
+        return backoffMax;
+    }
+
+    public void setBackoffMax(long backoffMax)
+    {
+        this.backoffMax = backoffMax;
+    }
+
+    public long getCallDeadline()
+    {
+        return callDeadline;
+    }
+
+    public void setCallDeadline(long callDeadline)
+    {
+        this.callDeadline = callDeadline;
+    }
+
+    public int getBreakerFailureThreshold()
+    {
+        return breakerFailureThreshold;
+    }
+
+    public void setBreakerFailureThreshold(int breakerFailureThreshold)
+    {
+        this.breakerFailureThreshold = breakerFailureThreshold;
+    }
+
+    public long getBreakerOpenDuration()
+    {
+        return breakerOpenDuration;
+    }
+
+    public void setBreakerOpenDuration(long breakerOpenDuration)
+    {
+        this.breakerOpenDuration = breakerOpenDuration;
+    }
+
+    public boolean isHedgeMetrics()
+    {
+        return hedgeMetrics;
+    }
+
+    public void setHedgeMetrics(boolean hedgeMetrics)
+    {
+        this.hedgeMetrics = hedgeMetrics;
+    }
+
+    public double getHedgePercentile()
+    {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile)
+    {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public int getHedgeMinSamples()
+    {
+        return hedgeMinSamples;
+    }
+
+    public void setHedgeMinSamples(int hedgeMinSamples)
+    {
+        this.hedgeMinSamples = hedgeMinSamples;
+    }
+
+    public int getLatencyWindow()
+    {
+        return latencyWindow;
+    }
+
+    public void setLatencyWindow(int latencyWindow)
+    {
+        this.latencyWindow = latencyWindow;
+    }
+
+    /**
+     * 获取指定助手的并发上限
+     */
+    public int getConcurrency(DifyAssistant assistant)
+    {
+        switch (assistant)
+        {
+            case NEWS:
+                return newsConcurrency;
+            case METRICS:
+                return metricsConcurrency;
+            default:
+                return reportConcurrency;
+        }
+    }
+}
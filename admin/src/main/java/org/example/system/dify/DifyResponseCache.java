@@ -0,0 +1,233 @@
+package org.example.system.dify;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.example.common.redis.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dify 答案缓存
+ *
+ * 以 (API Key, query, inputs) 的 SHA-256 作为键，相同提示词在有效期内直接返回上一次的答案。
+ * 支持 Redis（多实例共享）或本地 LRU（按条数淘汰）两种存储，有效期按助手分别配置，0 表示不缓存。
+ */
+@Component
+public class DifyResponseCache
+{
+    private static final Logger log = LoggerFactory.getLogger(DifyResponseCache.class);
+
+    /** Redis 缓存键前缀 */
+    private static final String CACHE_KEY = "dify_cache:";
+
+    private static final String STORE_REDIS = "redis";
+
+    @Autowired
+    private RedisService redisService;
+
+    /** 存储方式：local / redis */
+    @Value("${dify.cache.store:local}")
+    private String store;
+
+    /** 本地缓存最大条数 */
+    @Value("${dify.cache.local-max-entries:256}")
+    private int localMaxEntries;
+
+    /** 新闻助手答案有效期（秒） */
+    @Value("${dify.cache.news-ttl:0}")
+    private long newsTtl;
+
+    /** 行情助手答案有效期（秒） */
+    @Value("${dify.cache.metrics-ttl:0}")
+    private long metricsTtl;
+
+    /** 报告助手答案有效期（秒） */
+    @Value("${dify.cache.report-ttl:0}")
+    private long reportTtl;
+
+    private final Map<String, Entry> local = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+        {
+            return size() > Math.max(1, localMaxEntries);
+        }
+    };
+
+    /**
+     * 助手是否启用缓存
+     */
+    public boolean isEnabled(DifyAssistant assistant)
+    {
+        return getTtl(assistant) > 0;
+    }
+
+    /**
+     * 计算缓存键
+     */
+    public String key(DifyAssistant assistant, String apiKey, String query, Map<String, Object> inputs)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(apiKey).append('\n').append(query).append('\n');
+        if (inputs != null)
+        {
+            // 按键排序，保证相同输入得到相同的键
+            for (Map.Entry<String, Object> entry : new TreeMap<>(inputs).entrySet())
+            {
+                sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+            }
+        }
+        return assistant.name().toLowerCase() + ":" + sha256(sb.toString());
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @return 缓存的答案，未命中返回 null
+     */
+    public String get(DifyAssistant assistant, String key)
+    {
+        String answer = null;
+        if (STORE_REDIS.equalsIgnoreCase(store))
+        {
+            try
+            {
+                answer = redisService.getCacheObject(CACHE_KEY + key);
+            }
+            catch (Exception e)
+            {
+                log.warn("读取 Dify 答案缓存失败: {}", e.getMessage());
+            }
+        }
+        else
+        {
+            synchronized (local)
+            {
+                Entry entry = local.get(key);
+                if (entry != null && entry.expireAt < System.currentTimeMillis())
+                {
+                    local.remove(key);
+                    entry = null;
+                }
+                answer = entry != null ? entry.answer : null;
+            }
+        }
+        if (answer != null)
+        {
+            log.info("Dify {} 命中答案缓存", assistant.getLogTag());
+        }
+        return answer;
+    }
+
+    /**
+     * 写入缓存，空答案不缓存
+     */
+    public void put(DifyAssistant assistant, String key, String answer)
+    {
+        long ttl = getTtl(assistant);
+        if (ttl <= 0 || answer == null || answer.trim().isEmpty())
+        {
+            return;
+        }
+        if (STORE_REDIS.equalsIgnoreCase(store))
+        {
+            try
+            {
+                redisService.setCacheObject(CACHE_KEY + key, answer, ttl, TimeUnit.SECONDS);
+            }
+            catch (Exception e)
+            {
+                log.warn("写入 Dify 答案缓存失败: {}", e.getMessage());
+            }
+        }
+        else
+        {
+            synchronized (local)
+            {
+                local.put(key, new Entry(answer, System.currentTimeMillis() + ttl * 1000));
+            }
+        }
+    }
+
+    /**
+     * 删除缓存（答案无法解析时调用，避免在有效期内反复返回同一个坏答案）
+     */
+    public void evict(String key)
+    {
+        if (STORE_REDIS.equalsIgnoreCase(store))
+        {
+            try
+            {
+                redisService.deleteObject(CACHE_KEY + key);
+            }
+            catch (Exception e)
+            {
+                log.warn("删除 Dify 答案缓存失败: {}", e.getMessage());
+            }
+        }
+        else
+        {
+            synchronized (local)
+            {
+                local.remove(key);
+            }
+        }
+    }
+
+    private long getTtl(DifyAssistant assistant)
+    {
+        switch (assistant)
+        {
+            case NEWS:
+                return newsTtl;
+            case METRICS:
+                return metricsTtl;
+            default:
+                return reportTtl;
+        }
+    }
+
+    private static String sha256(String text)
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+            {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 本地缓存条目
+     */
+    private static class Entry
+    {
+        private final String answer;
+
+        private final long expireAt;
+
+        Entry(String answer, long expireAt)
+        {
+            this.answer = answer;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.system.dify;
+
+/**
+ * Dify 流式响应监听器
+ */
+public interface DifyStreamListener
+{
+    /**
+     * 收到新的答案片段（已去除 think 内容），在助手线程中回调。
+     * answer 由助手线程继续追加，只能在回调内读取；抛出 CancellationException 可中止本次流式请求
+     *
+     * @param delta 本次新增的正文
+     * @param answer 截至目前的完整正文
+     */
+    void onDelta(String delta, CharSequence answer);
+}
@@ -0,0 +1,719 @@
+package org.example.system.dify;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 从 LLM 答案中提取 JSON
+ *
+ * 单次线性扫描：跳过 &lt;think&gt; 推理块与 Markdown 代码块标记，找到第一个结构完整的 JSON 值，
+ * 边扫描边输出规范化后的 JSON，同时修复常见缺陷：
+ * <ul>
+ * <li>多余的尾逗号、缺失的逗号</li>
+ * <li>单引号包围的键与字符串、未加引号的键与字符串值、带单位或千分位的数字（如 "$27,000"、"5.2%"）；
+ * 未加引号的千分位数字（如 27,000）只在期望结构的数值字段中识别，数组里的 [1,000] 仍是两个元素</li>
+ * <li>数值字段中的占位文字（如 当前价格）置为 null</li>
+ * <li>答案被截断时丢弃数组中不完整的最后一个元素并补全括号</li>
+ * </ul>
+ * 修复后仍可能不是业务需要的结构，调用方需自行校验字段。
+ */
+public final class LlmJsonExtractor
+{
+    private static final Logger log = LoggerFactory.getLogger(LlmJsonExtractor.class);
+
+    private static final String THINK_OPEN = "<think>";
+
+    private static final String THINK_CLOSE = "</think>";
+
+    private static final Pattern JSON_NUMBER = Pattern.compile("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    /** 千分位数字的首段，如 $27、-1 */
+    private static final Pattern GROUP_LEAD = Pattern.compile("[$¥]?[+-]?\\d{1,3}");
+
+    /** 千分位数字的后续段，最后一段可带小数与百分号 */
+    private static final Pattern GROUP_NEXT = Pattern.compile(",\\d{3}(\\.\\d+)?%?");
+
+    /** 最多尝试的候选起点数，避免对大段说明文字反复扫描 */
+    private static final int MAX_CANDIDATES = 16;
+
+    private LlmJsonExtractor()
+    {
+    }
+
+    /**
+     * 提取第一个 JSON 对象或数组
+     *
+     * @param text LLM 答案
+     * @return 修复后的 JSON，找不到时返回 null
+     */
+    public static String extract(CharSequence text)
+    {
+        return extract(text, null);
+    }
+
+    /**
+     * 按期望结构提取 JSON
+     *
+     * @param text LLM 答案
+     * @param schema 期望结构，为 null 时接受任意对象或数组
+     * @return 修复后的 JSON，找不到时返回 null
+     */
+    public static String extract(CharSequence text, LlmJsonSchema schema)
+    {
+        if (text == null)
+        {
+            return null;
+        }
+        String s = text.toString();
+        int n = s.length();
+        String fallback = null;
+        int candidates = 0;
+        int i = 0;
+        while (i < n && candidates < MAX_CANDIDATES)
+        {
+            char c = s.charAt(i);
+            if (c == '<' && s.startsWith(THINK_OPEN, i))
+            {
+                int end = s.indexOf(THINK_CLOSE, i + THINK_OPEN.length());
+                if (end >= 0)
+                {
+                    i = end + THINK_CLOSE.length();
+                    continue;
+                }
+            }
+            if ((c == '{' || c == '[') && (schema == null || schema.getRoot() == c))
+            {
+                candidates++;
+                Repairer repairer = new Repairer(s, i, schema);
+                String json = repairer.run();
+                if (json != null)
+                {
+                    if (repairer.repairs > 0)
+                    {
+                        log.info("LLM 答案 JSON 已自动修复 {} 处", repairer.repairs);
+                    }
+                    if (!repairer.empty)
+                    {
+                        return json;
+                    }
+                    // 空对象可能来自说明文字里的 {}，继续寻找下一个候选
+                    if (fallback == null)
+                    {
+                        fallback = json;
+                    }
+                    i = Math.max(i + 1, repairer.pos);
+                    continue;
+                }
+            }
+            i++;
+        }
+        return fallback;
+    }
+
+    /**
+     * 单个候选位置上的扫描与修复
+     */
+    private static final class Repairer
+    {
+        private static final int AWAIT_KEY = 0;
+
+        private static final int AWAIT_COLON = 1;
+
+        private static final int AWAIT_VALUE = 2;
+
+        private final String s;
+
+        private final LlmJsonSchema schema;
+
+        private final StringBuilder out = new StringBuilder();
+
+        private final Deque<Frame> stack = new ArrayDeque<>();
+
+        private int pos;
+
+        private int repairs;
+
+        private boolean empty;
+
+        Repairer(String s, int start, LlmJsonSchema schema)
+        {
+            this.s = s;
+            this.pos = start;
+            this.schema = schema;
+        }
+
+        /**
+         * @return 修复后的 JSON，结构无法识别时返回 null
+         */
+        String run()
+        {
+            int n = s.length();
+            while (pos < n)
+            {
+                char c = s.charAt(pos);
+                Frame f = stack.peek();
+                if (Character.isWhitespace(c))
+                {
+                    pos++;
+                    continue;
+                }
+                switch (c)
+                {
+                    case '{':
+                    case '[':
+                        if (f != null && !prepareValue(f))
+                        {
+                            return null;
+                        }
+                        out.append(c);
+                        stack.push(new Frame(c == '{', out.length()));
+                        pos++;
+                        break;
+                    case '}':
+                    case ']':
+                        if (f == null)
+                        {
+                            return null;
+                        }
+                        close(f);
+                        pos++;
+                        if (stack.isEmpty())
+                        {
+                            return finish();
+                        }
+                        break;
+                    case ',':
+                        if (f == null)
+                        {
+                            return null;
+                        }
+                        if (f.object && f.state == AWAIT_VALUE)
+                        {
+                            out.append("null");
+                            repairs++;
+                            completeValue(f);
+                        }
+                        else if (f.object && f.state == AWAIT_COLON)
+                        {
+                            dropDanglingKey(f);
+                        }
+                        f.commaSeen = true;
+                        pos++;
+                        break;
+                    case ':':
+                        if (f == null || !f.object || f.state != AWAIT_COLON)
+                        {
+                            return null;
+                        }
+                        out.append(':');
+                        f.state = AWAIT_VALUE;
+                        pos++;
+                        break;
+                    case '"':
+                    case '\'':
+                        if (f == null)
+                        {
+                            return null;
+                        }
+                        boolean closed = readString(c);
+                        if (f.object && f.state == AWAIT_KEY)
+                        {
+                            beginMember(f);
+                            out.append(quote(token));
+                            f.key = token;
+                            f.state = AWAIT_COLON;
+                        }
+                        else
+                        {
+                            if (!prepareValue(f))
+                            {
+                                return null;
+                            }
+                            out.append(stringValue(token, f));
+                            if (!closed)
+                            {
+                                repairs++;
+                            }
+                            completeValue(f);
+                        }
+                        break;
+                    default:
+                        if (f == null)
+                        {
+                            return null;
+                        }
+                        readBare();
+                        if (token.isEmpty())
+                        {
+                            // 夹在 JSON 中的代码块标记，直接丢弃
+                            repairs++;
+                            break;
+                        }
+                        if (f.object && f.state == AWAIT_KEY)
+                        {
+                            beginMember(f);
+                            out.append(quote(token));
+                            f.key = token;
+                            f.state = AWAIT_COLON;
+                            repairs++;
+                        }
+                        else
+                        {
+                            if (!prepareValue(f))
+                            {
+                                return null;
+                            }
+                            if (f.object && schema != null && schema.isNumeric(f.key))
+                            {
+                                joinGroups();
+                            }
+                            out.append(bareValue(token, f));
+                            completeValue(f);
+                        }
+                        break;
+                }
+            }
+            if (stack.isEmpty())
+            {
+                return out.length() > 0 ? finish() : null;
+            }
+            closeTruncated();
+            return finish();
+        }
+
+        private String finish()
+        {
+            empty = out.length() <= 2;
+            return out.toString();
+        }
+
+        /**
+         * 值开始前的处理：对象缺冒号时补冒号，数组缺逗号时补逗号
+         */
+        private boolean prepareValue(Frame f)
+        {
+            if (f.object)
+            {
+                if (f.state == AWAIT_KEY)
+                {
+                    return false;
+                }
+                if (f.state == AWAIT_COLON)
+                {
+                    out.append(':');
+                    f.state = AWAIT_VALUE;
+                    repairs++;
+                }
+                return true;
+            }
+            beginMember(f);
+            return true;
+        }
+
+        private void beginMember(Frame f)
+        {
+            if (f.count > 0)
+            {
+                out.append(',');
+                if (!f.commaSeen)
+                {
+                    repairs++;
+                }
+            }
+            f.commaSeen = false;
+        }
+
+        private void completeValue(Frame f)
+        {
+            f.count++;
+            f.lastComplete = out.length();
+            f.state = AWAIT_KEY;
+            f.key = null;
+        }
+
+        private void dropDanglingKey(Frame f)
+        {
+            out.setLength(f.lastComplete);
+            f.state = AWAIT_KEY;
+            f.key = null;
+            repairs++;
+        }
+
+        private void close(Frame f)
+        {
+            if (f.object && f.state == AWAIT_VALUE)
+            {
+                out.append("null");
+                repairs++;
+                completeValue(f);
+            }
+            else if (f.object && f.state == AWAIT_COLON)
+            {
+                dropDanglingKey(f);
+            }
+            if (f.commaSeen)
+            {
+                repairs++;
+            }
+            out.append(f.object ? '}' : ']');
+            stack.pop();
+            Frame parent = stack.peek();
+            if (parent != null)
+            {
+                completeValue(parent);
+            }
+        }
+
+        /**
+         * 答案被截断：回退到最内层数组的最后一个完整元素（没有数组时回退到对象的最后一个完整成员），再补全括号
+         */
+        private void closeTruncated()
+        {
+            repairs++;
+            Frame target = stack.peek();
+            if (target.object)
+            {
+                Iterator<Frame> it = stack.iterator();
+                it.next();
+                while (it.hasNext())
+                {
+                    Frame f = it.next();
+                    if (!f.object)
+                    {
+                        target = f;
+                        break;
+                    }
+                }
+            }
+            while (stack.peek() != target)
+            {
+                stack.pop();
+            }
+            out.setLength(target.lastComplete);
+            while (!stack.isEmpty())
+            {
+                out.append(stack.pop().object ? '}' : ']');
+            }
+        }
+
+        /** 最近一次读取的字符串内容或裸词 */
+        private String token;
+
+        /**
+         * 读取字符串（pos 指向起始引号），结果放在 token 中
+         *
+         * @return 是否遇到了结束引号
+         */
+        private boolean readString(char quote)
+        {
+            StringBuilder sb = new StringBuilder();
+            int n = s.length();
+            pos++;
+            while (pos < n)
+            {
+                char c = s.charAt(pos++);
+                if (c == quote)
+                {
+                    token = sb.toString();
+                    return true;
+                }
+                if (c == '\\' && pos < n)
+                {
+                    char e = s.charAt(pos++);
+                    switch (e)
+                    {
+                        case 'n':
+                            sb.append('\n');
+                            break;
+                        case 't':
+                            sb.append('\t');
+                            break;
+                        case 'r':
+                            sb.append('\r');
+                            break;
+                        case 'b':
+                            sb.append('\b');
+                            break;
+                        case 'f':
+                            sb.append('\f');
+                            break;
+                        case 'u':
+                            if (pos + 4 <= n && isHex(s, pos, 4))
+                            {
+                                sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                                pos += 4;
+                            }
+                            else
+                            {
+                                sb.append('u');
+                            }
+                            break;
+                        default:
+                            sb.append(e);
+                            break;
+                    }
+                }
+                else
+                {
+                    sb.append(c);
+                }
+            }
+            token = sb.toString();
+            return false;
+        }
+
+        /**
+         * 读取未加引号的裸词（至少消费一个字符），直到分隔符或换行，结果放在 token 中
+         */
+        private void readBare()
+        {
+            int n = s.length();
+            int start = pos;
+            while (pos < n)
+            {
+                char c = s.charAt(pos);
+                if (c == ',' || c == ':' || c == '}' || c == ']' || c == '{' || c == '[' || c == '"' || c == '\n' || c == '\r')
+                {
+                    break;
+                }
+                pos++;
+            }
+            String raw = s.substring(start, pos).trim();
+            int b = 0;
+            int e = raw.length();
+            while (b < e && raw.charAt(b) == '`')
+            {
+                b++;
+            }
+            while (e > b && raw.charAt(e - 1) == '`')
+            {
+                e--;
+            }
+            token = raw.substring(b, e).trim();
+        }
+
+        /**
+         * 数值字段中未加引号的千分位数字（如 27,000.5）被逗号拆成了几段：紧跟的 ",ddd" 后面若是成员结尾，
+         * 就不可能是下一个成员（对象成员必须有键和冒号），并入当前数字
+         */
+        private void joinGroups()
+        {
+            if (!GROUP_LEAD.matcher(token).matches())
+            {
+                return;
+            }
+            Matcher m = GROUP_NEXT.matcher(s);
+            int at = pos;
+            while (m.region(at, s.length()).lookingAt() && isMemberEnd(m.end()))
+            {
+                at = m.end();
+                if (m.group(1) != null || s.charAt(at - 1) == '%')
+                {
+                    break;
+                }
+            }
+            if (at > pos)
+            {
+                token = token + s.substring(pos, at);
+                pos = at;
+            }
+        }
+
+        private boolean isMemberEnd(int i)
+        {
+            int n = s.length();
+            while (i < n && (s.charAt(i) == ' ' || s.charAt(i) == '\t'))
+            {
+                i++;
+            }
+            if (i >= n)
+            {
+                return true;
+            }
+            char c = s.charAt(i);
+            return c == ',' || c == '}' || c == ']' || c == '\n' || c == '\r';
+        }
+
+        private String stringValue(String value, Frame f)
+        {
+            if (schema != null && schema.isNumeric(f.key))
+            {
+                String num = toNumber(value);
+                if (num == null)
+                {
+                    repairs++;
+                    return "null";
+                }
+                repairs++;
+                return num;
+            }
+            return quote(value);
+        }
+
+        private String bareValue(String value, Frame f)
+        {
+            String lower = value.toLowerCase();
+            if ("true".equals(lower) || "false".equals(lower) || "null".equals(lower))
+            {
+                if (!lower.equals(value))
+                {
+                    repairs++;
+                }
+                return lower;
+            }
+            String num = toNumber(value);
+            if (num != null)
+            {
+                if (!num.equals(value))
+                {
+                    repairs++;
+                }
+                return num;
+            }
+            repairs++;
+            if ("none".equals(lower) || "nan".equals(lower) || "undefined".equals(lower)
+                    || (schema != null && schema.isNumeric(f.key)))
+            {
+                return "null";
+            }
+            return quote(value);
+        }
+
+        private static boolean isHex(String s, int from, int len)
+        {
+            for (int i = from; i < from + len; i++)
+            {
+                if (Character.digit(s.charAt(i), 16) < 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 单个对象或数组的扫描状态
+     */
+    private static final class Frame
+    {
+        private final boolean object;
+
+        /** 已完成的成员数 */
+        private int count;
+
+        /** 最后一个完整成员结束时的输出长度 */
+        private int lastComplete;
+
+        private int state;
+
+        /** 当前成员的键 */
+        private String key;
+
+        /** 上一个成员之后是否出现过逗号 */
+        private boolean commaSeen;
+
+        Frame(boolean object, int lastComplete)
+        {
+            this.object = object;
+            this.lastComplete = lastComplete;
+        }
+    }
+
+    /**
+     * 将 "$27,000"、"+5.2%"、"1.5e3" 之类的文字转为 JSON 数字，无法转换时返回 null
+     */
+    static String toNumber(String value)
+    {
+        if (value == null)
+        {
+            return null;
+        }
+        String v = value.trim();
+        if (v.startsWith("$") || v.startsWith("¥"))
+        {
+            v = v.substring(1).trim();
+        }
+        if (v.endsWith("%"))
+        {
+            v = v.substring(0, v.length() - 1).trim();
+        }
+        if (v.startsWith("+"))
+        {
+            v = v.substring(1);
+        }
+        v = v.replace(",", "").replace("_", "");
+        if (v.isEmpty())
+        {
+            return null;
+        }
+        for (int i = 0; i < v.length(); i++)
+        {
+            char c = v.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '.' && c != '-' && c != 'e' && c != 'E' && c != '+')
+            {
+                return null;
+            }
+        }
+        if (JSON_NUMBER.matcher(v).matches())
+        {
+            return v;
+        }
+        try
+        {
+            return new BigDecimal(v).toString();
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * 按 JSON 规则转义字符串
+     */
+    static String quote(String value)
+    {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    }
+                    else
+                    {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
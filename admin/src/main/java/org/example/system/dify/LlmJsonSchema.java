@@ -0,0 +1,68 @@
+package org.example.system.dify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 期望的 LLM 答案 JSON 结构（供 LlmJsonExtractor 修复时参考）
+ *
+ * 只描述两件事：根节点是对象还是数组，以及哪些字段应当是数字（任意层级按字段名匹配）。
+ */
+public final class LlmJsonSchema
+{
+    /** 新闻答案结构：{"币种": [{"summary": ..., "influence_score": 数字}]} */
+    public static final LlmJsonSchema NEWS = object("influence_score");
+
+    /** 行情答案结构：根节点为对象，数值字段兼容下划线与驼峰两种写法 */
+    public static final LlmJsonSchema METRICS = object(
+            "price_usd", "market_cap", "hash_rate", "24h_change", "total_fees_btc", "block_count", "ath_price",
+            "priceUsd", "marketCap", "hashRate", "change24h", "totalFeesBtc", "blockCount", "athPrice");
+
+    /** 投资建议答案结构：{"advice": ..., "actions": [{"amount": 数字, "price": 数字}]} */
+    public static final LlmJsonSchema REPORT = object("amount", "price");
+
+    private final char root;
+
+    private final Set<String> numericFields;
+
+    private LlmJsonSchema(char root, String... numericFields)
+    {
+        this.root = root;
+        this.numericFields = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(numericFields)));
+    }
+
+    /**
+     * 根节点为对象
+     *
+     * @param numericFields 数值字段名
+     */
+    public static LlmJsonSchema object(String... numericFields)
+    {
+        return new LlmJsonSchema('{', numericFields);
+    }
+
+    /**
+     * 根节点为数组
+     *
+     * @param numericFields 数值字段名
+     */
+    public static LlmJsonSchema array(String... numericFields)
+    {
+        return new LlmJsonSchema('[', numericFields);
+    }
+
+    /**
+     * 根节点的起始字符，'{' 或 '['
+     */
+    public char getRoot()
+    {
+        return root;
+    }
+
+    public boolean isNumeric(String field)
+    {
+        return field != null && numericFields.contains(field);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.system.dify;
+
+/**
+ * 流式去除 &lt;think&gt;...&lt;/think&gt; 推理内容
+ *
+ * 标签可能被切分在两个片段之间，因此只缓存"可能是标签前缀"的尾部字符，
+ * 推理内容本身直接丢弃，内存占用与答案长度无关。非线程安全，每次请求一个实例。
+ */
+public class ThinkTagFilter
+{
+    private static final String OPEN_TAG = "<think>";
+
+    private static final String CLOSE_TAG = "</think>";
+
+    /** 当前是否处于 think 块内 */
+    private boolean inThink;
+
+    /** 尚未确定是否属于标签的尾部字符 */
+    private final StringBuilder pending = new StringBuilder();
+
+    /**
+     * 接收一个片段，返回可以输出的正文部分
+     *
+     * @param chunk 原始片段
+     * @return 去除 think 内容后的正文
+     */
+    public String accept(String chunk)
+    {
+        if (chunk == null || chunk.isEmpty())
+        {
+            return "";
+        }
+        pending.append(chunk);
+        StringBuilder out = new StringBuilder(chunk.length());
+        while (true)
+        {
+            String tag = inThink ? CLOSE_TAG : OPEN_TAG;
+            int idx = pending.indexOf(tag);
+            if (idx >= 0)
+            {
+                if (!inThink)
+                {
+                    out.append(pending, 0, idx);
+                }
+                pending.delete(0, idx + tag.length());
+                inThink = !inThink;
+                continue;
+            }
+            int emit = pending.length() - partialTagLength(pending, tag);
+            if (!inThink)
+            {
+                out.append(pending, 0, emit);
+            }
+            pending.delete(0, emit);
+            return out.toString();
+        }
+    }
+
+    /**
+     * 流结束时输出剩余的正文（未闭合的 think 块整体丢弃）
+     */
+    public String flush()
+    {
+        String rest = inThink ? "" : pending.toString();
+        pending.setLength(0);
+        return rest;
+    }
+
+    /**
+     * 重置状态（Dify message_replace 事件时使用）
+     */
+    public void reset()
+    {
+        inThink = false;
+        pending.setLength(0);
+    }
+
+    /**
+     * 计算文本尾部与标签前缀重合的最大长度
+     */
+    private static int partialTagLength(CharSequence text, String tag)
+    {
+        int max = Math.min(tag.length() - 1, text.length());
+        for (int len = max; len > 0; len--)
+        {
+            boolean match = true;
+            int offset = text.length() - len;
+            for (int i = 0; i < len; i++)
+            {
+                if (text.charAt(offset + i) != tag.charAt(i))
+                {
+                    match = false;
+                    break;
+                }
+            }
+            if (match)
+            {
+                return len;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.system.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.example.common.core.annotation.Excel;
+import org.example.common.core.web.domain.BaseEntity;
+
+/**
+ * 币种登记对象 biz_coin_registry
+ */
+public class BizCoinRegistry extends BaseEntity
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 采集行情 */
+    public static final String TRACKED = "1";
+
+    /** 稳定币 */
+    public static final String STABLECOIN = "1";
+
+    /** 主键ID */
+    private Long id;
+
+    /** 币种符号 */
+    @Excel(name = "币种符号")
+    private String symbol;
+
+    /** 中文名称 */
+    @Excel(name = "中文名称")
+    private String name;
+
+    /** 别名（逗号分隔） */
+    @Excel(name = "别名")
+    private String aliases;
+
+    /** 是否采集行情（1是 0否） */
+    @Excel(name = "是否采集", readConverterExp = "1=是,0=否")
+    private String tracked;
+
+    /** 是否稳定币（1是 0否），稳定币价格为 0 时不视为无效数据 */
+    @Excel(name = "稳定币", readConverterExp = "1=是,0=否")
+    private String stablecoin;
+
+    /** 显示顺序（同时决定提示词中的顺序） */
+    @Excel(name = "显示顺序")
+    private Integer sortOrder;
+
+    public void setId(Long id) { this.id = id; }
+    public Long getId() { return id; }
+
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+    public String getSymbol() { return symbol; }
+
+    public void setName(String name) { this.name = name; }
+    public String getName() { return name; }
+
+    public void setAliases(String aliases) { this.aliases = aliases; }
+    public String getAliases() { return aliases; }
+
+    public void setTracked(String tracked) { this.tracked = tracked; }
+    public String getTracked() { return tracked; }
+
+    public void setStablecoin(String stablecoin) { this.stablecoin = stablecoin; }
+    public String getStablecoin() { return stablecoin; }
+
+    public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
+    public Integer getSortOrder() { return sortOrder; }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this,ToStringStyle.MULTI_LINE_STYLE)
+                .append("id", getId())
+                .append("symbol", getSymbol())
+                .append("name", getName())
+                .append("aliases", getAliases())
+                .append("tracked", getTracked())
+                .append("stablecoin", getStablecoin())
+                .append("sortOrder", getSortOrder())
+                .append("createBy", getCreateBy())
+                .append("createTime", getCreateTime())
+                .append("updateBy", getUpdateBy())
+                .append("updateTime", getUpdateTime())
+                .append("remark", getRemark())
+                .toString();
+    }
+}
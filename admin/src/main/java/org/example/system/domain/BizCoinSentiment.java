@@ -0,0 +1,129 @@
+package org.example.system.domain;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * 币种情绪指数 biz_coin_sentiment（每个币种每个时间窗口一行）
+ */
+public class BizCoinSentiment
+{
+    /** 币种（标准符号） */
+    private String coin;
+
+    /** 时间窗口（小时）：1 / 24 / 168 */
+    private Integer windowHours;
+
+    /** 窗口内消息数 */
+    private Integer messageCount;
+
+    /** 利好消息数 */
+    private Integer positiveCount;
+
+    /** 利空消息数 */
+    private Integer negativeCount;
+
+    /** 影响分数之和（-2 ~ 2 逐条累加） */
+    private Integer impactSum;
+
+    /** 影响分数绝对值之和 */
+    private Integer absImpactSum;
+
+    /** 时间衰减后的情绪分（-2 ~ 2，越新的消息权重越大） */
+    private BigDecimal score;
+
+    /** 计算时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date updateTime;
+
+    public String getCoin()
+    {
+        return coin;
+    }
+
+    public void setCoin(String coin)
+    {
+        this.coin = coin;
+    }
+
+    public Integer getWindowHours()
+    {
+        return windowHours;
+    }
+
+    public void setWindowHours(Integer windowHours)
+    {
+        this.windowHours = windowHours;
+    }
+
+    public Integer getMessageCount()
+    {
+        return messageCount;
+    }
+
+    public void setMessageCount(Integer messageCount)
+    {
+        this.messageCount = messageCount;
+    }
+
+    public Integer getPositiveCount()
+    {
+        return positiveCount;
+    }
+
+    public void setPositiveCount(Integer positiveCount)
+    {
+        this.positiveCount = positiveCount;
+    }
+
+    public Integer getNegativeCount()
+    {
+        return negativeCount;
+    }
+
+    public void setNegativeCount(Integer negativeCount)
+    {
+        this.negativeCount = negativeCount;
+    }
+
+    public Integer getImpactSum()
+    {
+        return impactSum;
+    }
+
+    public void setImpactSum(Integer impactSum)
+    {
+        this.impactSum = impactSum;
+    }
+
+    public Integer getAbsImpactSum()
+    {
+        return absImpactSum;
+    }
+
+    public void setAbsImpactSum(Integer absImpactSum)
+    {
+        this.absImpactSum = absImpactSum;
+    }
+
+    public BigDecimal getScore()
+    {
+        return score;
+    }
+
+    public void setScore(BigDecimal score)
+    {
+        this.score = score;
+    }
+
+    public Date getUpdateTime()
+    {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime)
+    {
+        this.updateTime = updateTime;
+    }
+}
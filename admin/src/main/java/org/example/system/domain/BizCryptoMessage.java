@@ -60,6 +60,12 @@ public class BizCryptoMessage extends BaseEntity
     @Excel(name = "发布时间", width = 30, dateFormat = "yyyy-MM-dd HH:mm:ss")
     private Date publishTime;
 
+    /** 归一化内容的 SHA-256（去重用） */
+    private String contentHash;
+
+    /** 归一化内容的 SimHash（近似去重用） */
+    private Long simhash;
+
     public void setId(Long id) { this.id = id; }
     public Long getId() { return id; }
 
@@ -84,6 +90,12 @@ public class BizCryptoMessage extends BaseEntity
     public void setPublishTime(Date publishTime) { this.publishTime = publishTime; }
     public Date getPublishTime() { return publishTime; }
 
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getContentHash() { return contentHash; }
+
+    public void setSimhash(Long simhash) { this.simhash = simhash; }
+    public Long getSimhash() { return simhash; }
+
 
 
     @Override
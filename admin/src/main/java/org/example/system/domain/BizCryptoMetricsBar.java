@@ -0,0 +1,145 @@
+package org.example.system.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * 行情K线（原始快照 / 小时 / 日聚合）
+ */
+public class BizCryptoMetricsBar implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** 原始快照 */
+    public static final String INTERVAL_RAW = "raw";
+
+    /** 小时聚合 */
+    public static final String INTERVAL_HOUR = "hour";
+
+    /** 日聚合 */
+    public static final String INTERVAL_DAY = "day";
+
+    private String symbol;
+
+    private String name;
+
+    /** 时间桶起点（原始快照即快照时间） */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date bucketTime;
+
+    private BigDecimal openPrice;
+
+    private BigDecimal highPrice;
+
+    private BigDecimal lowPrice;
+
+    private BigDecimal closePrice;
+
+    /** 桶内最后一次快照的市值 */
+    private BigDecimal marketCap;
+
+    /** 桶内最后一次快照的24h涨跌幅 */
+    private BigDecimal change24h;
+
+    /** 桶内快照数量 */
+    private Integer sampleCount;
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Date getBucketTime() {
+        return bucketTime;
+    }
+
+    public void setBucketTime(Date bucketTime) {
+        this.bucketTime = bucketTime;
+    }
+
+    public BigDecimal getOpenPrice() {
+        return openPrice;
+    }
+
+    public void setOpenPrice(BigDecimal openPrice) {
+        this.openPrice = openPrice;
+    }
+
+    public BigDecimal getHighPrice() {
+        return highPrice;
+    }
+
+    public void setHighPrice(BigDecimal highPrice) {
+        this.highPrice = highPrice;
+    }
+
+    public BigDecimal getLowPrice() {
+        return lowPrice;
+    }
+
+    public void setLowPrice(BigDecimal lowPrice) {
+        this.lowPrice = lowPrice;
+    }
+
+    public BigDecimal getClosePrice() {
+        return closePrice;
+    }
+
+    public void setClosePrice(BigDecimal closePrice) {
+        this.closePrice = closePrice;
+    }
+
+    public BigDecimal getMarketCap() {
+        return marketCap;
+    }
+
+    public void setMarketCap(BigDecimal marketCap) {
+        this.marketCap = marketCap;
+    }
+
+    public BigDecimal getChange24h() {
+        return change24h;
+    }
+
+    public void setChange24h(BigDecimal change24h) {
+        this.change24h = change24h;
+    }
+
+    public Integer getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(Integer sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.MULTI_LINE_STYLE)
+                .append("symbol", getSymbol())
+                .append("name", getName())
+                .append("bucketTime", getBucketTime())
+                .append("openPrice", getOpenPrice())
+                .append("highPrice", getHighPrice())
+                .append("lowPrice", getLowPrice())
+                .append("closePrice", getClosePrice())
+                .append("marketCap", getMarketCap())
+                .append("change24h", getChange24h())
+                .append("sampleCount", getSampleCount())
+                .toString();
+    }
+}
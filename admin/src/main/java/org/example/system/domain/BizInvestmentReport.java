@@ -14,6 +14,21 @@ public class BizInvestmentReport extends BaseEntity
 {
     private static final long serialVersionUID = 1L;
 
+    /** 审核状态：待审核 */
+    public static final String STATUS_PENDING = "0";
+
+    /** 审核状态：已通过 */
+    public static final String STATUS_APPROVED = "1";
+
+    /** 审核状态：已驳回 */
+    public static final String STATUS_REJECTED = "2";
+
+    /** 审核状态：生成中（流式生成的草稿） */
+    public static final String STATUS_GENERATING = "3";
+
+    /** 审核状态：生成失败（流式生成中断，只保留了部分内容，不可审核通过） */
+    public static final String STATUS_FAILED = "4";
+
     /** 主键ID */
     private Long id;
 
@@ -30,7 +45,7 @@ public class BizInvestmentReport extends BaseEntity
     private String adviceContent;
 
     /** 审核状态 */
-    @Excel(name = "审核状态", readConverterExp = "0=待审核,1=已通过,2=已驳回")
+    @Excel(name = "审核状态", readConverterExp = "0=待审核,1=已通过,2=已驳回,3=生成中")
     private String status;
 
     /** 审核人 */
@@ -0,0 +1,146 @@
+package org.example.system.domain;
+
+import java.util.Date;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.example.common.core.web.domain.BaseEntity;
+
+/**
+ * 报告生成任务对象 biz_report_job
+ */
+public class BizReportJob extends BaseEntity
+{
+    private static final long serialVersionUID = 1L;
+
+    /** 单条新闻报告 */
+    public static final String TYPE_MESSAGE = "MESSAGE";
+
+    /** 汇总报告 */
+    public static final String TYPE_SUMMARY = "SUMMARY";
+
+    /** 排队中 */
+    public static final String STATUS_PENDING = "0";
+
+    /** 执行中 */
+    public static final String STATUS_RUNNING = "1";
+
+    /** 已完成 */
+    public static final String STATUS_SUCCESS = "2";
+
+    /** 失败 */
+    public static final String STATUS_FAILED = "3";
+
+    /** 已取消 */
+    public static final String STATUS_CANCELLED = "4";
+
+    /** 任务ID */
+    private Long id;
+
+    /** 任务类型（MESSAGE / SUMMARY） */
+    private String jobType;
+
+    /** 关联消息ID（单条新闻报告） */
+    private Long messageId;
+
+    /** 是否跳过 AI 答案缓存（1是 0否） */
+    private String refresh;
+
+    /** 状态（0排队 1执行中 2完成 3失败 4取消） */
+    private String status;
+
+    /** 进度（0-100） */
+    private Integer progress;
+
+    /** 当前阶段 */
+    private String stage;
+
+    /** 生成的报告ID */
+    private Long reportId;
+
+    /** 错误信息 */
+    private String errorMsg;
+
+    /** 已执行次数（重启后恢复执行会累加） */
+    private Integer attempts;
+
+    /** 开始执行时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date startTime;
+
+    /** 结束时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date finishTime;
+
+    /** 执行节点 */
+    private String ownerNode;
+
+    /** 执行节点最后一次心跳时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date heartbeatTime;
+
+    public boolean isFinished()
+    {
+        return STATUS_SUCCESS.equals(status) || STATUS_FAILED.equals(status) || STATUS_CANCELLED.equals(status);
+    }
+
+    public void setId(Long id) { this.id = id; }
+    public Long getId() { return id; }
+
+    public void setJobType(String jobType) { this.jobType = jobType; }
+    public String getJobType() { return jobType; }
+
+    public void setMessageId(Long messageId) { this.messageId = messageId; }
+    public Long getMessageId() { return messageId; }
+
+    public void setRefresh(String refresh) { this.refresh = refresh; }
+    public String getRefresh() { return refresh; }
+
+    public void setStatus(String status) { this.status = status; }
+    public String getStatus() { return status; }
+
+    public void setProgress(Integer progress) { this.progress = progress; }
+    public Integer getProgress() { return progress; }
+
+    public void setStage(String stage) { this.stage = stage; }
+    public String getStage() { return stage; }
+
+    public void setReportId(Long reportId) { this.reportId = reportId; }
+    public Long getReportId() { return reportId; }
+
+    public void setErrorMsg(String errorMsg) { this.errorMsg = errorMsg; }
+    public String getErrorMsg() { return errorMsg; }
+
+    public void setAttempts(Integer attempts) { this.attempts = attempts; }
+    public Integer getAttempts() { return attempts; }
+
+    public void setStartTime(Date startTime) { this.startTime = startTime; }
+    public Date getStartTime() { return startTime; }
+
+    public void setFinishTime(Date finishTime) { this.finishTime = finishTime; }
+    public Date getFinishTime() { return finishTime; }
+    public void setOwnerNode(String ownerNode) { this.ownerNode = ownerNode; }
+    public String getOwnerNode() { return ownerNode; }
+    public void setHeartbeatTime(Date heartbeatTime) { this.heartbeatTime = heartbeatTime; }
+    public Date getHeartbeatTime() { return heartbeatTime; }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this,ToStringStyle.MULTI_LINE_STYLE)
+                .append("id", getId())
+                .append("jobType", getJobType())
+                .append("messageId", getMessageId())
+                .append("status", getStatus())
+                .append("progress", getProgress())
+                .append("stage", getStage())
+                .append("reportId", getReportId())
+                .append("errorMsg", getErrorMsg())
+                .append("attempts", getAttempts())
+                .append("createTime", getCreateTime())
+                .append("startTime", getStartTime())
+                .append("finishTime", getFinishTime())
+                .append("ownerNode", getOwnerNode())
+                .append("heartbeatTime", getHeartbeatTime())
+                .toString();
+    }
+}
@@ -0,0 +1,165 @@
+package org.example.system.domain.vo;
+
+import java.math.BigDecimal;
+
+/**
+ * 组合估值中的单个持仓
+ */
+public class PortfolioPosition
+{
+    /** 持仓ID */
+    private Long id;
+
+    /** 币种（持仓记录中的写法） */
+    private String coin;
+
+    /** 标准符号 */
+    private String symbol;
+
+    /** 持有数量 */
+    private BigDecimal amount;
+
+    /** 平均持仓成本 */
+    private BigDecimal costPrice;
+
+    /** 当前市场价格，无行情时为 null */
+    private BigDecimal currentPrice;
+
+    /** 24h 涨跌幅 */
+    private BigDecimal change24h;
+
+    /** 当前估值(USDT) */
+    private BigDecimal value;
+
+    /** 持仓成本(USDT) */
+    private BigDecimal cost;
+
+    /** 浮动盈亏(USDT) */
+    private BigDecimal unrealizedPnl;
+
+    /** 浮动盈亏比例(%) */
+    private BigDecimal pnlPercent;
+
+    /** 占组合估值比例(%) */
+    private BigDecimal allocationPercent;
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+    public String getCoin()
+    {
+        return coin;
+    }
+
+    public void setCoin(String coin)
+    {
+        this.coin = coin;
+    }
+
+    public String getSymbol()
+    {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol)
+    {
+        this.symbol = symbol;
+    }
+
+    public BigDecimal getAmount()
+    {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount)
+    {
+        this.amount = amount;
+    }
+
+    public BigDecimal getCostPrice()
+    {
+        return costPrice;
+    }
+
+    public void setCostPrice(BigDecimal costPrice)
+    {
+        this.costPrice = costPrice;
+    }
+
+    public BigDecimal getCurrentPrice()
+    {
+        return currentPrice;
+    }
+
+    public void setCurrentPrice(BigDecimal currentPrice)
+    {
+        this.currentPrice = currentPrice;
+    }
+
+    public BigDecimal getChange24h()
+    {
+        return change24h;
+    }
+
+    public void setChange24h(BigDecimal change24h)
+    {
+        this.change24h = change24h;
+    }
+
+    public BigDecimal getValue()
+    {
+        return value;
+    }
+
+    public void setValue(BigDecimal value)
+    {
+        this.value = value;
+    }
+
+    public BigDecimal getCost()
+    {
+        return cost;
+    }
+
+    public void setCost(BigDecimal cost)
+    {
+        this.cost = cost;
+    }
+
+    public BigDecimal getUnrealizedPnl()
+    {
+        return unrealizedPnl;
+    }
+
+    public void setUnrealizedPnl(BigDecimal unrealizedPnl)
+    {
+        this.unrealizedPnl = unrealizedPnl;
+    }
+
+    public BigDecimal getPnlPercent()
+    {
+        return pnlPercent;
+    }
+
+    public void setPnlPercent(BigDecimal pnlPercent)
+    {
+        this.pnlPercent = pnlPercent;
+    }
+
+    public BigDecimal getAllocationPercent()
+    {
+        return allocationPercent;
+    }
+
+    public void setAllocationPercent(BigDecimal allocationPercent)
+    {
+        this.allocationPercent = allocationPercent;
+    }
+}
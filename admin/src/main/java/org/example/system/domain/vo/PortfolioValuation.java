@@ -0,0 +1,91 @@
+package org.example.system.domain.vo;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * 组合估值（总值、成本、浮动盈亏与各持仓占比）
+ */
+public class PortfolioValuation
+{
+    /** 组合估值(USDT) */
+    private BigDecimal totalValue;
+
+    /** 组合成本(USDT) */
+    private BigDecimal totalCost;
+
+    /** 浮动盈亏(USDT) */
+    private BigDecimal unrealizedPnl;
+
+    /** 浮动盈亏比例(%) */
+    private BigDecimal pnlPercent;
+
+    /** 估值所用行情的加载时间 */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date priceTime;
+
+    /** 各持仓，按估值从高到低 */
+    private List<PortfolioPosition> positions;
+
+    public BigDecimal getTotalValue()
+    {
+        return totalValue;
+    }
+
+    public void setTotalValue(BigDecimal totalValue)
+    {
+        this.totalValue = totalValue;
+    }
+
+    public BigDecimal getTotalCost()
+    {
+        return totalCost;
+    }
+
+    public void setTotalCost(BigDecimal totalCost)
+    {
+        this.totalCost = totalCost;
+    }
+
+    public BigDecimal getUnrealizedPnl()
+    {
+        return unrealizedPnl;
+    }
+
+    public void setUnrealizedPnl(BigDecimal unrealizedPnl)
+    {
+        this.unrealizedPnl = unrealizedPnl;
+    }
+
+    public BigDecimal getPnlPercent()
+    {
+        return pnlPercent;
+    }
+
+    public void setPnlPercent(BigDecimal pnlPercent)
+    {
+        this.pnlPercent = pnlPercent;
+    }
+
+    public Date getPriceTime()
+    {
+        return priceTime;
+    }
+
+    public void setPriceTime(Date priceTime)
+    {
+        this.priceTime = priceTime;
+    }
+
+    public List<PortfolioPosition> getPositions()
+    {
+        return positions;
+    }
+
+    public void setPositions(List<PortfolioPosition> positions)
+    {
+        this.positions = positions;
+    }
+}
@@ -1,12 +1,17 @@
 package org.example.system.mapper;
 
+import java.util.Collection;
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 import org.example.system.domain.BizAssetHoldings;
 
 public interface BizAssetHoldingsMapper
 {
     public BizAssetHoldings selectBizAssetHoldingsById(Long id);
     public List<BizAssetHoldings> selectBizAssetHoldingsList(BizAssetHoldings bizAssetHoldings);
+    public List<BizAssetHoldings> selectBizAssetHoldingsForUpdate();
+    public List<BizAssetHoldings> selectBizAssetHoldingsByIdsOrCoins(@Param("ids") Collection<Long> ids, @Param("coins") Collection<String> coins);
+    public int batchUpsertBizAssetHoldings(List<BizAssetHoldings> list);
     public int insertBizAssetHoldings(BizAssetHoldings bizAssetHoldings);
     public int updateBizAssetHoldings(BizAssetHoldings bizAssetHoldings);
     public int deleteBizAssetHoldingsById(Long id);
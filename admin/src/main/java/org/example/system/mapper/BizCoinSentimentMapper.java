@@ -0,0 +1,37 @@
+package org.example.system.mapper;
+
+import java.util.Date;
+import java.util.List;
+import org.apache.ibatis.annotations.*;
+import org.example.system.domain.BizCoinSentiment;
+
+/**
+ * 币种情绪指数
+ */
+@Mapper
+public interface BizCoinSentimentMapper {
+
+    @Select("SELECT coin, window_hours AS windowHours, message_count AS messageCount, positive_count AS positiveCount, " +
+            "negative_count AS negativeCount, impact_sum AS impactSum, abs_impact_sum AS absImpactSum, score, " +
+            "update_time AS updateTime FROM biz_coin_sentiment ORDER BY coin, window_hours")
+    List<BizCoinSentiment> selectAll();
+
+    /**
+     * 按 (币种, 窗口) 批量写入
+     */
+    @Insert("<script>INSERT INTO biz_coin_sentiment (coin, window_hours, message_count, positive_count, negative_count, " +
+            "impact_sum, abs_impact_sum, score, update_time) VALUES " +
+            "<foreach collection='list' item='s' separator=','>" +
+            "(#{s.coin}, #{s.windowHours}, #{s.messageCount}, #{s.positiveCount}, #{s.negativeCount}, " +
+            "#{s.impactSum}, #{s.absImpactSum}, #{s.score}, #{s.updateTime})" +
+            "</foreach> ON DUPLICATE KEY UPDATE message_count = VALUES(message_count), positive_count = VALUES(positive_count), " +
+            "negative_count = VALUES(negative_count), impact_sum = VALUES(impact_sum), abs_impact_sum = VALUES(abs_impact_sum), " +
+            "score = VALUES(score), update_time = VALUES(update_time)</script>")
+    int batchUpsert(@Param("list") List<BizCoinSentiment> list);
+
+    /**
+     * 删除本次未写入的行（窗口内已无消息的币种）
+     */
+    @Delete("DELETE FROM biz_coin_sentiment WHERE update_time < #{time}")
+    int deleteBefore(@Param("time") Date time);
+}
@@ -0,0 +1,26 @@
+package org.example.system.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 采集任务写入防护令牌
+ */
+@Mapper
+public interface BizCollectFenceMapper {
+
+    /**
+     * 任务首次写入时登记令牌（已存在则忽略）
+     *
+     * @return 1 表示已登记，0 表示任务行已存在
+     */
+    @Insert("INSERT IGNORE INTO biz_collect_fence (task_name, fence, update_time) VALUES (#{taskName}, #{fence}, NOW())")
+    int insertIgnore(@Param("taskName") String taskName, @Param("fence") long fence);
+
+    /**
+     * 令牌不小于已写入的令牌时前移令牌并锁定该行（锁到事务提交）
+     *
+     * @return 1 表示允许写入，0 表示已有更新的租约写入过
+     */
+    @Update("UPDATE biz_collect_fence SET fence = #{fence}, update_time = NOW() WHERE task_name = #{taskName} AND fence <= #{fence}")
+    int advance(@Param("taskName") String taskName, @Param("fence") long fence);
+}
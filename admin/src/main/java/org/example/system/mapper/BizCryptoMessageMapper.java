@@ -1,7 +1,9 @@
 package org.example.system.mapper;
 
+import java.util.Date;
 import java.util.List;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Param;
 import org.example.system.domain.BizCryptoMessage;
 
 @org.apache.ibatis.annotations.Mapper
@@ -13,6 +15,43 @@ public interface BizCryptoMessageMapper
 
     public int insertBizCryptoMessage(BizCryptoMessage bizCryptoMessage);
 
+    /**
+     * 批量插入消息（一条多行 INSERT）
+     */
+    public int batchInsertBizCryptoMessage(List<BizCryptoMessage> list);
+
+    /**
+     * 查询指定时间之后每个币种最近的若干条消息（报告上下文）
+     *
+     * @param since 时间窗口起点
+     * @param perCoin 每个币种最多条数
+     * @param limit 总条数上限
+     */
+    public List<BizCryptoMessage> selectRecentMessagesPerCoin(@Param("since") Date since, @Param("perCoin") int perCoin, @Param("limit") int limit);
+
+    /**
+     * 查询指定时间之后入库消息的币种与内容指纹
+     */
+    public List<BizCryptoMessage> selectFingerprintsSince(@Param("since") Date since);
+
+    /**
+     * 按主键顺序查询尚未计算内容指纹的消息（历史数据回填）
+     *
+     * @param afterId 从该主键之后开始
+     * @param limit 条数上限
+     */
+    public List<BizCryptoMessage> selectWithoutFingerprint(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 写入尚未计算的内容指纹
+     */
+    public int updateFingerprint(BizCryptoMessage bizCryptoMessage);
+
+    /**
+     * 查询指定时间之后入库消息的币种、情感与影响分数（情绪指数重建）
+     */
+    public List<BizCryptoMessage> selectSentimentSince(@Param("since") Date since);
+
     public int updateBizCryptoMessage(BizCryptoMessage bizCryptoMessage);
 
     public int deleteBizCryptoMessageById(Long id);
@@ -0,0 +1,112 @@
+package org.example.system.mapper;
+
+import org.apache.ibatis.annotations.*;
+import org.example.system.domain.BizCryptoMetricsBar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 行情历史：小时 / 日 OHLC 聚合与过期数据清理
+ */
+@Mapper
+public interface BizCryptoMetricsHistoryMapper {
+
+    /**
+     * 将 [from, to) 内的原始快照聚合到小时表（可重复执行，已存在的桶会被覆盖）
+     */
+    @Insert("INSERT INTO biz_crypto_metrics_hourly " +
+            "(symbol, bucket_time, name, open_price, high_price, low_price, close_price, market_cap, change_24h, sample_count, update_time) " +
+            "SELECT symbol, bucket_time, MAX(name), " +
+            "MAX(CASE WHEN rn_first = 1 THEN price_usd END), MAX(price_usd), MIN(price_usd), " +
+            "MAX(CASE WHEN rn_last = 1 THEN price_usd END), MAX(CASE WHEN rn_last = 1 THEN market_cap END), " +
+            "MAX(CASE WHEN rn_last = 1 THEN `24h_change` END), COUNT(*), NOW() " +
+            "FROM (" +
+            "  SELECT symbol, name, price_usd, market_cap, `24h_change`, " +
+            "  DATE_FORMAT(snapshot_time, '%Y-%m-%d %H:00:00') AS bucket_time, " +
+            "  ROW_NUMBER() OVER (PARTITION BY symbol, DATE_FORMAT(snapshot_time, '%Y-%m-%d %H') ORDER BY snapshot_time) AS rn_first, " +
+            "  ROW_NUMBER() OVER (PARTITION BY symbol, DATE_FORMAT(snapshot_time, '%Y-%m-%d %H') ORDER BY snapshot_time DESC) AS rn_last " +
+            "  FROM biz_crypto_metrics " +
+            "  WHERE symbol IS NOT NULL AND snapshot_time >= #{from} AND snapshot_time < #{to}" +
+            ") t " +
+            "GROUP BY symbol, bucket_time " +
+            "ON DUPLICATE KEY UPDATE name = VALUES(name), open_price = VALUES(open_price), " +
+            "high_price = VALUES(high_price), low_price = VALUES(low_price), close_price = VALUES(close_price), " +
+            "market_cap = VALUES(market_cap), change_24h = VALUES(change_24h), " +
+            "sample_count = VALUES(sample_count), update_time = VALUES(update_time)")
+    int rollupHourly(@Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * 将 [from, to) 内的小时桶聚合到日表（可重复执行，已存在的桶会被覆盖）
+     */
+    @Insert("INSERT INTO biz_crypto_metrics_daily " +
+            "(symbol, bucket_time, name, open_price, high_price, low_price, close_price, market_cap, change_24h, sample_count, update_time) " +
+            "SELECT symbol, bucket_day, MAX(name), " +
+            "MAX(CASE WHEN rn_first = 1 THEN open_price END), MAX(high_price), MIN(low_price), " +
+            "MAX(CASE WHEN rn_last = 1 THEN close_price END), MAX(CASE WHEN rn_last = 1 THEN market_cap END), " +
+            "MAX(CASE WHEN rn_last = 1 THEN change_24h END), SUM(sample_count), NOW() " +
+            "FROM (" +
+            "  SELECT symbol, name, open_price, high_price, low_price, close_price, market_cap, change_24h, sample_count, " +
+            "  DATE(bucket_time) AS bucket_day, " +
+            "  ROW_NUMBER() OVER (PARTITION BY symbol, DATE(bucket_time) ORDER BY bucket_time) AS rn_first, " +
+            "  ROW_NUMBER() OVER (PARTITION BY symbol, DATE(bucket_time) ORDER BY bucket_time DESC) AS rn_last " +
+            "  FROM biz_crypto_metrics_hourly " +
+            "  WHERE bucket_time >= #{from} AND bucket_time < #{to}" +
+            ") t " +
+            "GROUP BY symbol, bucket_day " +
+            "ON DUPLICATE KEY UPDATE name = VALUES(name), open_price = VALUES(open_price), " +
+            "high_price = VALUES(high_price), low_price = VALUES(low_price), close_price = VALUES(close_price), " +
+            "market_cap = VALUES(market_cap), change_24h = VALUES(change_24h), " +
+            "sample_count = VALUES(sample_count), update_time = VALUES(update_time)")
+    int rollupDaily(@Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * 查询原始快照（走 uk_symbol_snapshot 索引）
+     */
+    @Select("SELECT symbol, name, snapshot_time AS bucketTime, price_usd AS openPrice, price_usd AS highPrice, " +
+            "price_usd AS lowPrice, price_usd AS closePrice, market_cap AS marketCap, `24h_change` AS change24h, " +
+            "1 AS sampleCount " +
+            "FROM biz_crypto_metrics " +
+            "WHERE symbol = #{symbol} AND snapshot_time >= #{beginTime} AND snapshot_time < #{endTime} " +
+            "ORDER BY snapshot_time")
+    List<BizCryptoMetricsBar> selectRawBars(@Param("symbol") String symbol, @Param("beginTime") Date beginTime,
+            @Param("endTime") Date endTime);
+
+    /**
+     * 查询小时K线
+     */
+    @Select("SELECT symbol, name, bucket_time AS bucketTime, open_price AS openPrice, high_price AS highPrice, " +
+            "low_price AS lowPrice, close_price AS closePrice, market_cap AS marketCap, change_24h AS change24h, " +
+            "sample_count AS sampleCount " +
+            "FROM biz_crypto_metrics_hourly " +
+            "WHERE symbol = #{symbol} AND bucket_time >= #{beginTime} AND bucket_time < #{endTime} " +
+            "ORDER BY bucket_time")
+    List<BizCryptoMetricsBar> selectHourlyBars(@Param("symbol") String symbol, @Param("beginTime") Date beginTime,
+            @Param("endTime") Date endTime);
+
+    /**
+     * 查询日K线
+     */
+    @Select("SELECT symbol, name, bucket_time AS bucketTime, open_price AS openPrice, high_price AS highPrice, " +
+            "low_price AS lowPrice, close_price AS closePrice, market_cap AS marketCap, change_24h AS change24h, " +
+            "sample_count AS sampleCount " +
+            "FROM biz_crypto_metrics_daily " +
+            "WHERE symbol = #{symbol} AND bucket_time >= #{beginTime} AND bucket_time < #{endTime} " +
+            "ORDER BY bucket_time")
+    List<BizCryptoMetricsBar> selectDailyBars(@Param("symbol") String symbol, @Param("beginTime") Date beginTime,
+            @Param("endTime") Date endTime);
+
+    /**
+     * 分批删除过期原始快照（保留各币种最新一条）
+     */
+    @Delete("DELETE FROM biz_crypto_metrics " +
+            "WHERE snapshot_time < #{before} " +
+            "AND id NOT IN (SELECT metrics_id FROM biz_crypto_metrics_latest) " +
+            "LIMIT #{limit}")
+    int pruneRaw(@Param("before") Date before, @Param("limit") int limit);
+
+    /**
+     * 分批删除过期小时K线
+     */
+    @Delete("DELETE FROM biz_crypto_metrics_hourly WHERE bucket_time < #{before} LIMIT #{limit}")
+    int pruneHourly(@Param("before") Date before, @Param("limit") int limit);
+}
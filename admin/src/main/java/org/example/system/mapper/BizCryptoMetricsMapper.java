@@ -3,6 +3,7 @@ package org.example.system.mapper;
 import org.apache.ibatis.annotations.*;
 import org.apache.ibatis.jdbc.SQL;
 import org.example.system.domain.BizCryptoMetrics;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -36,22 +37,57 @@ public interface BizCryptoMetricsMapper {
     List<BizCryptoMetrics> selectBizCryptoMetricsList(BizCryptoMetrics bizCryptoMetrics);
 
     /**
-     * 查询每个币种最新的行情
+     * 查询每个币种最新的行情（通过 biz_crypto_metrics_latest 指针表，按主键关联）
      */
     @Select("SELECT t1.id, t1.symbol, t1.name, t1.price_usd AS priceUsd, t1.market_cap AS marketCap, " +
             "t1.hash_rate AS hashRate, t1.`24h_change` AS change24h, t1.transaction_count AS transactionCount, " +
             "t1.total_fees_btc AS totalFeesBtc, t1.block_count AS blockCount, t1.ath_price AS athPrice, " +
             "t1.snapshot_time AS snapshotTime, t1.create_by AS createBy, t1.create_time AS createTime, " +
             "t1.update_by AS updateBy, t1.update_time AS updateTime " +
-            "FROM biz_crypto_metrics t1 " +
-            "INNER JOIN (" +
-            "  SELECT symbol, MAX(snapshot_time) as max_time " +
-            "  FROM biz_crypto_metrics " +
-            "  GROUP BY symbol" +
-            ") t2 ON t1.symbol = t2.symbol AND t1.snapshot_time = t2.max_time " +
+            "FROM biz_crypto_metrics_latest l " +
+            "INNER JOIN biz_crypto_metrics t1 ON t1.id = l.metrics_id " +
             "ORDER BY t1.market_cap DESC")
     List<BizCryptoMetrics> selectLatestMetrics();
 
+    /**
+     * 将指定快照时间的一批行情登记为各币种最新行情（只会前移，不会回退）
+     */
+    @Insert("INSERT INTO biz_crypto_metrics_latest (symbol, metrics_id, snapshot_time) " +
+            "SELECT symbol, id, snapshot_time FROM biz_crypto_metrics " +
+            "WHERE snapshot_time = #{snapshotTime} AND symbol IS NOT NULL " +
+            "ON DUPLICATE KEY UPDATE " +
+            "metrics_id = IF(VALUES(snapshot_time) >= snapshot_time, VALUES(metrics_id), metrics_id), " +
+            "snapshot_time = GREATEST(snapshot_time, VALUES(snapshot_time))")
+    int upsertLatestBySnapshotTime(@Param("snapshotTime") Date snapshotTime);
+
+    /**
+     * 将单条行情登记为该币种最新行情（只会前移，不会回退）
+     */
+    @Insert("INSERT INTO biz_crypto_metrics_latest (symbol, metrics_id, snapshot_time) " +
+            "SELECT symbol, id, snapshot_time FROM biz_crypto_metrics " +
+            "WHERE id = #{id} AND symbol IS NOT NULL " +
+            "ON DUPLICATE KEY UPDATE " +
+            "metrics_id = IF(VALUES(snapshot_time) >= snapshot_time, VALUES(metrics_id), metrics_id), " +
+            "snapshot_time = GREATEST(snapshot_time, VALUES(snapshot_time))")
+    int upsertLatestById(@Param("id") Long id);
+
+    /**
+     * 清空最新行情指针（修改或删除历史行情后配合 rebuildLatest 重建）
+     */
+    @Delete("DELETE FROM biz_crypto_metrics_latest")
+    int clearLatest();
+
+    /**
+     * 根据历史数据重建最新行情指针
+     */
+    @Insert("INSERT INTO biz_crypto_metrics_latest (symbol, metrics_id, snapshot_time) " +
+            "SELECT symbol, id, snapshot_time FROM (" +
+            "  SELECT symbol, id, snapshot_time, " +
+            "  ROW_NUMBER() OVER (PARTITION BY symbol ORDER BY snapshot_time DESC, id DESC) AS rn " +
+            "  FROM biz_crypto_metrics WHERE symbol IS NOT NULL" +
+            ") t WHERE rn = 1")
+    int rebuildLatest();
+
     /**
      * 插入数据
      */
@@ -87,12 +123,6 @@ public interface BizCryptoMetricsMapper {
     @DeleteProvider(type = SqlProvider.class, method = "deleteByIds")
     int deleteBizCryptoMetricsByIds(Long[] ids);
 
-    /**
-     * 清空表后重新插入（用于每日全量更新）
-     */
-    @Delete("TRUNCATE TABLE biz_crypto_metrics")
-    int deleteAll();
-
     /**
      * 批量插入（已匹配最新数据库结构，包含 create_time）
      */
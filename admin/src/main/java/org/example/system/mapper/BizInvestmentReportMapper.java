@@ -1,6 +1,7 @@
 package org.example.system.mapper;
 
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 import org.example.system.domain.BizInvestmentReport;
 
 public interface BizInvestmentReportMapper
@@ -9,6 +10,8 @@ public interface BizInvestmentReportMapper
     public List<BizInvestmentReport> selectBizInvestmentReportList(BizInvestmentReport bizInvestmentReport);
     public int insertBizInvestmentReport(BizInvestmentReport bizInvestmentReport);
     public int updateBizInvestmentReport(BizInvestmentReport bizInvestmentReport);
+    /** 仅当报告仍处于指定状态时更新（审核、流式草稿写入），返回受影响行数 */
+    public int updateBizInvestmentReportIfStatus(@Param("report") BizInvestmentReport report, @Param("expectedStatus") String expectedStatus);
     public int deleteBizInvestmentReportById(Long id);
     public int deleteBizInvestmentReportByIds(Long[] ids);
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package org.example.system.mapper;
+
+import java.util.List;
+import org.apache.ibatis.annotations.*;
+import org.example.system.domain.BizReportJob;
+
+/**
+ * 报告生成任务
+ */
+@Mapper
+public interface BizReportJobMapper {
+
+    String COLUMNS = "SELECT id, job_type AS jobType, message_id AS messageId, refresh, status, progress, stage, " +
+            "report_id AS reportId, error_msg AS errorMsg, attempts, create_by AS createBy, create_time AS createTime, " +
+            "start_time AS startTime, finish_time AS finishTime, owner_node AS ownerNode, heartbeat_time AS heartbeatTime, " +
+            "update_time AS updateTime FROM biz_report_job ";
+
+    @Insert("INSERT INTO biz_report_job (job_type, message_id, refresh, status, progress, stage, attempts, create_by, create_time, update_time) " +
+            "VALUES (#{jobType}, #{messageId}, #{refresh}, '0', 0, #{stage}, 0, #{createBy}, NOW(), NOW())")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insertJob(BizReportJob job);
+
+    @Select(COLUMNS + "WHERE id = #{id}")
+    BizReportJob selectJobById(Long id);
+
+    @Select("<script>" + COLUMNS +
+            "<where>" +
+            "<if test='jobType != null and jobType != \"\"'> AND job_type = #{jobType}</if>" +
+            "<if test='status != null and status != \"\"'> AND status = #{status}</if>" +
+            "</where> ORDER BY id DESC</script>")
+    List<BizReportJob> selectJobList(BizReportJob job);
+
+    /**
+     * 按提交顺序取排队中的任务
+     */
+    @Select(COLUMNS + "WHERE status = '0' ORDER BY id LIMIT #{limit}")
+    List<BizReportJob> selectPendingJobs(@Param("limit") int limit);
+
+    /**
+     * 领取任务并记录执行节点（仅排队中的任务可领取，返回 0 表示已被领取或取消）
+     */
+    @Update("UPDATE biz_report_job SET status = '1', attempts = attempts + 1, owner_node = #{node}, start_time = NOW(), " +
+            "heartbeat_time = NOW(), update_time = NOW() WHERE id = #{id} AND status = '0'")
+    int claimJob(@Param("id") Long id, @Param("node") String node);
+
+    /**
+     * 本节点执行中任务的心跳
+     */
+    @Update("<script>UPDATE biz_report_job SET heartbeat_time = NOW() WHERE status = '1' AND owner_node = #{node} AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    int heartbeat(@Param("node") String node, @Param("ids") java.util.Collection<Long> ids);
+
+    /**
+     * 更新执行进度（仅执行中的任务）
+     */
+    @Update("UPDATE biz_report_job SET progress = #{progress}, stage = #{stage}, report_id = IFNULL(#{reportId}, report_id), " +
+            "heartbeat_time = NOW(), update_time = NOW() WHERE id = #{id} AND status = '1'")
+    int updateProgress(@Param("id") Long id, @Param("progress") int progress, @Param("stage") String stage, @Param("reportId") Long reportId);
+
+    /**
+     * 结束执行中的任务；任务已被取消时不覆盖取消状态
+     */
+    @Update("UPDATE biz_report_job SET status = #{status}, progress = #{progress}, stage = #{stage}, " +
+            "report_id = IFNULL(#{reportId}, report_id), error_msg = #{errorMsg}, finish_time = NOW(), update_time = NOW() " +
+            "WHERE id = #{id} AND status = '1'")
+    int finishJob(@Param("id") Long id, @Param("status") String status, @Param("progress") int progress,
+                  @Param("stage") String stage, @Param("reportId") Long reportId, @Param("errorMsg") String errorMsg);
+
+    /**
+     * 取消排队中或执行中的任务
+     */
+    @Update("UPDATE biz_report_job SET status = '4', stage = '已取消', finish_time = NOW(), update_time = NOW() " +
+            "WHERE id = #{id} AND status IN ('0', '1')")
+    int cancelJob(Long id);
+
+    /**
+     * 心跳超时的判定时刻（数据库时间），同一次恢复中的各语句使用同一时刻
+     */
+    @Select("SELECT DATE_SUB(NOW(), INTERVAL #{staleSeconds} SECOND)")
+    java.util.Date selectStaleCutoff(@Param("staleSeconds") long staleSeconds);
+
+    /**
+     * 执行节点已失联的任务留下的报告草稿标记为生成失败（重新执行会创建新草稿，旧草稿不会再被更新）
+     */
+    @Update("UPDATE biz_investment_report r JOIN biz_report_job j ON j.report_id = r.id " +
+            "SET r.status = '4', r.update_time = NOW() " +
+            "WHERE r.status = '3' AND j.status = '1' AND (j.heartbeat_time IS NULL OR j.heartbeat_time < #{cutoff})")
+    int failStaleDrafts(@Param("cutoff") java.util.Date cutoff);
+
+    /**
+     * 处理执行节点已失联（心跳超时）的任务：已达最大次数的标记失败，其余重新排队。
+     * 其他节点仍在心跳的任务不受影响
+     */
+    @Update("UPDATE biz_report_job SET status = '3', stage = '执行节点中断', error_msg = '执行节点停止或失联，且已达到最大执行次数', " +
+            "finish_time = NOW(), update_time = NOW() WHERE status = '1' AND attempts >= #{maxAttempts} " +
+            "AND (heartbeat_time IS NULL OR heartbeat_time < #{cutoff})")
+    int failStaleJobs(@Param("maxAttempts") int maxAttempts, @Param("cutoff") java.util.Date cutoff);
+
+    @Update("UPDATE biz_report_job SET status = '0', progress = 0, stage = '执行节点中断后重新排队', owner_node = NULL, update_time = NOW() " +
+            "WHERE status = '1' AND (heartbeat_time IS NULL OR heartbeat_time < #{cutoff})")
+    int requeueStaleJobs(@Param("cutoff") java.util.Date cutoff);
+}
@@ -0,0 +1,19 @@
+package org.example.system.mapper;
+
+import org.apache.ibatis.annotations.*;
+
+/**
+ * 报告调仓执行记录（幂等键）
+ */
+@Mapper
+public interface BizTradeExecutionMapper {
+
+    /**
+     * 登记一次调仓执行，幂等键已存在时不插入
+     *
+     * @return 1 表示首次执行，0 表示已执行过
+     */
+    @Insert("INSERT IGNORE INTO biz_trade_execution (idempotency_key, report_id, action_count, create_time) " +
+            "VALUES (#{key}, #{reportId}, #{actionCount}, NOW())")
+    int insertIgnore(@Param("key") String key, @Param("reportId") Long reportId, @Param("actionCount") int actionCount);
+}
@@ -1,6 +1,7 @@
 package org.example.system.model;
 
 import org.example.system.domain.SysUser;
+import org.example.system.security.auth.PermissionMatcher;
 
 import java.io.Serializable;
 import java.util.Set;
@@ -49,6 +50,11 @@ public class LoginUser implements Serializable
      */
     private Set<String> permissions;
 
+    /**
+     * 由权限列表编译的匹配器（不序列化，权限列表变化时重建）
+     */
+    private transient volatile PermissionMatcher permissionMatcher;
+
     /**
      * 角色列表
      */
@@ -127,6 +133,21 @@ public class LoginUser implements Serializable
     public void setPermissions(Set<String> permissions)
     {
         this.permissions = permissions;
+        this.permissionMatcher = null;
+    }
+
+    /**
+     * 权限匹配器，首次使用时由权限列表编译
+     */
+    public PermissionMatcher permissionMatcher()
+    {
+        PermissionMatcher matcher = permissionMatcher;
+        if (matcher == null)
+        {
+            matcher = PermissionMatcher.compile(permissions);
+            permissionMatcher = matcher;
+        }
+        return matcher;
     }
 
     public Set<String> getRoles()
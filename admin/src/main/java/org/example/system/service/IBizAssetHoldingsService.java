@@ -2,6 +2,7 @@ package org.example.system.service;
 
 import java.util.List;
 import org.example.system.domain.BizAssetHoldings;
+import org.example.system.domain.vo.PortfolioValuation;
 
 public interface IBizAssetHoldingsService
 {
@@ -11,4 +12,5 @@ public interface IBizAssetHoldingsService
     public int updateBizAssetHoldings(BizAssetHoldings bizAssetHoldings);
     public int deleteBizAssetHoldingsByIds(Long[] ids);
     public int deleteBizAssetHoldingsById(Long id);
+    public PortfolioValuation selectPortfolioValuation();
 }
\ No newline at end of file
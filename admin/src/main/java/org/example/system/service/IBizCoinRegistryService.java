@@ -0,0 +1,14 @@
+package org.example.system.service;
+
+import java.util.List;
+import org.example.system.domain.BizCoinRegistry;
+
+public interface IBizCoinRegistryService
+{
+    public BizCoinRegistry selectBizCoinRegistryById(Long id);
+    public List<BizCoinRegistry> selectBizCoinRegistryList(BizCoinRegistry bizCoinRegistry);
+    public int insertBizCoinRegistry(BizCoinRegistry bizCoinRegistry);
+    public int updateBizCoinRegistry(BizCoinRegistry bizCoinRegistry);
+    public int deleteBizCoinRegistryByIds(Long[] ids);
+    public int deleteBizCoinRegistryById(Long id);
+}
@@ -1,6 +1,8 @@
 package org.example.system.service;
 
 import java.util.List;
+import org.example.system.crypto.CollectTaskStatus;
+import org.example.system.domain.BizCoinSentiment;
 import org.example.system.domain.BizCryptoMessage;
 
 public interface IBizCryptoMessageService
@@ -11,9 +13,31 @@ public interface IBizCryptoMessageService
     public int updateBizCryptoMessage(BizCryptoMessage bizCryptoMessage);
     public int deleteBizCryptoMessageByIds(Long[] ids);
     public int deleteBizCryptoMessageById(Long id);
+
+    /**
+     * 查询最近若干小时内每个币种最新的消息（按时间倒序，供报告生成使用）
+     *
+     * @param hours 时间窗口（小时）
+     * @param perCoin 每个币种最多条数
+     * @param limit 总条数上限
+     */
+    List<BizCryptoMessage> selectRecentMessagesPerCoin(int hours, int perCoin, int limit);
+
+    /**
+     * 查询币种情绪指数（内存中增量维护的 1h / 24h / 7d 汇总）
+     *
+     * @param coin 币种（任意写法），为空时返回全部币种
+     */
+    List<BizCoinSentiment> selectCoinSentiment(String coin);
+
     /**
      * 采集数字货币市场消息
      * @return 入库条数
      */
-    int collectCryptoMessages();
+    int collectCryptoMessages(boolean refresh);
+
+    /**
+     * 查询新闻采集任务状态（运行中或上一次运行）
+     */
+    CollectTaskStatus getCollectStatus();
 }
\ No newline at end of file
@@ -2,8 +2,12 @@ package org.example.system.service;
 
 
 
+import java.util.Date;
 import java.util.List;
+import org.example.system.crypto.CollectTaskStatus;
+import org.example.system.crypto.MetricsSnapshot;
 import org.example.system.domain.BizCryptoMetrics;
+import org.example.system.domain.BizCryptoMetricsBar;
 
 public interface IBizCryptoMetricsService
 {
@@ -16,6 +20,22 @@ public interface IBizCryptoMetricsService
      */
     List<BizCryptoMetrics> selectLatestMetrics();
 
+    /**
+     * 获取最新行情快照（内存，无数据库访问）
+     */
+    MetricsSnapshot getLatestSnapshot();
+
+    /**
+     * 查询币种历史行情
+     *
+     * @param symbol 币种符号
+     * @param beginTime 开始时间（含），为空时取结束时间前 7 天
+     * @param endTime 结束时间（不含），为空时取当前时间
+     * @param interval 粒度 raw / hour / day，为空时按区间长度自动选择
+     * @return K线列表（按时间升序）
+     */
+    List<BizCryptoMetricsBar> selectMetricsHistory(String symbol, Date beginTime, Date endTime, String interval);
+
     int insertBizCryptoMetrics(BizCryptoMetrics bizCryptoMetrics);
 
     int updateBizCryptoMetrics(BizCryptoMetrics bizCryptoMetrics);
@@ -24,6 +44,14 @@ public interface IBizCryptoMetricsService
 
     int deleteBizCryptoMetricsById(Long id);
 
-    /** 手动触发采集行情 */
-    int collectCryptoMetrics();
+    /**
+     * 手动触发采集行情
+     *
+     * @param refresh 是否跳过冷却期与 AI 答案缓存强制采集
+     * @return 入库条数
+     */
+    int collectCryptoMetrics(boolean refresh);
+
+    /** 查询行情采集任务状态（运行中或上一次运行） */
+    CollectTaskStatus getCollectStatus();
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.example.system.service;
 
 import java.util.List;
+import org.example.system.crypto.ReportJobProgress;
 import org.example.system.domain.BizInvestmentReport;
 
 public interface IBizInvestmentReportService
@@ -11,10 +12,24 @@ public interface IBizInvestmentReportService
     public int updateBizInvestmentReport(BizInvestmentReport bizInvestmentReport);
     public int deleteBizInvestmentReportByIds(Long[] ids);
     public int deleteBizInvestmentReportById(Long id);
-    public void generateReport(Long messageId);
+    public void generateReport(Long messageId, boolean refresh);
+
+    /**
+     * 针对单条新闻生成投资建议报告，并回报进度
+     *
+     * @return 报告ID，任务被取消时返回 null
+     */
+    public Long generateReport(Long messageId, boolean refresh, ReportJobProgress progress);
 
     /**
      * 生成汇总投资建议报告（基于最新所有情报和行情）
      */
     public void generateSummaryReport();
+
+    /**
+     * 生成汇总投资建议报告，并回报进度
+     *
+     * @return 报告ID，任务被取消时返回 null
+     */
+    public Long generateSummaryReport(boolean refresh, ReportJobProgress progress);
 }
\ No newline at end of file
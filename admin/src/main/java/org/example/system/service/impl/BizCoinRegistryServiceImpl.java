@@ -0,0 +1,101 @@
+package org.example.system.service.impl;
+
+import java.util.List;
+import org.example.common.core.exception.ServiceException;
+import org.example.common.core.utils.DateUtils;
+import org.example.system.crypto.CoinRegistry;
+import org.example.system.domain.BizCoinRegistry;
+import org.example.system.mapper.BizCoinRegistryMapper;
+import org.example.system.service.IBizCoinRegistryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * 币种登记表，修改后重新加载内存字典
+ */
+@Service
+public class BizCoinRegistryServiceImpl implements IBizCoinRegistryService
+{
+    @Autowired
+    private BizCoinRegistryMapper bizCoinRegistryMapper;
+
+    @Autowired
+    private CoinRegistry coinRegistry;
+
+    @Override
+    public BizCoinRegistry selectBizCoinRegistryById(Long id)
+    {
+        return bizCoinRegistryMapper.selectBizCoinRegistryById(id);
+    }
+
+    @Override
+    public List<BizCoinRegistry> selectBizCoinRegistryList(BizCoinRegistry bizCoinRegistry)
+    {
+        return bizCoinRegistryMapper.selectBizCoinRegistryList(bizCoinRegistry);
+    }
+
+    @Override
+    public int insertBizCoinRegistry(BizCoinRegistry bizCoinRegistry)
+    {
+        normalize(bizCoinRegistry);
+        bizCoinRegistry.setCreateTime(DateUtils.getNowDate());
+        int rows = bizCoinRegistryMapper.insertBizCoinRegistry(bizCoinRegistry);
+        coinRegistry.reloadAfterCommit();
+        return rows;
+    }
+
+    @Override
+    public int updateBizCoinRegistry(BizCoinRegistry bizCoinRegistry)
+    {
+        normalize(bizCoinRegistry);
+        bizCoinRegistry.setUpdateTime(DateUtils.getNowDate());
+        int rows = bizCoinRegistryMapper.updateBizCoinRegistry(bizCoinRegistry);
+        coinRegistry.reloadAfterCommit();
+        return rows;
+    }
+
+    @Override
+    public int deleteBizCoinRegistryByIds(Long[] ids)
+    {
+        int rows = bizCoinRegistryMapper.deleteBizCoinRegistryByIds(ids);
+        coinRegistry.reloadAfterCommit();
+        return rows;
+    }
+
+    @Override
+    public int deleteBizCoinRegistryById(Long id)
+    {
+        int rows = bizCoinRegistryMapper.deleteBizCoinRegistryById(id);
+        coinRegistry.reloadAfterCommit();
+        return rows;
+    }
+
+    /**
+     * 符号统一大写，并校验符号、名称、别名不与其它币种冲突
+     */
+    private void normalize(BizCoinRegistry coin)
+    {
+        if (coin.getSymbol() != null)
+        {
+            coin.setSymbol(coin.getSymbol().trim().toUpperCase());
+        }
+        checkConflict(coin, coin.getSymbol());
+        checkConflict(coin, coin.getName());
+        if (coin.getAliases() != null)
+        {
+            for (String alias : coin.getAliases().split("[,，]"))
+            {
+                checkConflict(coin, alias);
+            }
+        }
+    }
+
+    private void checkConflict(BizCoinRegistry coin, String key)
+    {
+        BizCoinRegistry existing = coinRegistry.find(key);
+        if (existing != null && !existing.getId().equals(coin.getId()))
+        {
+            throw new ServiceException("'" + key.trim() + "' 已被币种 " + existing.getSymbol() + " 使用");
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package org.example.system.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import org.example.common.core.exception.ServiceException;
 import org.example.common.core.utils.DateUtils;
+import org.example.common.redis.service.RedisLease;
+import org.example.system.crypto.CollectFence;
+import org.example.system.crypto.CollectTaskRunner;
+import org.example.system.crypto.CollectTaskStatus;
+import org.example.system.crypto.CryptoEventHub;
+import org.example.system.crypto.NewsDeduplicator;
+import org.example.system.crypto.ReportJobQueue;
+import org.example.system.crypto.SentimentIndex;
+import org.example.system.domain.BizCoinSentiment;
+import org.example.system.dify.LlmJsonExtractor;
+import org.example.system.dify.LlmJsonSchema;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.example.system.mapper.BizCryptoMessageMapper;
 import org.example.system.domain.BizCryptoMessage;
 import org.example.system.service.IBizCryptoMessageService;
-import org.example.system.service.IBizInvestmentReportService;
 import org.example.system.utils.DifyUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONUtil;
 import cn.hutool.json.JSONObject;
@@ -25,9 +38,25 @@ public class BizCryptoMessageServiceImpl implements IBizCryptoMessageService
     @Autowired
     private BizCryptoMessageMapper bizCryptoMessageMapper;
     @Autowired
-    private IBizInvestmentReportService reportService;
+    private ReportJobQueue reportJobQueue;
+    @Autowired
+    private CryptoEventHub cryptoEventHub;
     @Autowired
     private DifyUtils difyUtils;
+    @Autowired
+    private CollectTaskRunner collectTaskRunner;
+    @Autowired
+    private NewsDeduplicator newsDeduplicator;
+    @Autowired
+    private SentimentIndex sentimentIndex;
+    @Autowired
+    private CollectFence collectFence;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /** 批量插入每批行数 */
+    private static final int INSERT_BATCH_SIZE = 200;
+
     @Override
     public BizCryptoMessage selectBizCryptoMessageById(Long id)
     {
@@ -44,35 +73,64 @@ public class BizCryptoMessageServiceImpl implements IBizCryptoMessageService
     public int insertBizCryptoMessage(BizCryptoMessage bizCryptoMessage)
     {
         bizCryptoMessage.setCreateTime(DateUtils.getNowDate());
-        return bizCryptoMessageMapper.insertBizCryptoMessage(bizCryptoMessage);
+        NewsDeduplicator.fingerprint(bizCryptoMessage);
+        int rows = bizCryptoMessageMapper.insertBizCryptoMessage(bizCryptoMessage);
+        if (rows > 0) {
+            sentimentIndex.record(Collections.singletonList(bizCryptoMessage));
+        }
+        return rows;
     }
 
     @Override
     public int updateBizCryptoMessage(BizCryptoMessage bizCryptoMessage)
     {
         bizCryptoMessage.setUpdateTime(DateUtils.getNowDate());
-        return bizCryptoMessageMapper.updateBizCryptoMessage(bizCryptoMessage);
+        if (bizCryptoMessage.getContent() != null) {
+            NewsDeduplicator.fingerprint(bizCryptoMessage);
+        }
+        int rows = bizCryptoMessageMapper.updateBizCryptoMessage(bizCryptoMessage);
+        // 情感、影响分数或币种可能已变化，情绪指数下次读取时重建
+        sentimentIndex.invalidate();
+        return rows;
     }
 
     @Override
     public int deleteBizCryptoMessageByIds(Long[] ids)
     {
-        return bizCryptoMessageMapper.deleteBizCryptoMessageByIds(ids);
+        int rows = bizCryptoMessageMapper.deleteBizCryptoMessageByIds(ids);
+        sentimentIndex.invalidate();
+        return rows;
     }
 
     @Override
     public int deleteBizCryptoMessageById(Long id)
     {
-        return bizCryptoMessageMapper.deleteBizCryptoMessageById(id);
+        int rows = bizCryptoMessageMapper.deleteBizCryptoMessageById(id);
+        sentimentIndex.invalidate();
+        return rows;
+    }
+
+    @Override
+    public List<BizCryptoMessage> selectRecentMessagesPerCoin(int hours, int perCoin, int limit)
+    {
+        return bizCryptoMessageMapper.selectRecentMessagesPerCoin(DateUtils.addHours(DateUtils.getNowDate(), -hours), perCoin, limit);
     }
 
     @Override
-    public int collectCryptoMessages() {
-        // 直接调用现有的自动采集方法
-        autoCollectNews();
-        // 由于autoCollectNews没有返回值，这里返回1表示成功执行
-        // 实际项目中可以修改autoCollectNews返回采集数量
-        return 1;
+    public List<BizCoinSentiment> selectCoinSentiment(String coin)
+    {
+        return sentimentIndex.snapshot(coin);
+    }
+
+    @Override
+    public int collectCryptoMessages(boolean refresh) {
+        // 与定时任务共用单飞执行器，并发点击只会触发一次采集；强制刷新时不受冷却期限制
+        return collectTaskRunner.run(CollectTaskRunner.TASK_NEWS, true, !refresh, lease -> doCollectNews(refresh, lease)).getResult();
+    }
+
+    @Override
+    public CollectTaskStatus getCollectStatus() {
+        return collectTaskRunner.getStatus(CollectTaskRunner.TASK_NEWS);
     }
 
 
@@ -83,6 +141,17 @@ public class BizCryptoMessageServiceImpl implements IBizCryptoMessageService
     @Scheduled(cron = "0 10 * * * ?")
     // 开发测试时可以用 "0/30 * * * * ?" (每30秒执行一次)
     public void autoCollectNews() {
+        collectTaskRunner.run(CollectTaskRunner.TASK_NEWS, false, lease -> doCollectNews(false, lease));
+    }
+
+    /**
+     * 执行一次 AI 新闻采集
+     *
+     * @param refresh 是否跳过 AI 答案缓存
+     * @param lease 本次执行持有的集群租约
+     * @return 入库条数
+     */
+    private int doCollectNews(boolean refresh, RedisLease lease) {
         log.info(">>> 开始执行 AI 新闻采集任务...");
 
         // 1. 构建 Prompt (提示词)
@@ -93,28 +162,25 @@ public class BizCryptoMessageServiceImpl implements IBizCryptoMessageService
                 "注意：influence_score 必须是 -2(重大利空), -1(利空), 0(中性), 1(利好), 2(重大利好) 中的一个。每个币种可包含多条新闻。";
 
         // 2. 调用 AI
-        String aiResponse = difyUtils.sendRequest(prompt, "system_cron");
+        String aiResponse = difyUtils.sendRequest(prompt, "system_cron", refresh);
 
         // 3. 检查 AI 响应是否有效
         if (aiResponse == null || aiResponse.isEmpty()) {
             log.error(">>> AI 服务请求失败，未返回有效数据");
-            return;
+            return 0;
         }
 
-        // 清理一下可能存在的 markdown 标记 (```json ... ```)
-        aiResponse = aiResponse.replace("```json", "").replace("```", "").trim();
-
-        // 尝试提取完整的JSON对象
-        int jsonStartIndex = aiResponse.indexOf("{");
-        int jsonEndIndex = aiResponse.lastIndexOf("}");
-        
-        if (jsonStartIndex != -1 && jsonEndIndex != -1 && jsonEndIndex > jsonStartIndex) {
-            aiResponse = aiResponse.substring(jsonStartIndex, jsonEndIndex + 1);
+        // 提取 JSON 对象（跳过 think 内容与 markdown 标记，并修复常见格式问题）
+        String json = LlmJsonExtractor.extract(aiResponse, LlmJsonSchema.NEWS);
+        if (json != null) {
+            aiResponse = json;
             log.info(">>> 从 AI 响应中提取到 JSON 对象: {}", aiResponse);
         } else {
             log.error(">>> AI 返回数据格式错误，未找到有效的 JSON 对象: {}", aiResponse);
-            return;
+            return 0;
         }
+        // AI 调用耗时较长，先确认租约仍由本节点持有，已被接手时不必再解析（真正的防护在写库事务内）
+        lease.checkFence();
 
         // 4. 解析并入库
         try {
@@ -180,26 +246,40 @@ public class BizCryptoMessageServiceImpl implements IBizCryptoMessageService
                 }
             }
             
-            // 批量入库
-            int successCount = 0;
-            for (BizCryptoMessage msg : newsList) {
-                if (this.insertBizCryptoMessage(msg) > 0) {
-                    successCount++;
+            // 按币种在去重窗口内过滤重复 / 近似重复的新闻，剩余的多行批量入库
+            List<BizCryptoMessage> freshList = newsDeduplicator.filter(newsList);
+            // 防护令牌与新闻在同一事务内写入，租约已被其他节点接手时整批回滚
+            Integer inserted = transactionTemplate.execute(status -> {
+                collectFence.guard(lease);
+                int count = 0;
+                for (int from = 0; from < freshList.size(); from += INSERT_BATCH_SIZE) {
+                    List<BizCryptoMessage> batch = freshList.subList(from, Math.min(freshList.size(), from + INSERT_BATCH_SIZE));
+                    count += bizCryptoMessageMapper.batchInsertBizCryptoMessage(batch);
                 }
-            }
+                return count;
+            });
+            int successCount = inserted != null ? inserted : 0;
             
             log.info(">>> 新闻采集完成，入库 {} 条，共解析 {} 条", successCount, newsList.size());
+            if (!freshList.isEmpty()) {
+                sentimentIndex.record(freshList);
+                cryptoEventHub.publish(CryptoEventHub.EVENT_NEWS, freshList);
+            }
 
-            // 5. 采集完成后，自动生成一份汇总投资建议报告
+            // 5. 采集完成后，提交一个汇总投资建议报告生成任务（由报告任务队列异步执行）
             try {
-                log.info(">>> 正在自动生成汇总投资建议报告...");
-                reportService.generateSummaryReport();
+                log.info(">>> 正在提交汇总投资建议报告生成任务...");
+                reportJobQueue.submitSummaryReport(false, "system_cron");
             } catch (Exception e) {
-                log.error(">>> 自动生成汇总报告失败", e);
+                log.error(">>> 提交汇总报告生成任务失败", e);
             }
+            return successCount;
+        } catch (ServiceException e) {
+            throw e;
         } catch (Exception e) {
             log.error("解析 AI 返回数据失败，原始数据: {}", aiResponse, e);
         }
+        return 0;
     }
     
 }
\ No newline at end of file
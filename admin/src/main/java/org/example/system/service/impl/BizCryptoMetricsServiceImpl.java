@@ -4,50 +4,63 @@ import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import org.example.common.core.utils.DateUtils;
+import org.example.common.redis.service.RedisLease;
+import org.example.system.crypto.CollectFence;
+import org.example.system.crypto.CollectTaskRunner;
+import org.example.system.crypto.CollectTaskStatus;
+import org.example.system.crypto.CoinRegistry;
+import org.example.system.crypto.MetricsSnapshot;
+import org.example.system.crypto.MetricsSnapshotHolder;
+import org.example.common.core.exception.ServiceException;
+import org.example.system.domain.BizCoinRegistry;
 import org.example.system.domain.BizCryptoMetrics;
+import org.example.system.domain.BizCryptoMetricsBar;
+import org.example.system.mapper.BizCryptoMetricsHistoryMapper;
 import org.example.system.mapper.BizCryptoMetricsMapper;
 import org.example.system.service.IBizCryptoMetricsService;
 import org.example.system.utils.DifyUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 
 @Service
 public class BizCryptoMetricsServiceImpl implements IBizCryptoMetricsService {
 
+    private static final Logger log = LoggerFactory.getLogger(BizCryptoMetricsServiceImpl.class);
+
     @Autowired
     private BizCryptoMetricsMapper bizCryptoMetricsMapper;
 
     @Autowired
     private DifyUtils difyUtils;
 
-    private String getSymbolByCoinName(String coinName) {
-        if (coinName == null || coinName.isEmpty()) return "UNKNOWN";
-        switch (coinName) {
-            case "比特币": return "BTC";
-            case "以太坊": return "ETH";
-            case "泰达币": return "USDT";
-            case "币安币": return "BNB";
-            case "瑞波币": return "XRP";
-            case "USDC": return "USDC";
-            case "索拉纳": return "SOL";
-            case "狗狗币": return "DOGE";
-            case "艾达币": return "ADA";
-            case "波场": return "TRX";
-            case "吨币": return "TON";
-            case "波卡": return "DOT";
-            case "链节币": return "LINK";
-            case "柴犬币": return "SHIB";
-            case "莱特币": return "LTC";
-            default: return "UNKNOWN";
-        }
-    }
+    @Autowired
+    private CollectTaskRunner collectTaskRunner;
+
+    @Autowired
+    private MetricsSnapshotHolder metricsSnapshotHolder;
+
+    @Autowired
+    private BizCryptoMetricsHistoryMapper historyMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CoinRegistry coinRegistry;
+
+    @Autowired
+    private CollectFence collectFence;
 
     @Override
     public BizCryptoMetrics selectBizCryptoMetricsById(Long id) {
@@ -61,58 +74,141 @@ public class BizCryptoMetricsServiceImpl implements IBizCryptoMetricsService {
 
     @Override
     public List<BizCryptoMetrics> selectLatestMetrics() {
-        return bizCryptoMetricsMapper.selectLatestMetrics();
+        return metricsSnapshotHolder.get().getMetrics();
+    }
+
+    @Override
+    public MetricsSnapshot getLatestSnapshot() {
+        return metricsSnapshotHolder.get();
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int insertBizCryptoMetrics(BizCryptoMetrics bizCryptoMetrics) {
         bizCryptoMetrics.setCreateTime(DateUtils.getNowDate());
-        return bizCryptoMetricsMapper.insertBizCryptoMetrics(bizCryptoMetrics);
+        int rows = bizCryptoMetricsMapper.insertBizCryptoMetrics(bizCryptoMetrics);
+        if (rows > 0) {
+            bizCryptoMetricsMapper.upsertLatestById(bizCryptoMetrics.getId());
+            metricsSnapshotHolder.refreshAfterCommit();
+        }
+        return rows;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int updateBizCryptoMetrics(BizCryptoMetrics bizCryptoMetrics) {
         bizCryptoMetrics.setUpdateTime(DateUtils.getNowDate());
-        return bizCryptoMetricsMapper.updateBizCryptoMetrics(bizCryptoMetrics);
+        return rebuildLatest(bizCryptoMetricsMapper.updateBizCryptoMetrics(bizCryptoMetrics));
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int deleteBizCryptoMetricsByIds(Long[] ids) {
-        return bizCryptoMetricsMapper.deleteBizCryptoMetricsByIds(ids);
+        return rebuildLatest(bizCryptoMetricsMapper.deleteBizCryptoMetricsByIds(ids));
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public int deleteBizCryptoMetricsById(Long id) {
-        return bizCryptoMetricsMapper.deleteBizCryptoMetricsById(id);
+        return rebuildLatest(bizCryptoMetricsMapper.deleteBizCryptoMetricsById(id));
+    }
+
+    /**
+     * 历史行情被修改或删除后重建最新行情指针，并在提交后刷新快照
+     */
+    private int rebuildLatest(int rows) {
+        if (rows > 0) {
+            bizCryptoMetricsMapper.clearLatest();
+            bizCryptoMetricsMapper.rebuildLatest();
+            metricsSnapshotHolder.refreshAfterCommit();
+        }
+        return rows;
+    }
+
+    @Override
+    public List<BizCryptoMetricsBar> selectMetricsHistory(String symbol, Date beginTime, Date endTime, String interval) {
+        if (symbol == null || symbol.trim().isEmpty()) {
+            throw new ServiceException("币种符号不能为空");
+        }
+        Date end = endTime != null ? endTime : DateUtils.getNowDate();
+        Date begin = beginTime != null ? beginTime : DateUtils.addDays(end, -7);
+        if (!begin.before(end)) {
+            throw new ServiceException("开始时间必须早于结束时间");
+        }
+        String code = symbol.trim().toUpperCase();
+        String resolved = resolveInterval(begin, end, interval);
+        if (BizCryptoMetricsBar.INTERVAL_RAW.equals(resolved)) {
+            return historyMapper.selectRawBars(code, begin, end);
+        } else if (BizCryptoMetricsBar.INTERVAL_HOUR.equals(resolved)) {
+            return historyMapper.selectHourlyBars(code, begin, end);
+        }
+        return historyMapper.selectDailyBars(code, begin, end);
+    }
+
+    /**
+     * 未指定粒度时按区间长度选择：2 天内原始快照，60 天内小时K线，否则日K线
+     */
+    private String resolveInterval(Date begin, Date end, String interval) {
+        if (BizCryptoMetricsBar.INTERVAL_RAW.equals(interval)
+                || BizCryptoMetricsBar.INTERVAL_HOUR.equals(interval)
+                || BizCryptoMetricsBar.INTERVAL_DAY.equals(interval)) {
+            return interval;
+        }
+        long days = (end.getTime() - begin.getTime()) / DateUtils.MILLIS_PER_DAY;
+        if (days <= 2) {
+            return BizCryptoMetricsBar.INTERVAL_RAW;
+        }
+        return days <= 60 ? BizCryptoMetricsBar.INTERVAL_HOUR : BizCryptoMetricsBar.INTERVAL_DAY;
+    }
+
+    @Override
+    public int collectCryptoMetrics(boolean refresh) {
+        // 强制刷新时不受冷却期限制
+        return collectTaskRunner.run(CollectTaskRunner.TASK_METRICS, true, !refresh, lease -> doCollectMetrics(refresh, lease)).getResult();
     }
 
     @Override
-    public int collectCryptoMetrics() {
-        autoCollectMetrics();
-        return 1;
+    public CollectTaskStatus getCollectStatus() {
+        return collectTaskRunner.getStatus(CollectTaskRunner.TASK_METRICS);
     }
 
+    /**
+     * 定时采集行情（与手动触发共用单飞执行器，不会重复执行）
+     */
     @Scheduled(cron = "0 0 * * * ?")
-    @Transactional(rollbackFor = Exception.class)
     public void autoCollectMetrics() {
+        collectTaskRunner.run(CollectTaskRunner.TASK_METRICS, false, lease -> doCollectMetrics(false, lease));
+    }
+
+    /**
+     * 执行一次 AI 行情采集
+     *
+     * @param refresh 是否跳过 AI 答案缓存
+     * @param lease 本次执行持有的集群租约
+     * @return 入库条数
+     */
+    private int doCollectMetrics(boolean refresh, RedisLease lease) {
         System.out.println(">>> 开始执行 AI 行情采集任务...");
-        String aiResponse = difyUtils.collectMultiCryptoMetrics();
+        String aiResponse = difyUtils.collectMultiCryptoMetrics(refresh);
         if (aiResponse == null || aiResponse.isEmpty()) {
             System.err.println(">>> AI 服务请求失败，未返回有效数据");
-            return;
+            return 0;
         }
+        // AI 调用耗时较长，先确认租约仍由本节点持有，已被接手时不必再解析（真正的防护在写库事务内）
+        lease.checkFence();
 
         try {
             JSONObject root = JSONUtil.parseObj(aiResponse);
             JSONArray dataArray = root.getJSONArray("data");
             if (dataArray == null || dataArray.isEmpty()) {
                 System.err.println(">>> AI 返回数据中未找到 data 数组");
-                return;
+                return 0;
             }
 
             List<BizCryptoMetrics> metricsList = new ArrayList<>();
             java.util.Set<String> processedSymbols = new java.util.HashSet<>();
-            Date now = new Date();
+            // 精确到秒，与 datetime 列一致，便于按快照时间登记最新行情
+            Date now = DateUtils.truncate(new Date(), Calendar.SECOND);
 
             for (Object obj : dataArray) {
                 JSONObject json = (JSONObject) obj;
@@ -122,9 +218,18 @@ public class BizCryptoMetricsServiceImpl implements IBizCryptoMetricsService {
                 String name = json.getStr("name");
                 if (name == null || name.isEmpty()) continue;
                 
-                String symbol = getSymbolByCoinName(name);
-                // 如果是未知币种，或者是重复的币种，则跳过，避免数据库唯一索引冲突
-                if ("UNKNOWN".equals(symbol) || processedSymbols.contains(symbol)) {
+                // 按币种登记表（内存字典）换算符号，名称、符号、别名均可识别
+                BizCoinRegistry coin = coinRegistry.find(name);
+                if (coin == null) {
+                    coin = coinRegistry.find(json.getStr("symbol"));
+                }
+                // 如果是未登记的币种，或者是重复的币种，则跳过，避免数据库唯一索引冲突
+                if (coin == null) {
+                    log.warn(">>> 未登记的币种，已跳过: {}", name);
+                    continue;
+                }
+                String symbol = coin.getSymbol();
+                if (processedSymbols.contains(symbol)) {
                     continue;
                 }
 
@@ -133,12 +238,13 @@ public class BizCryptoMetricsServiceImpl implements IBizCryptoMetricsService {
                 if (priceUsd == null) priceUsd = json.getBigDecimal("price_usd");
                 
                 // 如果价格为0或空，且不是稳定币，可能数据无效，跳过
-                if ((priceUsd == null || priceUsd.compareTo(BigDecimal.ZERO) <= 0) 
-                    && !name.contains("泰达") && !name.contains("USDC")) {
+                if ((priceUsd == null || priceUsd.compareTo(BigDecimal.ZERO) <= 0)
+                    && !BizCoinRegistry.STABLECOIN.equals(coin.getStablecoin())) {
                     continue;
                 }
                 
-                metrics.setName(name);
+                // 统一使用登记的中文名称，便于按名称匹配
+                metrics.setName(coin.getName());
                 metrics.setPriceUsd(priceUsd != null ? priceUsd : BigDecimal.ZERO);
 
                 // 市值
@@ -190,14 +296,25 @@ public class BizCryptoMetricsServiceImpl implements IBizCryptoMetricsService {
             }
 
             if (metricsList.isEmpty()) {
-                return;
+                return 0;
             }
 
-            bizCryptoMetricsMapper.deleteAll();
-            bizCryptoMetricsMapper.batchInsertBizCryptoMetrics(metricsList);
+            // 只追加历史快照，并在同一事务内前移最新行情指针，读取方不会看到空表
+            Integer rows = transactionTemplate.execute(status -> {
+                collectFence.guard(lease);
+                int inserted = bizCryptoMetricsMapper.batchInsertBizCryptoMetrics(metricsList);
+                bizCryptoMetricsMapper.upsertLatestBySnapshotTime(now);
+                return inserted;
+            });
+            // 事务已提交：刷新快照并推送给订阅的页面
+            metricsSnapshotHolder.refreshAfterCommit();
+            return rows != null ? rows : 0;
+        } catch (ServiceException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println(">>> 解析失败: " + aiResponse);
             e.printStackTrace();
         }
+        return 0;
     }
 }
\ No newline at end of file
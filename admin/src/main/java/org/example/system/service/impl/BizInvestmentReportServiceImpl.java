@@ -1,15 +1,16 @@
 package org.example.system.service.impl;
 
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
-import java.math.BigDecimal;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
-import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import org.example.common.core.exception.ServiceException;
 import org.example.common.core.utils.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.example.system.mapper.BizInvestmentReportMapper;
 import org.example.system.domain.BizInvestmentReport;
@@ -20,6 +21,16 @@ import org.example.system.service.IBizCryptoMetricsService;
 import org.example.system.domain.BizAssetHoldings;
 import org.example.system.domain.BizCryptoMessage;
 import org.example.system.domain.BizCryptoMetrics;
+import org.example.system.crypto.PromptContext;
+import org.example.system.crypto.PromptContextSerializer;
+import org.example.system.crypto.ReportJobProgress;
+import org.example.system.crypto.TradeExecutionEngine;
+import org.example.system.dify.DifyAssistant;
+import org.example.system.dify.DifyClient;
+import org.example.system.dify.DifyProperties;
+import org.example.system.dify.DifyStreamListener;
+import org.example.system.dify.LlmJsonExtractor;
+import org.example.system.dify.LlmJsonSchema;
 import org.example.system.utils.DifyUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +51,26 @@ public class BizInvestmentReportServiceImpl implements IBizInvestmentReportServi
     private IBizCryptoMetricsService metricsService;
     @Autowired
     private DifyUtils difyUtils;
+    @Autowired
+    private DifyClient difyClient;
+    @Autowired
+    private DifyProperties difyProperties;
+    @Autowired
+    private TradeExecutionEngine tradeExecutionEngine;
+    @Autowired
+    private PromptContextSerializer promptContextSerializer;
+
+    /** 汇总报告引用的市场情报时间窗口（小时） */
+    @Value("${crypto.report.news-window-hours:24}")
+    private int newsWindowHours;
+
+    /** 汇总报告中每个币种最多引用的情报条数 */
+    @Value("${crypto.report.news-per-coin:3}")
+    private int newsPerCoin;
+
+    /** 汇总报告引用的情报总条数 */
+    @Value("${crypto.report.news-limit:20}")
+    private int newsLimit;
     @Override
     public BizInvestmentReport selectBizInvestmentReportById(Long id)
     {
@@ -64,127 +95,29 @@ public class BizInvestmentReportServiceImpl implements IBizInvestmentReportServi
     @org.springframework.transaction.annotation.Transactional
     public int updateBizInvestmentReport(BizInvestmentReport report)
     {
-        // 1. 先执行更新状态
         report.setUpdateTime(DateUtils.getNowDate());
-        int rows = bizInvestmentReportMapper.updateBizInvestmentReport(report);
-
-        // 2. 如果状态变为 "1" (已通过)，执行持仓调整逻辑
-        if ("1".equals(report.getStatus())) {
-            executeAutoTrade(report.getId());
+        String status = report.getStatus();
+        if (BizInvestmentReport.STATUS_PENDING.equals(status)) {
+            status = null;
+            report.setStatus(null);
         }
-
-        return rows;
-    }
-
-    /**
-     * 执行 AI 建议的自动交易指令
-     */
-    private void executeAutoTrade(Long reportId) {
-        BizInvestmentReport report = this.selectBizInvestmentReportById(reportId);
-        if (report == null || report.getExecuteJson() == null || report.getExecuteJson().isEmpty()) {
-            return;
+        // 客户端只能把待审核报告审核通过或驳回，其余状态由生成流程维护
+        if (status != null && !BizInvestmentReport.STATUS_APPROVED.equals(status)
+                && !BizInvestmentReport.STATUS_REJECTED.equals(status)) {
+            throw new ServiceException("不支持的报告状态: " + status);
         }
 
-        try {
-            JSONArray actions = JSONUtil.parseArray(report.getExecuteJson());
-            for (int i = 0; i < actions.size(); i++) {
-                JSONObject action = actions.getJSONObject(i);
-                String type = action.getStr("type");
-                String coin = action.getStr("coin");
-                BigDecimal amount = action.getBigDecimal("amount", BigDecimal.ZERO);
-                BigDecimal price = action.getBigDecimal("price", BigDecimal.ZERO);
-
-                if (coin == null || coin.isEmpty() || amount.compareTo(BigDecimal.ZERO) <= 0) continue;
-
-                // 在现有持仓中寻找匹配的币种 (优先完全匹配，其次忽略大小写匹配，同时检查 Symbol 和 Name)
-                BizAssetHoldings targetHolding = null;
-                List<BizAssetHoldings> allHoldings = holdingsService.selectBizAssetHoldingsList(new BizAssetHoldings());
-                
-                // 获取行情数据以便更准确地匹配
-                List<BizCryptoMetrics> latestMetrics = metricsService.selectLatestMetrics();
-                Map<String, String> nameToSymbolMap = new HashMap<>();
-                for (BizCryptoMetrics m : latestMetrics) {
-                    if (m.getName() != null && m.getSymbol() != null) {
-                        nameToSymbolMap.put(m.getName(), m.getSymbol());
-                    }
-                }
-
-                String searchSymbol = coin;
-                if (nameToSymbolMap.containsKey(coin)) {
-                    searchSymbol = nameToSymbolMap.get(coin);
-                }
-
-                for (BizAssetHoldings h : allHoldings) {
-                    String hCoin = h.getCoin();
-                    String hSymbol = nameToSymbolMap.getOrDefault(hCoin, hCoin);
-                    
-                    if (hCoin.equalsIgnoreCase(coin) || hSymbol.equalsIgnoreCase(searchSymbol)) {
-                        targetHolding = h;
-                        break;
-                    }
-                }
-
-                if ("BUY".equalsIgnoreCase(type)) {
-                    if (targetHolding != null) {
-                        // 更新现有持仓
-                        BigDecimal oldAmount = targetHolding.getAmount() != null ? targetHolding.getAmount() : BigDecimal.ZERO;
-                        BigDecimal oldCost = targetHolding.getCostPrice() != null ? targetHolding.getCostPrice() : BigDecimal.ZERO;
-                        BigDecimal newAmount = oldAmount.add(amount);
-                        
-                        // 计算平均持仓成本
-                        if (newAmount.compareTo(BigDecimal.ZERO) > 0) {
-                            BigDecimal totalCost = oldAmount.multiply(oldCost).add(amount.multiply(price));
-                            targetHolding.setCostPrice(totalCost.divide(newAmount, 8, java.math.RoundingMode.HALF_UP));
-                        }
-                        
-                        targetHolding.setAmount(newAmount);
-                        if (price.compareTo(BigDecimal.ZERO) > 0) {
-                            targetHolding.setUsdtValue(newAmount.multiply(price));
-                        }
-                        holdingsService.updateBizAssetHoldings(targetHolding);
-                        log.info("买入成功: {}, 增加数量: {}, 新总量: {}, 新均价: {}", coin, amount, newAmount, targetHolding.getCostPrice());
-                    } else {
-                        // 新增持仓
-                        BizAssetHoldings h = new BizAssetHoldings();
-                        h.setCoin(coin);
-                        h.setAmount(amount);
-                        h.setCostPrice(price);
-                        if (price.compareTo(BigDecimal.ZERO) > 0) {
-                            h.setUsdtValue(amount.multiply(price));
-                        }
-                        h.setCreateBy("AI_AUTO");
-                        holdingsService.insertBizAssetHoldings(h);
-                        log.info("新增持仓: {}, 数量: {}, 价格: {}", coin, amount, price);
-                    }
-                } else if ("SELL".equalsIgnoreCase(type)) {
-                    if (targetHolding != null) {
-                        BigDecimal currentAmount = targetHolding.getAmount();
-                        // 卖出数量不能超过持有数量
-                        BigDecimal sellAmount = amount.compareTo(currentAmount) > 0 ? currentAmount : amount;
-                        BigDecimal newAmount = currentAmount.subtract(sellAmount);
-                        
-                        if (newAmount.compareTo(BigDecimal.ZERO) <= 0) {
-                            // 如果清仓了，直接删除记录
-                            holdingsService.deleteBizAssetHoldingsById(targetHolding.getId());
-                            log.info("卖出成功: {} 已清仓，记录已移除", targetHolding.getCoin());
-                        } else {
-                            // 部分卖出
-                            targetHolding.setAmount(newAmount);
-                            if (price.compareTo(BigDecimal.ZERO) > 0) {
-                                targetHolding.setUsdtValue(newAmount.multiply(price));
-                            }
-                            holdingsService.updateBizAssetHoldings(targetHolding);
-                            log.info("卖出成功: {}, 减少数量: {}, 剩余数量: {}", coin, sellAmount, newAmount);
-                        }
-                    } else {
-                        log.warn("卖出失败: 未找到币种 {} 的持仓", coin);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("执行自动调仓失败: " + e.getMessage());
-            e.printStackTrace();
+        // 审核与编辑都只能从"待审核"条件更新：生成中、生成失败或已审核的报告不会被改动，并发审核也只有一个生效
+        int rows = bizInvestmentReportMapper.updateBizInvestmentReportIfStatus(report, BizInvestmentReport.STATUS_PENDING);
+        if (rows != 1) {
+            throw new ServiceException("报告不处于待审核状态，无法" + (status == null ? "修改" : "审核"));
+        }
+        if (!BizInvestmentReport.STATUS_APPROVED.equals(status)) {
+            return rows;
         }
+        // 在同一事务内批量执行持仓调整（按报告幂等，失败整体回滚）
+        tradeExecutionEngine.execute(this.selectBizInvestmentReportById(report.getId()));
+        return rows;
     }
 
     @Override
@@ -201,38 +134,40 @@ public class BizInvestmentReportServiceImpl implements IBizInvestmentReportServi
 
     @Override
     public void generateSummaryReport() {
+        generateSummaryReport(false, ReportJobProgress.NONE);
+    }
+
+    @Override
+    public Long generateSummaryReport(boolean refresh, ReportJobProgress progress) {
         log.info(">>> 开始生成汇总投资建议报告...");
+        progress.update(10, "加载情报、持仓与行情", null);
 
-        // 1. 获取最近的 20 条市场情报
-        BizCryptoMessage messageQuery = new BizCryptoMessage();
-        // 这里假设 selectBizCryptoMessageList 返回的是按时间倒序或者我们可以自己处理
-        List<BizCryptoMessage> messages = messageService.selectBizCryptoMessageList(messageQuery);
-        if (messages.size() > 20) {
-            messages = messages.subList(0, 20);
-        }
-        
-        StringBuilder newsSummary = new StringBuilder();
-        for (BizCryptoMessage msg : messages) {
-            newsSummary.append(String.format("- [%s] %s (影响分数: %s)\n", 
-                msg.getCoin(), msg.getContent(), msg.getImpactScore()));
-        }
+        // 1. 获取时间窗口内每个币种最新的几条市场情报（数据库内完成排名与截断）
+        List<BizCryptoMessage> messages = messageService.selectRecentMessagesPerCoin(newsWindowHours, newsPerCoin, newsLimit);
 
         // 2. 获取当前所有持仓
         BizAssetHoldings holdingsQuery = new BizAssetHoldings();
         List<BizAssetHoldings> holdings = holdingsService.selectBizAssetHoldingsList(holdingsQuery);
-        String holdingsJson = JSONUtil.toJsonStr(holdings);
 
-        // 3. 获取最新行情数据
-        List<BizCryptoMetrics> metrics = metricsService.selectBizCryptoMetricsList(new BizCryptoMetrics());
-        String metricsJson = JSONUtil.toJsonStr(metrics);
+        // 3. 获取最新行情数据（每个币种一条，来自内存快照）
+        List<BizCryptoMetrics> metrics = metricsService.selectLatestMetrics();
+
+        // 只保留决策相关字段的紧凑表格，超出 token 预算时省略低优先级的行
+        PromptContext context = promptContextSerializer.serialize(holdings, metrics, messages);
+        String newsSummary = context.getNews().isEmpty()
+                ? String.format("- 最近 %d 小时暂无市场情报", newsWindowHours) : context.getNews();
+        if (progress.isCancelled()) {
+            return null;
+        }
 
         // 4. 构建汇总 Prompt
         String prompt = String.format(
                 "【角色】你是一位资深的加密货币策略分析师。\n" +
                         "【背景】你需要基于以下多维数据给出综合投资策略建议。\n" +
                         "【市场情报摘要】\n%s\n" +
-                        "【当前持仓】%s\n" +
-                        "【最新行情】%s\n" +
+                        "【币种情绪指数】（情绪分 -2 重大利空 ~ 2 重大利好，越新的消息权重越大）\n%s\n" +
+                        "【当前持仓】\n%s\n" +
+                        "【最新行情】\n%s\n" +
                         "【任务】请综合分析上述所有情报、当前持仓以及市场行情，给出最终的投资策略。\n" +
                         "【硬性约束】\n" +
                         "1. 如果你建议卖出（SELL），建议卖出的数量（amount）绝对不能超过该币种的当前持有数量。\n" +
@@ -243,33 +178,186 @@ public class BizInvestmentReportServiceImpl implements IBizInvestmentReportServi
                         "1. advice: 综合建议内容，要求逻辑清晰、专业、深入，包含对整体趋势的判断。\n" +
                         "2. actions: 一个数组，包含具体的操作指令。每个操作包含：\n" +
                         "   - type: 操作类型，可选值：BUY, SELL, HOLD\n" +
-                        "   - coin: 币种名称（请务必使用上述【当前持仓】中提供的 coin 字段值，如“比特币”或“ETH”）\n" +
+                        "   - coin: 币种名称（请务必使用上述【当前持仓】中提供的币种列的值，如“比特币”或“ETH”）\n" +
                         "   - amount: 建议操作的数量（必须大于0，SELL时不能超过持仓量）\n" +
                         "   - price: 建议操作的价格（参考当前行情）\n" +
                         "示例格式：{\"advice\": \"...\", \"actions\": [{\"type\": \"BUY\", \"coin\": \"BTC\", \"amount\": 0.05, \"price\": 65000}]}\n" +
                         "请直接输出 JSON，不要包含 Markdown 代码块标记。",
-                newsSummary.toString(), holdingsJson, metricsJson
+                newsSummary, context.getSentiment(), context.getHoldings(), context.getMetrics()
         );
 
         // 5. 调用 AI
-        String aiResponse = difyUtils.sendReportRequest(prompt, "system_summary_analyst");
-        
-        processAndSaveReport(aiResponse, null, "综合分析");
+        return requestAndSaveReport(prompt, "system_summary_analyst", null, "综合分析", refresh, progress);
+    }
+
+    /**
+     * 调用报告助手并保存结果：开启流式模式时先落库草稿，再随片段增量更新
+     *
+     * @return 报告ID，任务在保存前被取消时返回 null
+     * @throws ServiceException AI 未返回内容，或流式生成失败（草稿已标记为生成失败）
+     */
+    private Long requestAndSaveReport(String prompt, String user, Long messageId, String defaultAnalysis, boolean refresh,
+                                      ReportJobProgress progress) {
+        progress.update(30, "等待 AI 响应", null);
+        if (!difyProperties.isReportStreaming()) {
+            String aiResponse = difyUtils.sendReportRequest(prompt, user, refresh);
+            if (progress.isCancelled()) {
+                log.info(">>> 报告生成任务已取消，丢弃 AI 返回内容");
+                return null;
+            }
+            if (aiResponse == null || aiResponse.isEmpty()) {
+                // 与流式分支一致：没有答案时任务记为失败，不生成可审核的空报告
+                throw new ServiceException("AI 未返回内容，未生成报告");
+            }
+            progress.update(90, "解析并保存报告", null);
+            return processAndSaveReport(aiResponse, messageId, defaultAnalysis);
+        }
+
+        BizInvestmentReport draft = new BizInvestmentReport();
+        draft.setMessageId(messageId);
+        draft.setAnalysisResult(defaultAnalysis);
+        draft.setAdviceContent("");
+        draft.setExecuteJson("[]");
+        draft.setStatus(BizInvestmentReport.STATUS_GENERATING);
+        this.insertBizInvestmentReport(draft);
+        log.info(">>> 已创建报告草稿 {}，开始流式生成...", draft.getId());
+        progress.update(40, "AI 生成中", draft.getId());
+
+        ReportDraftWriter writer = new ReportDraftWriter(draft.getId(), difyProperties.getStreamFlushInterval(), progress);
+        String aiResponse = null;
+        // 流式请求已结束（成功或失败），助手线程不再追加答案
+        boolean streamEnded = true;
+        CompletableFuture<String> stream = difyClient.streamAsync(DifyAssistant.REPORT, prompt, user,
+                java.util.Collections.<String, Object>singletonMap("coin_name", "ALL"), writer, refresh);
+        try {
+            aiResponse = stream.get();
+        } catch (InterruptedException e) {
+            // 任务被取消：断开 AI 连接，释放助手线程，半截答案也不会写入缓存
+            Thread.currentThread().interrupt();
+            stream.cancel(true);
+            streamEnded = false;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                log.info(">>> 报告 {} 的生成任务已取消，AI 请求已中断", draft.getId());
+            } else {
+                log.error(">>> 报告 {} 流式生成中断，保留已生成的内容", draft.getId(), e.getCause());
+            }
+        }
+
+        if (aiResponse == null) {
+            // 连接中断时保留已收到的部分内容，不整体丢失
+            String partial = writer.snapshot(streamEnded);
+            BizInvestmentReport failed = new BizInvestmentReport();
+            failed.setId(draft.getId());
+            failed.setAdviceContent(partial.isEmpty() ? "解析建议失败" : partial + "\n\n（AI 生成中断，以上为部分内容）");
+            failed.setStatus(BizInvestmentReport.STATUS_FAILED);
+            failed.setUpdateTime(DateUtils.getNowDate());
+            // 草稿期间已被删除或改动状态的报告不再覆盖
+            bizInvestmentReportMapper.updateBizInvestmentReportIfStatus(failed, BizInvestmentReport.STATUS_GENERATING);
+            if (progress.isCancelled()) {
+                return draft.getId();
+            }
+            // 生成失败要让调用方（报告任务队列）记录为失败，而不是已完成
+            throw new ServiceException("AI 生成中断，报告 " + draft.getId() + " 仅保存了部分内容");
+        }
+        progress.update(90, "解析并保存报告", draft.getId());
+
+        BizInvestmentReport finished = buildReport(aiResponse, messageId, defaultAnalysis);
+        finished.setId(draft.getId());
+        finished.setUpdateTime(DateUtils.getNowDate());
+        if (bizInvestmentReportMapper.updateBizInvestmentReportIfStatus(finished, BizInvestmentReport.STATUS_GENERATING) == 0) {
+            log.warn(">>> 报告 {} 已不是生成中的草稿，跳过保存生成结果", draft.getId());
+            return draft.getId();
+        }
+        log.info(">>> 投资建议报告 {} 已流式生成并保存。", draft.getId());
+        return draft.getId();
+    }
+
+    /**
+     * 流式生成时定期把已收到的正文写入草稿
+     */
+    private class ReportDraftWriter implements DifyStreamListener {
+
+        private final Long reportId;
+
+        private final long flushInterval;
+
+        private final ReportJobProgress progress;
+
+        private long lastFlush;
+
+        /** 客户端累积的完整答案，由助手线程继续追加，只在流式请求结束后读取 */
+        private volatile CharSequence latest = "";
+
+        /** 最近一次写入草稿的正文（不可变副本），流式请求未结束时取快照用 */
+        private volatile String flushed = "";
+
+        ReportDraftWriter(Long reportId, long flushInterval, ReportJobProgress progress) {
+            this.reportId = reportId;
+            this.flushInterval = flushInterval;
+            this.progress = progress;
+        }
+
+        @Override
+        public void onDelta(String delta, CharSequence answer) {
+            long now = System.currentTimeMillis();
+            latest = answer;
+            if (lastFlush == 0 || now - lastFlush >= flushInterval) {
+                lastFlush = now;
+                String content = answer.toString();
+                flushed = content;
+                BizInvestmentReport update = new BizInvestmentReport();
+                update.setId(reportId);
+                update.setAdviceContent(content);
+                update.setUpdateTime(DateUtils.getNowDate());
+                bizInvestmentReportMapper.updateBizInvestmentReportIfStatus(update, BizInvestmentReport.STATUS_GENERATING);
+                // 答案总长度未知，按已生成字数估算进度（40% ~ 85%）
+                progress.update(Math.min(85, 40 + content.length() / 100), "AI 生成中（已生成 " + content.length() + " 字）", reportId);
+                if (progress.isCancelled()) {
+                    // 在其他节点上取消的任务在这里发现（写进度失败），中止流式请求
+                    throw new CancellationException("报告 " + reportId + " 的生成任务已取消");
+                }
+            }
+        }
+
+        /**
+         * 已收到的内容
+         *
+         * @param streamEnded 流式请求是否已结束；未结束时答案仍可能被追加，只返回最近写入草稿的副本
+         */
+        String snapshot(boolean streamEnded) {
+            return streamEnded ? latest.toString() : flushed;
+        }
     }
 
     /**
      * 通用的处理和保存报告逻辑
      */
-    private void processAndSaveReport(String aiResponse, Long messageId, String defaultAnalysis) {
+    private Long processAndSaveReport(String aiResponse, Long messageId, String defaultAnalysis) {
+        BizInvestmentReport report = buildReport(aiResponse, messageId, defaultAnalysis);
+        report.setCreateTime(DateUtils.getNowDate());
+
+        this.insertBizInvestmentReport(report);
+        log.info(">>> 投资建议报告已生成并保存。");
+        return report.getId();
+    }
+
+    /**
+     * 解析 AI 返回内容，构建待审核的报告对象
+     */
+    private BizInvestmentReport buildReport(String aiResponse, Long messageId, String defaultAnalysis) {
         String advice = "解析建议失败";
         String actionsJson = "[]";
 
         if (aiResponse != null && !aiResponse.isEmpty()) {
             log.info("Dify 返回原始数据: {}", aiResponse);
-            String jsonContent = extractJson(aiResponse);
+            String jsonContent = LlmJsonExtractor.extract(aiResponse, LlmJsonSchema.REPORT);
             log.info("提取后的 JSON: {}", jsonContent);
             
             try {
+                if (jsonContent == null) {
+                    throw new IllegalArgumentException("未找到 JSON 对象");
+                }
                 JSONObject json = JSONUtil.parseObj(jsonContent);
                 advice = json.getStr("advice");
                 actionsJson = JSONUtil.toJsonStr(json.getJSONArray("actions"));
@@ -284,35 +372,43 @@ public class BizInvestmentReportServiceImpl implements IBizInvestmentReportServi
         report.setAnalysisResult(defaultAnalysis);
         report.setAdviceContent(advice);
         report.setExecuteJson(actionsJson);
-        report.setStatus("0");
-        report.setCreateTime(DateUtils.getNowDate());
+        report.setStatus(BizInvestmentReport.STATUS_PENDING);
+        return report;
+    }
 
-        this.insertBizInvestmentReport(report);
-        log.info(">>> 投资建议报告已生成并保存。");
+    @Override
+    public void generateReport(Long messageId, boolean refresh) {
+        generateReport(messageId, refresh, ReportJobProgress.NONE);
     }
 
     @Override
-    public void generateReport(Long messageId) {
+    public Long generateReport(Long messageId, boolean refresh, ReportJobProgress progress) {
         // 1. 获取新闻
+        progress.update(10, "加载新闻、持仓与行情", null);
         BizCryptoMessage message = messageService.selectBizCryptoMessageById(messageId);
-        if (message == null) return;
+        if (message == null) {
+            throw new ServiceException("消息 " + messageId + " 不存在");
+        }
 
         // 2. 获取当前所有持仓
         BizAssetHoldings holdingsQuery = new BizAssetHoldings();
         List<BizAssetHoldings> holdings = holdingsService.selectBizAssetHoldingsList(holdingsQuery);
-        String holdingsJson = JSONUtil.toJsonStr(holdings);
 
-        // 3. 获取最新行情数据
-        List<BizCryptoMetrics> metrics = metricsService.selectBizCryptoMetricsList(new BizCryptoMetrics());
-        String metricsJson = JSONUtil.toJsonStr(metrics);
+        // 3. 获取最新行情数据（每个币种一条，来自内存快照）
+        List<BizCryptoMetrics> metrics = metricsService.selectLatestMetrics();
+        PromptContext context = promptContextSerializer.serialize(holdings, metrics, java.util.Collections.<BizCryptoMessage>emptyList());
+        if (progress.isCancelled()) {
+            return null;
+        }
 
         // 4. 构建 Prompt (针对单条新闻)
         String prompt = String.format(
                 "【角色】你是一位严谨的数字货币投资顾问。\n" +
                         "【背景】我收到一条新闻：%s (涉及币种:%s, 情感:%s)。\n" +
-                        "【现状】我的当前持有资产如下：%s。\n" +
-                        "【行情】最新市场行情如下：%s。\n" +
-                        "【任务】请结合新闻、当前持仓以及市场行情，给出投资建议。\n" +
+                        "【现状】我的当前持有资产如下：\n%s\n" +
+                        "【行情】最新市场行情如下：\n%s\n" +
+                        "【情绪】各币种近期新闻情绪指数（情绪分 -2 重大利空 ~ 2 重大利好）：\n%s\n" +
+                        "【任务】请结合新闻、当前持仓、市场行情以及近期整体情绪，给出投资建议。\n" +
                         "【硬性约束】\n" +
                         "1. 如果你建议卖出（SELL），建议卖出的数量（amount）绝对不能超过该币种的当前持有数量。\n" +
                         "2. 如果该币种当前持仓为 0，你不能建议卖出（SELL），只能建议买入（BUY）或持有（HOLD）。\n" +
@@ -321,46 +417,15 @@ public class BizInvestmentReportServiceImpl implements IBizInvestmentReportServi
                         "1. advice: 建议内容，要求专业、逻辑严密，并解释为什么要操作这个数量。\n" +
                         "2. actions: 一个数组，包含具体的操作指令。每个操作包含：\n" +
                         "   - type: 操作类型，可选值：BUY, SELL, HOLD\n" +
-                        "   - coin: 币种名称（请务必使用上述【现状】中提供的 coin 字段值，如“比特币”或“ETH”）\n" +
+                        "   - coin: 币种名称（请务必使用上述【现状】中提供的币种列的值，如“比特币”或“ETH”）\n" +
                         "   - amount: 建议操作的数量（必须大于0，SELL时不能超过持仓量）\n" +
                         "   - price: 建议操作的价格（参考当前行情）\n" +
                         "示例格式：{\"advice\": \"...\", \"actions\": [{\"type\": \"SELL\", \"coin\": \"BTC\", \"amount\": 0.1, \"price\": 27000}]}\n" +
                         "请直接输出 JSON，不要包含 Markdown 代码块标记。",
-                message.getContent(), message.getCoin(), message.getSentiment(), holdingsJson, metricsJson
+                message.getContent(), message.getCoin(), message.getSentiment(), context.getHoldings(), context.getMetrics(), context.getSentiment()
         );
 
         // 5. 调用 AI
-        String aiResponse = difyUtils.sendReportRequest(prompt, "system_analyst");
-        
-        processAndSaveReport(aiResponse, messageId, message.getSentiment());
-    }
-
-    /**
-     * 从字符串中提取 JSON 内容
-     */
-    private String extractJson(String text) {
-        if (text == null) return null;
-
-        String cleanText = text.trim();
-
-        // 1. 移除 DeepSeek 等模型的 <think> 标签
-        if (cleanText.contains("<think>")) {
-            cleanText = cleanText.replaceAll("<think>.*?</think>", "").trim();
-        }
-
-        // 2. 尝试直接去掉 markdown 标记
-        String cleaned = cleanText.replace("```json", "").replace("```", "").trim();
-        if (cleaned.startsWith("{") && cleaned.endsWith("}")) {
-            return cleaned;
-        }
-
-        // 3. 正则提取第一个 { ... }
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\\{.*\\}", java.util.regex.Pattern.DOTALL);
-        java.util.regex.Matcher matcher = pattern.matcher(cleaned);
-        if (matcher.find()) {
-            return matcher.group();
-        }
-
-        return cleaned;
+        return requestAndSaveReport(prompt, "system_analyst", messageId, message.getSentiment(), refresh, progress);
     }
 }
\ No newline at end of file
@@ -1,84 +1,114 @@
 package org.example.system.utils;
 
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
-import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
-import org.springframework.beans.factory.annotation.Value;
+import org.example.system.crypto.CoinRegistry;
+import org.example.system.dify.DifyAssistant;
+import org.example.system.dify.DifyClient;
+import org.example.system.dify.LlmJsonExtractor;
+import org.example.system.dify.LlmJsonSchema;
+import org.example.system.domain.BizCoinRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 @Component
 public class DifyUtils {
 
     private static final Logger log = LoggerFactory.getLogger(DifyUtils.class);
 
-    @Value("${dify.api.news-key}")
-    private String newsApiKey;
+    /** 行情提示词中每个币种除 name 外的字段说明 */
+    private static final String METRICS_ROW = ", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, "
+            + "\"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, "
+            + "\"block_count\": 24h最低价, \"ath_price\": 历史最高价美元}";
 
-    @Value("${dify.api.metrics-key}")
-    private String metricsApiKey;
+    @Autowired
+    private DifyClient difyClient;
 
-    @Value("${dify.api.report-key}")
-    private String reportApiKey;
-
-    @Value("${dify.api.url}")
-    private String apiUrl;
+    @Autowired
+    private CoinRegistry coinRegistry;
 
     /**
      * 发送消息给 Dify 聊天助手（用于市场情报新闻）
      */
     public String sendRequest(String query, String user) {
-        return sendToDify(query, user, newsApiKey, "市场情报");
+        return sendRequest(query, user, false);
+    }
+
+    /**
+     * 发送消息给 Dify 聊天助手（用于市场情报新闻）
+     *
+     * @param refresh 是否跳过答案缓存强制请求
+     */
+    public String sendRequest(String query, String user, boolean refresh) {
+        return sendToDify(query, user, DifyAssistant.NEWS, refresh);
     }
 
     /**
      * 发送消息给 Dify 聊天助手（用于投资建议报告）
      */
     public String sendReportRequest(String query, String user) {
-        return sendToDify(query, user, reportApiKey, "投资建议报告");
+        return sendReportRequest(query, user, false);
     }
 
     /**
-     * 通用的 Dify 请求方法
+     * 发送消息给 Dify 聊天助手（用于投资建议报告）
+     *
+     * @param refresh 是否跳过答案缓存强制请求
      */
-    private String sendToDify(String query, String user, String apiKey, String logTag) {
-        JSONObject inputs = new JSONObject();
-        inputs.set("coin_name", "ALL");
+    public String sendReportRequest(String query, String user, boolean refresh) {
+        return sendToDify(query, user, DifyAssistant.REPORT, refresh);
+    }
 
-        JSONObject body = new JSONObject();
-        body.set("inputs", inputs);
-        body.set("query", query);
-        body.set("response_mode", "blocking");
-        body.set("user", user);
+    /**
+     * 异步发送消息给 Dify 聊天助手（用于市场情报新闻）
+     */
+    public CompletableFuture<String> sendRequestAsync(String query, String user) {
+        return difyClient.chatAsync(DifyAssistant.NEWS, query, user, coinInputs("ALL"));
+    }
 
-        String requestUrl = apiUrl + "/chat-messages";
+    /**
+     * 异步发送消息给 Dify 聊天助手（用于投资建议报告）
+     */
+    public CompletableFuture<String> sendReportRequestAsync(String query, String user) {
+        return difyClient.chatAsync(DifyAssistant.REPORT, query, user, coinInputs("ALL"));
+    }
+
+    /**
+     * 通用的 Dify 请求方法（同步等待异步客户端的结果）
+     */
+    private String sendToDify(String query, String user, DifyAssistant assistant, boolean refresh) {
+        log.info("正在请求 Dify AI {}: {}", assistant.getLogTag(), query);
+        return await(difyClient.chatAsync(assistant, query, user, coinInputs("ALL"), refresh), assistant.getLogTag());
+    }
+
+    /**
+     * 等待异步结果，失败时记录日志并返回 null（保持原同步方法的语义）
+     */
+    private String await(CompletableFuture<String> future, String logTag) {
         try {
-            log.info("正在请求 Dify AI {}: {}", logTag, query);
-            HttpResponse response = HttpRequest.post(requestUrl)
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .body(body.toString())
-                    .timeout(300000) // 5分钟超时
-                    .execute();
-
-            if (response.isOk()) {
-                String resStr = response.body();
-                JSONObject json = JSONUtil.parseObj(resStr);
-                return json.getStr("answer");
-            } else {
-                log.error("Dify {} 请求失败: {}，响应内容: {}", logTag, response.getStatus(), response.body());
-            }
-        } catch (Exception e) {
-            log.error("Dify {} 连接异常", logTag, e);
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            log.error("Dify {} 请求被中断", logTag);
+        } catch (ExecutionException | CompletionException e) {
+            log.error("Dify {} 连接异常", logTag, e.getCause() != null ? e.getCause() : e);
         }
         return null;
     }
 
+    private Map<String, Object> coinInputs(String coinName) {
+        return Collections.<String, Object>singletonMap("coin_name", coinName);
+    }
+
     /**
      * 采集最新比特币市场数据（使用行情专用 Key）
      */
@@ -96,151 +126,87 @@ public class DifyUtils {
                 " \"ath_price\": 历史最高价\n" +
                 "}";
 
-        JSONObject inputs = new JSONObject();
-        inputs.set("coin_name", "BTC");
+        log.info("正在采集比特币市场数据（使用行情专用 Key）");
+        String answer = await(difyClient.chatAsync(DifyAssistant.METRICS, query, "btc-collector", coinInputs("BTC")), "比特币行情");
+        if (answer == null) {
+            return null;
+        }
+        log.info("Dify 返回比特币数据: {}", answer);
 
-        JSONObject body = new JSONObject();
-        body.set("inputs", inputs);
-        body.set("query", query);
-        body.set("response_mode", "blocking");
-        body.set("user", "btc-collector");
+        String cleanJson = LlmJsonExtractor.extract(answer, LlmJsonSchema.METRICS);
+        if (cleanJson == null) {
+            log.error("未能提取到有效的 JSON 对象结构");
+            return null;
+        }
 
-        String requestUrl = apiUrl + "/chat-messages";
-        try {
-            log.info("正在采集比特币市场数据（使用行情专用 Key）");
-            HttpResponse response = HttpRequest.post(requestUrl)
-                    .header("Authorization", "Bearer " + metricsApiKey)
-                    .header("Content-Type", "application/json")
-                    .body(body.toString())
-                    .timeout(300000)
-                    .execute();
-
-            if (response.isOk()) {
-                String resStr = response.body();
-                JSONObject json = JSONUtil.parseObj(resStr);
-                String answer = json.getStr("answer");
-                log.info("Dify 返回比特币数据: {}", answer);
-
-                String cleanJson = answer.trim();
-
-                if (cleanJson.contains("<think>")) {
-                    cleanJson = cleanJson.replaceAll("<think>.*?</think>", "").trim();
-                }
-
-                Matcher matcher = Pattern.compile("\\{.*\\}", Pattern.DOTALL).matcher(cleanJson);
-                if (matcher.find()) {
-                    cleanJson = matcher.group(0);
-                }
-
-                log.info("提取后的纯 JSON: {}", cleanJson);
-                return cleanJson;
-            } else {
-                log.error("比特币数据采集请求失败: {}，响应内容: {}", response.getStatus(), response.body());
-            }
-        } catch (Exception e) {
-            log.error("采集比特币市场数据异常", e);
+        log.info("提取后的纯 JSON: {}", cleanJson);
+        return cleanJson;
+    }
+
+    /**
+     * 按币种登记表生成多币种行情提示词（每个采集币种一行示例，顺序与登记表一致）
+     */
+    private String buildMetricsQuery(List<BizCoinRegistry> coins) {
+        StringBuilder query = new StringBuilder(256 + coins.size() * METRICS_ROW.length());
+        query.append("你必须严格按照以下格式立即返回").append(coins.size())
+                .append("种主流加密货币的最新行情数据，**字段名必须使用下划线**，禁止使用驼峰格式，禁止返回任何解释、思考、<think>标签或额外文字，只返回纯 JSON：\n")
+                .append("{\n")
+                .append("  \"data\": [\n");
+        for (int i = 0; i < coins.size(); i++) {
+            query.append("    {\"name\": \"").append(coins.get(i).getName()).append('"').append(METRICS_ROW);
+            query.append(i < coins.size() - 1 ? ",\n" : "\n");
         }
-        return null;
+        query.append("  ]\n")
+                .append("}\n")
+                .append("注意：hash_rate字段请填充7天涨跌幅百分比数值，total_fees_btc填充24h最高价，block_count填充24h最低价。所有数字字段必须是数字。必须使用最新真实数据填充。直接输出 JSON。");
+        return query.toString();
     }
 
     /**
      * 采集多个主流虚拟货币的最新行情数据（强制返回下划线格式，包含所有字段）
      */
     public String collectMultiCryptoMetrics() {
-        String query = "你必须严格按照以下格式立即返回15种主流加密货币的最新行情数据，**字段名必须使用下划线**，禁止使用驼峰格式，禁止返回任何解释、思考、<think>标签或额外文字，只返回纯 JSON：\n" +
-                "{\n" +
-                "  \"data\": [\n" +
-                "    {\"name\": \"比特币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"以太坊\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"泰达币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"币安币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"索拉纳\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"瑞波币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"USDC\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"狗狗币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"艾达币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"波场\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"吨币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"波卡\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"链节币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"柴犬币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元},\n" +
-                "    {\"name\": \"莱特币\", \"price_usd\": 当前价格, \"market_cap\": 当前市值亿美元, \"hash_rate\": 7天涨跌幅百分比, \"24h_change\": 24小时涨跌幅百分比, \"transaction_count\": \"流通量字符串\", \"total_fees_btc\": 24h最高价, \"block_count\": 24h最低价, \"ath_price\": 历史最高价美元}\n" +
-                "  ]\n" +
-                "}\n" +
-                "注意：hash_rate字段请填充7天涨跌幅百分比数值，total_fees_btc填充24h最高价，block_count填充24h最低价。所有数字字段必须是数字。必须使用最新真实数据填充。直接输出 JSON。";
-
-
-        JSONObject inputs = new JSONObject();
-        inputs.set("coin_name", "MULTI");
-
-        JSONObject body = new JSONObject();
-        body.set("inputs", inputs);
-        body.set("query", query);
-        body.set("response_mode", "blocking");
-        body.set("user", "metrics-collector");
-
-        String requestUrl = apiUrl + "/chat-messages";
+        return collectMultiCryptoMetrics(false);
+    }
+
+    /**
+     * 采集多个主流虚拟货币的最新行情数据
+     *
+     * @param refresh 是否跳过答案缓存强制请求
+     */
+    public String collectMultiCryptoMetrics(boolean refresh) {
+        List<BizCoinRegistry> coins = coinRegistry.getTrackedCoins();
+        if (coins.isEmpty()) {
+            log.error("币种登记表中没有需要采集行情的币种");
+            return null;
+        }
+        String query = buildMetricsQuery(coins);
+
+        log.info("正在采集多币种行情数据...");
+        Map<String, Object> inputs = coinInputs("MULTI");
+        // 失败重试、退避与熔断由 DifyClient 统一处理
+        String answer = await(difyClient.chatAsync(DifyAssistant.METRICS, query, "metrics-collector", inputs, refresh), "多币种行情");
+
+        if (answer == null || answer.trim().isEmpty()) {
+            log.error("Dify 返回 answer 为空");
+            return null;
+        }
+
+        String cleanJson = LlmJsonExtractor.extract(answer, LlmJsonSchema.METRICS);
+        if (cleanJson == null) {
+            log.error("未能提取到有效的 JSON 对象结构");
+            difyClient.evictCache(DifyAssistant.METRICS, query, inputs);
+            return null;
+        }
 
         try {
-            log.info("正在采集多币种行情数据...");
-
-            // 第一次请求
-            HttpResponse response = HttpRequest.post(requestUrl)
-                    .header("Authorization", "Bearer " + metricsApiKey)
-                    .header("Content-Type", "application/json")
-                    .body(body.toString())
-                    .timeout(300000)
-                    .execute();
-
-            // 重试一次
-            if (!response.isOk()) {
-                log.warn("第一次请求失败（{}），准备重试...", response.getStatus());
-                response = HttpRequest.post(requestUrl)
-                        .header("Authorization", "Bearer " + metricsApiKey)
-                        .header("Content-Type", "application/json")
-                        .body(body.toString())
-                        .timeout(300000)
-                        .execute();
-            }
-
-            if (response.isOk()) {
-                String resStr = response.body();
-                JSONObject json = JSONUtil.parseObj(resStr);
-                String answer = json.getStr("answer");
-
-                if (answer == null || answer.trim().isEmpty()) {
-                    log.error("Dify 返回 answer 为空");
-                    return null;
-                }
-
-                String cleanJson = answer.trim();
-
-                if (cleanJson.contains("<think>")) {
-                    cleanJson = cleanJson.replaceAll("<think>.*?</think>", "").trim();
-                }
-
-                Matcher matcher = Pattern.compile("\\{.*\\}", Pattern.DOTALL).matcher(cleanJson);
-                if (matcher.find()) {
-                    cleanJson = matcher.group(0);
-                } else {
-                    log.error("未能提取到有效的 JSON 对象结构");
-                    return null;
-                }
-
-                try {
-                    JSONUtil.parseObj(cleanJson);
-                    log.info("成功提取多币种行情纯 JSON: {}", cleanJson);
-                    return cleanJson;
-                } catch (Exception e) {
-                    log.error("提取的 JSON 格式无效: {}", cleanJson);
-                    return null;
-                }
-            } else {
-                log.error("多币种行情采集失败（含重试）: {}，响应: {}", response.getStatus(), response.body());
-            }
+            JSONUtil.parseObj(cleanJson);
+            log.info("成功提取多币种行情纯 JSON: {}", cleanJson);
+            return cleanJson;
         } catch (Exception e) {
-            log.error("采集多币种行情异常", e);
+            log.error("提取的 JSON 格式无效: {}", cleanJson);
+            difyClient.evictCache(DifyAssistant.METRICS, query, inputs);
+            return null;
         }
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package org.example.system.security.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * 预编译权限匹配器与原有逐条通配匹配的一致性
+ */
+class PermissionMatcherTest
+{
+    /** 段取值：普通段、整段通配、空段、段内通配 */
+    private static final String[] SEGMENTS = { "a", "b", "c", "*", "", "sys*", "x" };
+
+    /**
+     * 原有实现（AuthLogic.hasPermi）：权限是 "*:*:*" 的子串即拥有所有权限，否则逐条 simpleMatch
+     */
+    private static boolean expected(Collection<String> permissions, String permission)
+    {
+        return permissions.stream().filter(StringUtils::hasText)
+                .anyMatch(x -> "*:*:*".contains(x) || PatternMatchUtils.simpleMatch(x, permission));
+    }
+
+    @Test
+    void matchesLikeSimpleMatchOnRandomPermissions()
+    {
+        Random random = new Random(20240601L);
+        for (int i = 0; i < 200000; i++)
+        {
+            List<String> permissions = new ArrayList<String>();
+            int count = random.nextInt(4);
+            for (int j = 0; j < count; j++)
+            {
+                permissions.add(randomPermission(random, 4));
+            }
+            String permission = randomPermission(random, 5);
+            assertEquals(expected(permissions, permission), PermissionMatcher.compile(permissions).matches(permission),
+                    () -> permissions + " -> " + permission);
+        }
+    }
+
+    @Test
+    void matchesTypicalPermissions()
+    {
+        PermissionMatcher matcher = PermissionMatcher.compile(Arrays.asList("system:user:list", "system:role:*", "monitor:*"));
+        assertTrue(matcher.matches("system:user:list"));
+        assertFalse(matcher.matches("system:user:edit"));
+        assertTrue(matcher.matches("system:role:edit"));
+        assertTrue(matcher.matches("monitor:online:forceLogout"));
+        assertFalse(matcher.matches("system:menu:list"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void allPermission()
+    {
+        PermissionMatcher matcher = PermissionMatcher.compile(Arrays.asList("system:user:list", "*:*:*"));
+        assertTrue(matcher.isAll());
+        assertTrue(matcher.matches("anything:at:all"));
+    }
+
+    @Test
+    void emptyPermissions()
+    {
+        assertFalse(PermissionMatcher.compile(Collections.<String>emptyList()).matches("system:user:list"));
+        assertFalse(PermissionMatcher.compile(Arrays.asList("", null)).matches("system:user:list"));
+    }
+
+    private static String randomPermission(Random random, int maxSegments)
+    {
+        int segments = 1 + random.nextInt(maxSegments);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < segments; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(':');
+            }
+            sb.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+        }
+        return sb.toString();
+    }
+}
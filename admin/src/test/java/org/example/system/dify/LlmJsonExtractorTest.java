@@ -0,0 +1,205 @@
+package org.example.system.dify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import cn.hutool.json.JSON;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * LLM 答案 JSON 提取：dify-stub 录制答案（规范、代码块 + 尾逗号、夹在说明文字中、单引号、截断、无 JSON）与补充的千分位样例
+ */
+class LlmJsonExtractorTest
+{
+    static Stream<Arguments> recordings()
+    {
+        return Stream.of(
+                recording("metrics", 0, LlmJsonSchema.METRICS, json -> {
+                    JSONArray data = ((JSONObject) json).getJSONArray("data");
+                    assertEquals(3, data.size());
+                    assertNumber("67250.5", data.getJSONObject(0).get("price_usd"));
+                }),
+                recording("metrics", 1, LlmJsonSchema.METRICS, json -> {
+                    JSONArray data = ((JSONObject) json).getJSONArray("data");
+                    assertEquals(2, data.size());
+                    assertNumber("67310.20", data.getJSONObject(0).get("price_usd"));
+                    assertNumber("1.2", data.getJSONObject(0).get("24h_change"));
+                }),
+                recording("metrics", 2, LlmJsonSchema.METRICS, json -> {
+                    JSONArray data = ((JSONObject) json).getJSONArray("data");
+                    assertEquals(2, data.size());
+                    assertEquals("狗狗币", data.getJSONObject(1).getStr("name"));
+                    assertNumber("0.1632", data.getJSONObject(1).get("priceUsd"));
+                }),
+                recording("metrics", 3, LlmJsonSchema.METRICS, json -> {
+                    JSONArray data = ((JSONObject) json).getJSONArray("data");
+                    assertEquals(1, data.size());
+                    assertEquals("比特币", data.getJSONObject(0).getStr("name"));
+                }),
+                recording("metrics", 4, LlmJsonSchema.METRICS, null),
+                recording("news", 0, LlmJsonSchema.NEWS, json -> {
+                    JSONObject root = (JSONObject) json;
+                    assertEquals(2, root.getJSONArray("比特币").size());
+                    assertNumber("2", root.getJSONArray("比特币").getJSONObject(0).get("influence_score"));
+                    assertEquals(1, root.getJSONArray("以太坊").size());
+                }),
+                recording("news", 1, LlmJsonSchema.NEWS, json -> {
+                    JSONObject root = (JSONObject) json;
+                    assertEquals(1, root.getJSONArray("索拉纳").size());
+                    assertNumber("1", root.getJSONArray("索拉纳").getJSONObject(0).get("influence_score"));
+                    assertEquals(1, root.getJSONArray("瑞波币").size());
+                }),
+                recording("news", 2, LlmJsonSchema.NEWS, json -> {
+                    JSONObject root = (JSONObject) json;
+                    assertEquals(2, root.size());
+                    assertNumber("-2", root.getJSONArray("波卡").getJSONObject(0).get("influence_score"));
+                }),
+                recording("news", 3, LlmJsonSchema.NEWS, json -> {
+                    JSONObject root = (JSONObject) json;
+                    assertEquals(1, root.getJSONArray("链节币").size());
+                    // 截断的最后一条新闻被丢弃
+                    assertTrue(root.getJSONArray("莱特币").isEmpty());
+                }),
+                recording("report", 0, LlmJsonSchema.REPORT, json -> {
+                    JSONArray actions = ((JSONObject) json).getJSONArray("actions");
+                    assertEquals(2, actions.size());
+                    assertNumber("67200", actions.getJSONObject(0).get("price"));
+                }),
+                recording("report", 1, LlmJsonSchema.REPORT, json -> {
+                    JSONArray actions = ((JSONObject) json).getJSONArray("actions");
+                    assertEquals(2, actions.size());
+                    assertNumber("2.5", actions.getJSONObject(0).get("amount"));
+                    assertNumber("152.3", actions.getJSONObject(0).get("price"));
+                }),
+                recording("report", 2, LlmJsonSchema.REPORT, null),
+                recording("report", 3, LlmJsonSchema.REPORT, json -> {
+                    JSONObject root = (JSONObject) json;
+                    assertNotNull(root.getStr("advice"));
+                    assertTrue(root.getJSONArray("actions").isEmpty());
+                }));
+    }
+
+    static Stream<Arguments> samples()
+    {
+        return Stream.of(
+                sample("未加引号的千分位", "{\"data\": [{\"price_usd\": 27,000, \"name\": \"x\"}]}", LlmJsonSchema.METRICS, json -> {
+                    JSONObject item = ((JSONObject) json).getJSONArray("data").getJSONObject(0);
+                    assertNumber("27000", item.get("price_usd"));
+                    assertEquals("x", item.getStr("name"));
+                }),
+                sample("多段千分位", "{\"data\": [{\"market_cap\": 1,234,567}]}", LlmJsonSchema.METRICS, json ->
+                        assertNumber("1234567", ((JSONObject) json).getJSONArray("data").getJSONObject(0).get("market_cap"))),
+                sample("千分位带单位与小数", "{\"data\": [{\"price_usd\": $27,000.50\n}]}", LlmJsonSchema.METRICS, json ->
+                        assertNumber("27000.50", ((JSONObject) json).getJSONArray("data").getJSONObject(0).get("price_usd"))),
+                sample("加引号的千分位", "{\"data\": [{\"price_usd\": \"$27,000\"}]}", LlmJsonSchema.METRICS, json ->
+                        assertNumber("27000", ((JSONObject) json).getJSONArray("data").getJSONObject(0).get("price_usd"))),
+                sample("逗号后是下一个成员", "{\"data\": [{\"price_usd\": 27,\"000\": 1}]}", LlmJsonSchema.METRICS, json -> {
+                    JSONObject item = ((JSONObject) json).getJSONArray("data").getJSONObject(0);
+                    assertNumber("27", item.get("price_usd"));
+                    assertNumber("1", item.get("000"));
+                }),
+                sample("非数值字段不合并", "{\"name\": 27,000}", LlmJsonSchema.METRICS, json ->
+                        assertNumber("27", ((JSONObject) json).get("name"))),
+                sample("单引号字符串含逗号与冒号", "{'advice': 'BTC: 观望, 等回调', 'actions': []}", LlmJsonSchema.REPORT, json ->
+                        assertEquals("BTC: 观望, 等回调", ((JSONObject) json).getStr("advice"))),
+                sample("数组中的逗号是分隔符", "[1,000]", null, json ->
+                        assertEquals(2, ((JSONArray) json).size())),
+                sample("think 块中的 JSON 被跳过", "<think>{\"a\": 1}</think>{\"b\": 2}", null, json ->
+                        assertTrue(((JSONObject) json).containsKey("b"))));
+    }
+
+    @ParameterizedTest(name = "{0}#{1}")
+    @MethodSource("recordings")
+    void extractsRecordedAnswers(String assistant, int index, LlmJsonSchema schema, Consumer<JSON> check) throws IOException
+    {
+        List<String> answers = loadRecordings(assistant);
+        verify(LlmJsonExtractor.extract(answers.get(index), schema), check);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("samples")
+    void extractsSamples(String name, String answer, LlmJsonSchema schema, Consumer<JSON> check)
+    {
+        verify(LlmJsonExtractor.extract(answer, schema), check);
+    }
+
+    private static void verify(String json, Consumer<JSON> check)
+    {
+        if (check == null)
+        {
+            assertNull(json);
+            return;
+        }
+        assertNotNull(json);
+        // 输出必须是严格合法的 JSON
+        check.accept(JSONUtil.parse(json));
+    }
+
+    private static void assertNumber(String expected, Object actual)
+    {
+        assertTrue(actual instanceof Number, () -> "不是数字: " + actual);
+        assertEquals(0, new BigDecimal(expected).compareTo(new BigDecimal(actual.toString())), () -> expected + " != " + actual);
+    }
+
+    private static Arguments recording(String assistant, int index, LlmJsonSchema schema, Consumer<JSON> check)
+    {
+        return Arguments.of(assistant, index, schema, check);
+    }
+
+    private static Arguments sample(String name, String answer, LlmJsonSchema schema, Consumer<JSON> check)
+    {
+        return Arguments.of(name, answer, schema, check);
+    }
+
+    /**
+     * 按 DifyStubServer 的格式读取录制答案：答案之间用单独一行 ===== 分隔
+     */
+    private static List<String> loadRecordings(String assistant) throws IOException
+    {
+        String text;
+        try (InputStream in = LlmJsonExtractorTest.class.getClassLoader().getResourceAsStream("dify-stub/" + assistant + ".txt"))
+        {
+            assertNotNull(in, assistant + ".txt");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+            {
+                bytes.write(buffer, 0, read);
+            }
+            text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+        List<String> answers = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+        for (String line : text.split("\r?\n", -1))
+        {
+            if ("=====".equals(line.trim()))
+            {
+                answers.add(current.toString());
+                current.setLength(0);
+            }
+            else
+            {
+                current.append(line).append('\n');
+            }
+        }
+        answers.add(current.toString());
+        return answers;
+    }
+}
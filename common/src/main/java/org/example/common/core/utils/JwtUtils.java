@@ -6,8 +6,22 @@ import org.example.common.core.text.Convert;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.jsonwebtoken.impl.TextCodec;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Jwt工具类
@@ -18,6 +32,37 @@ public class JwtUtils
 {
     public static String secret = TokenConstants.SECRET;
 
+    /** 已验签数据声明的缓存条数上限 */
+    private static final int CLAIMS_CACHE_MAX_ENTRIES = 10000;
+
+    /** 令牌未携带过期时间时，已验签数据声明的缓存时长（毫秒） */
+    private static final long CLAIMS_CACHE_TTL = 30 * 60 * 1000L;
+
+    /** 由 secret 推导的签名密钥，secret 变化时重建 */
+    private static volatile SigningKey signingKey;
+
+    /**
+     * 已验签的数据声明，以令牌的 SHA-256 为键（不在内存中保留令牌原文）。
+     * 同一令牌在每个请求中都会被解析，命中时省去 HMAC 验签与 JSON 解析；读取不加锁，
+     * 超过上限时由一个线程清理：先删除过期条目，仍超出时按遍历顺序删除到上限的 3/4
+     */
+    private static final ConcurrentHashMap<String, CachedClaims> CLAIMS_CACHE = new ConcurrentHashMap<String, CachedClaims>();
+
+    /** 是否有线程正在清理缓存 */
+    private static final AtomicBoolean CLAIMS_EVICTING = new AtomicBoolean();
+
+    /** 每线程复用的摘要实例，避免每次解析都查找安全提供者 */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    });
+
     /**
      * 从数据声明生成令牌
      *
@@ -26,7 +71,7 @@ public class JwtUtils
      */
     public static String createToken(Map<String, Object> claims)
     {
-        String token = Jwts.builder().setClaims(claims).signWith(SignatureAlgorithm.HS512, secret).compact();
+        String token = Jwts.builder().setClaims(claims).signWith(SignatureAlgorithm.HS512, getSigningKey()).compact();
         return token;
     }
 
@@ -34,11 +79,74 @@ public class JwtUtils
      * 从令牌中获取数据声明
      *
      * @param token 令牌
-     * @return 数据声明
+     * @return 数据声明（只读，同一令牌可能返回同一个实例）
      */
     public static Claims parseToken(String token)
     {
-        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        CachedClaims cached = CLAIMS_CACHE.get(digest);
+        if (cached != null)
+        {
+            if (cached.expireAt > now && cached.key.secret.equals(secret))
+            {
+                return cached.claims;
+            }
+            CLAIMS_CACHE.remove(digest, cached);
+        }
+        SigningKey key = getSigningKeyHolder();
+        Claims parsed = Jwts.parser().setSigningKey(key.key).parseClaimsJws(token).getBody();
+        Claims claims = new DefaultClaims(Collections.unmodifiableMap(new LinkedHashMap<String, Object>(parsed)));
+        long expireAt = now + CLAIMS_CACHE_TTL;
+        Date expiration = claims.getExpiration();
+        if (expiration != null)
+        {
+            expireAt = Math.min(expireAt, expiration.getTime());
+        }
+        CLAIMS_CACHE.put(digest, new CachedClaims(claims, key, expireAt));
+        if (CLAIMS_CACHE.size() > CLAIMS_CACHE_MAX_ENTRIES)
+        {
+            evictClaims(now);
+        }
+        return claims;
+    }
+
+    /**
+     * 清空已验签数据声明的缓存
+     */
+    public static void clearClaimsCache()
+    {
+        CLAIMS_CACHE.clear();
+    }
+
+    private static void evictClaims(long now)
+    {
+        if (!CLAIMS_EVICTING.compareAndSet(false, true))
+        {
+            return;
+        }
+        try
+        {
+            Iterator<CachedClaims> values = CLAIMS_CACHE.values().iterator();
+            while (values.hasNext())
+            {
+                if (values.next().expireAt <= now)
+                {
+                    values.remove();
+                }
+            }
+            Iterator<String> keys = CLAIMS_CACHE.keySet().iterator();
+            int target = CLAIMS_CACHE_MAX_ENTRIES / 4 * 3;
+            while (CLAIMS_CACHE.size() > target && keys.hasNext())
+            {
+                keys.next();
+                keys.remove();
+            }
+        }
+        finally
+        {
+            CLAIMS_EVICTING.set(false);
+        }
     }
 
     /**
@@ -121,4 +229,60 @@ public class JwtUtils
     {
         return Convert.toStr(claims.get(key), "");
     }
+
+    private static Key getSigningKey()
+    {
+        return getSigningKeyHolder().key;
+    }
+
+    /**
+     * 与 jjwt 传入字符串密钥时的处理一致：按 Base64 解码后作为 HmacSHA512 密钥，只在 secret 变化时重建
+     */
+    private static SigningKey getSigningKeyHolder()
+    {
+        SigningKey key = signingKey;
+        String current = secret;
+        if (key == null || !key.secret.equals(current))
+        {
+            key = new SigningKey(current, new SecretKeySpec(TextCodec.BASE64.decode(current),
+                    SignatureAlgorithm.HS512.getJcaName()));
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private static String digest(String token)
+    {
+        MessageDigest md = SHA256.get();
+        return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static class SigningKey
+    {
+        private final String secret;
+
+        private final Key key;
+
+        private SigningKey(String secret, Key key)
+        {
+            this.secret = secret;
+            this.key = key;
+        }
+    }
+
+    private static class CachedClaims
+    {
+        private final Claims claims;
+
+        private final SigningKey key;
+
+        private final long expireAt;
+
+        private CachedClaims(Claims claims, SigningKey key, long expireAt)
+        {
+            this.claims = claims;
+            this.key = key;
+            this.expireAt = expireAt;
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package org.example.common.redis.service;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 分布式租约（由 {@link RedisLeaseService} 获取，持有期间自动续期）
+ *
+ * 每次获取都会分配一个单调递增的防护令牌（fencing token）：后获取者的令牌一定更大。
+ * 防护须由存储端执行：把令牌与数据一起写入，并以“已写入的令牌不大于本次令牌”为写入条件；
+ * {@link #checkFence()} 只是写入前的尽力复查，查完之后租约仍可能被接手，不能代替存储端的校验。
+ */
+public class RedisLease implements AutoCloseable
+{
+    private final RedisLeaseService service;
+
+    private final String name;
+
+    private final String token;
+
+    private final long fence;
+
+    private final long ttlMillis;
+
+    private final long acquireTime;
+
+    /** 本地推算的到期时间（最后一次成功续期时间 + 有效期） */
+    private volatile long expiresAt;
+
+    /** 续期时发现已被他人持有，或已释放 */
+    private volatile boolean lost;
+
+    private volatile ScheduledFuture<?> renewal;
+
+    RedisLease(RedisLeaseService service, String name, String token, long fence, long ttlMillis, long acquireTime)
+    {
+        this.service = service;
+        this.name = name;
+        this.token = token;
+        this.fence = fence;
+        this.ttlMillis = ttlMillis;
+        this.acquireTime = acquireTime;
+        this.expiresAt = acquireTime + ttlMillis;
+    }
+
+    /**
+     * 租约名称
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * 防护令牌，数值越大表示获取得越晚
+     */
+    public long getFence()
+    {
+        return fence;
+    }
+
+    /**
+     * 本地判断是否仍持有（不访问 Redis）
+     */
+    public boolean isHeld()
+    {
+        return !lost && System.currentTimeMillis() < expiresAt;
+    }
+
+    /**
+     * 在 Redis 中确认租约仍由自己持有且令牌仍是最新的，否则抛出异常
+     *
+     * 尽力复查，用于在耗时步骤之后尽早放弃；写入的正确性依赖存储端对 {@link #getFence()} 的条件校验
+     */
+    public void checkFence()
+    {
+        service.checkFence(this);
+    }
+
+    /**
+     * 立即释放租约
+     */
+    @Override
+    public void close()
+    {
+        release(0L);
+    }
+
+    /**
+     * 释放租约
+     *
+     * @param minHoldMillis 自获取起至少保留的时长（毫秒）：未满时只把有效期缩短到剩余时长，
+     *                      避免时钟略有偏差的其他节点在同一触发周期内再次执行
+     */
+    public void release(long minHoldMillis)
+    {
+        service.release(this, Math.max(0L, minHoldMillis - (System.currentTimeMillis() - acquireTime)));
+    }
+
+    String getToken()
+    {
+        return token;
+    }
+
+    long getTtlMillis()
+    {
+        return ttlMillis;
+    }
+
+    boolean isLost()
+    {
+        return lost;
+    }
+
+    void renewed(long renewStart)
+    {
+        expiresAt = renewStart + ttlMillis;
+    }
+
+    void markLost()
+    {
+        lost = true;
+        ScheduledFuture<?> future = renewal;
+        if (future != null)
+        {
+            future.cancel(false);
+        }
+    }
+
+    void setRenewal(ScheduledFuture<?> renewal)
+    {
+        this.renewal = renewal;
+    }
+}
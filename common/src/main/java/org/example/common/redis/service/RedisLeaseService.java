@@ -0,0 +1,173 @@
+package org.example.common.redis.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.example.common.core.exception.ServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Redis 的分布式租约
+ *
+ * 租约键 SET NX PX 抢占，值为本次获取的唯一标识；同一脚本内对计数键 INCR 得到防护令牌。
+ * 持有期间每 1/3 有效期续期一次，续期、释放与令牌校验都先比对标识，绝不会误删或延长他人的租约。
+ * 进程异常退出时租约在有效期后自然过期，其他节点即可接手。
+ */
+@Component
+public class RedisLeaseService
+{
+    private static final Logger log = LoggerFactory.getLogger(RedisLeaseService.class);
+
+    private static final String LEASE_KEY = "lease:";
+
+    private static final String FENCE_KEY = "lease_fence:";
+
+    private static final RedisScript<Long> ACQUIRE = new DefaultRedisScript<>(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then "
+                    + "return redis.call('incr', KEYS[2]) end return 0", Long.class);
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "if tonumber(ARGV[2]) > 0 then return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+                    + "return redis.call('del', KEYS[1]) end return 0", Long.class);
+
+    private static final RedisScript<Long> CHECK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] and redis.call('get', KEYS[2]) == ARGV[2] then "
+                    + "return 1 end return 0", Long.class);
+
+    /** 本节点标识（进程名 + 随机串），写入租约值便于排查 */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + ":"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    private final Set<RedisLease> held = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "redis-lease-renewer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Autowired
+    private RedisService redisService;
+
+    /**
+     * 本节点标识
+     */
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        for (RedisLease lease : held)
+        {
+            lease.close();
+        }
+        renewer.shutdownNow();
+    }
+
+    /**
+     * 尝试获取租约（不等待）
+     *
+     * @param name 租约名称，同名租约同一时刻只有一个持有者
+     * @param ttlMillis 有效期（毫秒），持有期间自动续期
+     * @return 租约，已被其他持有者占用时返回 null
+     */
+    public RedisLease tryAcquire(String name, long ttlMillis)
+    {
+        String token = nodeId + ":" + UUID.randomUUID();
+        long start = System.currentTimeMillis();
+        Long fence = redisService.execute(ACQUIRE, keys(name), token, ttlMillis);
+        if (fence == null || fence == 0L)
+        {
+            return null;
+        }
+        RedisLease lease = new RedisLease(this, name, token, fence, ttlMillis, start);
+        held.add(lease);
+        long period = Math.max(1L, ttlMillis / 3);
+        lease.setRenewal(renewer.scheduleAtFixedRate(() -> renew(lease), period, period, TimeUnit.MILLISECONDS));
+        log.debug("已获取租约 [{}]，令牌 {}", name, fence);
+        return lease;
+    }
+
+    void checkFence(RedisLease lease)
+    {
+        if (lease.isLost())
+        {
+            throw new ServiceException("租约 [" + lease.getName() + "] 已失效");
+        }
+        Long ok = redisService.execute(CHECK, keys(lease.getName()), lease.getToken(), lease.getFence());
+        if (ok == null || ok == 0L)
+        {
+            lease.markLost();
+            held.remove(lease);
+            throw new ServiceException("租约 [" + lease.getName() + "] 已被其他节点接手（令牌 " + lease.getFence() + " 已过期）");
+        }
+    }
+
+    void release(RedisLease lease, long remainMillis)
+    {
+        if (!held.remove(lease))
+        {
+            return;
+        }
+        lease.markLost();
+        try
+        {
+            redisService.execute(RELEASE, keys(lease.getName()), lease.getToken(), remainMillis);
+        }
+        catch (Exception e)
+        {
+            log.warn("释放租约 [{}] 失败，将在有效期后自动过期", lease.getName(), e);
+        }
+    }
+
+    private void renew(RedisLease lease)
+    {
+        if (lease.isLost())
+        {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try
+        {
+            Long ok = redisService.execute(RENEW, keys(lease.getName()), lease.getToken(), lease.getTtlMillis());
+            if (ok != null && ok == 1L)
+            {
+                lease.renewed(start);
+                return;
+            }
+            log.warn("租约 [{}] 续期失败：已过期或被其他节点持有", lease.getName());
+            lease.markLost();
+            held.remove(lease);
+        }
+        catch (Exception e)
+        {
+            // 暂时无法访问 Redis：保留本地到期时间，下个周期重试
+            log.warn("租约 [{}] 续期异常", lease.getName(), e);
+        }
+    }
+
+    private static List<String> keys(String name)
+    {
+        return Arrays.asList(LEASE_KEY + name, FENCE_KEY + name);
+    }
+}
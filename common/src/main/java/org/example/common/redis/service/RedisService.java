@@ -3,10 +3,16 @@ package org.example.common.redis.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.BoundSetOperations;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -192,6 +198,30 @@ public class RedisService
         }
     }
 
+    /**
+     * 缓存Map并设置有效期（在同一事务中写入与设置过期时间）
+     *
+     * @param key 缓存的键值
+     * @param dataMap 缓存的数据
+     * @param timeout 时间
+     * @param timeUnit 时间颗粒度
+     */
+    public <T> void setCacheMap(final String key, final Map<String, T> dataMap, final long timeout, final TimeUnit timeUnit)
+    {
+        redisTemplate.execute(new SessionCallback<List<Object>>()
+        {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations)
+            {
+                operations.multi();
+                operations.opsForHash().putAll(key, dataMap);
+                operations.expire(key, timeout, timeUnit);
+                return operations.exec();
+            }
+        });
+    }
+
     /**
      * 获得缓存的Map
      *
@@ -262,4 +292,34 @@ public class RedisService
     {
         return redisTemplate.keys(pattern);
     }
+
+    /**
+     * 发布消息，消息体为 UTF-8 原始字符串（不经过 JSON 序列化）
+     *
+     * @param channel 频道
+     * @param message 消息
+     */
+    public void publish(final String channel, final String message)
+    {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                channel.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 执行 Lua 脚本，参数按字符串原样传入（不经过 JSON 序列化），脚本写入的值也是原始字符串
+     *
+     * @param script 脚本
+     * @param keys 脚本中的 KEYS
+     * @param args 脚本中的 ARGV
+     * @return 脚本返回值
+     */
+    public <T> T execute(final RedisScript<T> script, final List<String> keys, final Object... args)
+    {
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++)
+        {
+            values[i] = String.valueOf(args[i]);
+        }
+        return (T) redisTemplate.execute(script, StringRedisSerializer.UTF_8, StringRedisSerializer.UTF_8, keys, values);
+    }
 }
@@ -3,7 +3,7 @@ import { PageContainer, ProTable } from '@ant-design/pro-components';
 import { Tag, message, Button, Space, Avatar, Typography, Row, Col, Card, Statistic, Spin, Tooltip, Dropdown } from 'antd';
 import { EyeOutlined, ReloadOutlined, StockOutlined, RiseOutlined, FallOutlined, InfoCircleOutlined, MessageOutlined, PieChartOutlined, FireOutlined, ColumnHeightOutlined } from '@ant-design/icons';
 import React, { useRef, useState, useEffect } from 'react';
-import { getMessageList, triggerCollectNews } from '@/services/crypto/api';
+import { getMessageList, triggerCollectNews, subscribeCryptoStream } from '@/services/crypto/api';
 import { useNavigate, useLocation } from '@umijs/max';
 import { PieChart, Pie, Cell, ResponsiveContainer, Tooltip as RechartsTooltip, Legend, BarChart, Bar, XAxis, YAxis, CartesianGrid } from 'recharts';
 
@@ -55,6 +55,14 @@ const MessageTable: React.FC = () => {
     });
   };
 
+  // 新闻入库后服务端推送，收到后刷新列表
+  useEffect(() => {
+    return subscribeCryptoStream({
+      news: () => actionRef.current?.reload(),
+      reset: () => actionRef.current?.reload(),
+    });
+  }, []);
+
   // 从location.state中获取selectedMessageId并设置筛选条件
   useEffect(() => {
     if ((location.state as { selectedMessageId?: number })?.selectedMessageId) {
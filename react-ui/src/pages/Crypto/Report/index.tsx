@@ -2,9 +2,9 @@ import type { ActionType, ProColumns } from '@ant-design/pro-components';
 import { PageContainer, ProTable } from '@ant-design/pro-components';
 import { message, Modal, Input, Tag, Button, Typography, Space, Badge, Avatar, Card, Row, Col, Statistic, Spin, Tooltip, Dropdown } from 'antd';
 import React, { useRef, useState, useEffect } from 'react';
-import { getReportList, updateReport, generateReport } from '@/services/crypto/api';
+import { getReportList, updateReport, generateReport, getReportJob } from '@/services/crypto/api';
 import { useLocation, useNavigate } from '@umijs/max';
-import { EyeOutlined, CheckCircleOutlined, CloseCircleOutlined, ClockCircleOutlined, RobotOutlined, ShoppingCartOutlined, LineChartOutlined, AuditOutlined, BarChartOutlined, ReloadOutlined, ColumnHeightOutlined, MinusCircleOutlined } from '@ant-design/icons';
+import { EyeOutlined, CheckCircleOutlined, CloseCircleOutlined, ClockCircleOutlined, RobotOutlined, ShoppingCartOutlined, LineChartOutlined, AuditOutlined, BarChartOutlined, ReloadOutlined, ColumnHeightOutlined, MinusCircleOutlined, SyncOutlined } from '@ant-design/icons';
 import { PieChart, Pie, Cell, ResponsiveContainer, Tooltip as RechartsTooltip, Legend } from 'recharts';
 
 const { Paragraph, Text } = Typography;
@@ -115,18 +115,55 @@ const ReportTable: React.FC = () => {
     
     try {
       setLoading(true);
-      await generateReport({ messageId: Number(inputMessageId) });
-      message.success('报告生成成功');
+      const res = await generateReport({ messageId: Number(inputMessageId) });
+      message.success('报告生成任务已提交，生成过程中可继续操作');
       setGenerateModalOpen(false);
       setInputMessageId('');
-      actionRef.current?.reload();
+      if (res?.data?.id) {
+        pollReportJob(res.data.id);
+      }
     } catch (error) {
-      message.error('报告生成失败');
+      message.error('报告生成任务提交失败');
     } finally {
       setLoading(false);
     }
   };
 
+  // 轮询报告生成任务进度，结束后刷新列表
+  const pollReportJob = (jobId: number) => {
+    const key = `report-job-${jobId}`;
+    const timer = setInterval(async () => {
+      try {
+        const res = await getReportJob(jobId);
+        const job = res?.data;
+        if (!job) {
+          clearInterval(timer);
+          message.destroy(key);
+          return;
+        }
+        if (!job.finished) {
+          message.loading({ key, content: `报告生成中（${job.progress || 0}%）${job.stage || ''}`, duration: 0 });
+          if (job.reportId) {
+            actionRef.current?.reload();
+          }
+          return;
+        }
+        clearInterval(timer);
+        if (job.status === '2') {
+          message.success({ key, content: '投资建议报告生成完成' });
+        } else if (job.status === '4') {
+          message.info({ key, content: '报告生成任务已取消' });
+        } else {
+          message.error({ key, content: `报告生成失败：${job.errorMsg || '未知错误'}` });
+        }
+        actionRef.current?.reload();
+      } catch (e) {
+        clearInterval(timer);
+        message.destroy(key);
+      }
+    }, 2000);
+  };
+
   const columns: ProColumns<API.BizInvestmentReportItem>[] = [
     { title: 'ID', dataIndex: 'id', width: 48, search: false },
     { 
@@ -202,11 +239,15 @@ const ReportTable: React.FC = () => {
         '0': { text: '待审核', status: 'Processing' },
         '1': { text: '已通过', status: 'Success' },
         '2': { text: '已驳回', status: 'Error' },
+        '3': { text: '生成中', status: 'Default' },
+        '4': { text: '生成失败', status: 'Error' },
       },
       render: (_, record) => {
         if (record.status === '0') return <Tag color="processing" icon={<ClockCircleOutlined />}>待审核</Tag>;
         if (record.status === '1') return <Tag color="success" icon={<CheckCircleOutlined />}>已通过</Tag>;
         if (record.status === '2') return <Tag color="error" icon={<CloseCircleOutlined />}>已驳回</Tag>;
+        if (record.status === '3') return <Tag color="default" icon={<SyncOutlined spin />}>生成中</Tag>;
+        if (record.status === '4') return <Tag color="error" icon={<CloseCircleOutlined />}>生成失败</Tag>;
         return <Tag>{record.status}</Tag>;
       }
     },
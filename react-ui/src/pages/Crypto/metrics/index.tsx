@@ -2,7 +2,7 @@ import { Button, message, Space, Avatar, Typography, Row, Col, Card, Statistic,
 import { PageContainer } from '@ant-design/pro-components';
 import { ReloadOutlined, StockOutlined, RiseOutlined, FallOutlined, LineChartOutlined, BarChartOutlined, PieChartOutlined, DashboardOutlined, ColumnHeightOutlined } from '@ant-design/icons';
 import React, { useRef, useState, useEffect } from 'react';
-import { getMetricsList, triggerCollectMetrics } from '@/services/crypto/api';
+import { getMetricsList, triggerCollectMetrics, subscribeCryptoStream } from '@/services/crypto/api';
 import { LineChart, Line, XAxis, YAxis, CartesianGrid, ResponsiveContainer, AreaChart, Area, BarChart, Bar, Cell, PieChart, Pie, Tooltip as RechartsTooltip } from 'recharts';
 
 const { Text, Title } = Typography;
@@ -100,6 +100,11 @@ const MetricsDashboard: React.FC = () => {
 
   useEffect(() => {
     fetchData();
+    // 采集完成后服务端推送，不再轮询
+    return subscribeCryptoStream({
+      metrics: () => fetchData(),
+      reset: () => fetchData(),
+    });
   }, []);
 
   const handleCollect = async () => {
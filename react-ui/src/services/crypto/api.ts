@@ -69,14 +69,28 @@ export async function triggerCollectNews() {
   });
 }
 
-// 手动生成投资报告
+// 手动生成投资报告（提交生成任务，返回任务信息）
 export async function generateReport(data: any) {
-  return request('/api/crypto/report/generate', {
+  return request<API.BizReportJobResult>('/api/crypto/report/generate', {
     method: 'POST',
     data,
   });
 }
 
+// 查询报告生成任务状态与进度
+export async function getReportJob(jobId: number) {
+  return request<API.BizReportJobResult>(`/api/crypto/report/job/${jobId}`, {
+    method: 'GET',
+  });
+}
+
+// 取消报告生成任务
+export async function cancelReportJob(jobId: number) {
+  return request<API.BizReportJobResult>(`/api/crypto/report/job/${jobId}/cancel`, {
+    method: 'POST',
+  });
+}
+
 // ================= 投资报告 =================
 
 export async function getReportList(params?: any) {
@@ -99,6 +113,23 @@ export async function removeReport(ids: string) {
   });
 }
 
+// ================= 实时推送 =================
+
+// 订阅行情与新闻推送（metrics 最新行情、news 新消息、reset 需重新拉取列表），返回取消订阅函数
+export function subscribeCryptoStream(handlers: { [event: string]: (data: any) => void }) {
+  const source = new EventSource('/api/crypto/stream');
+  Object.keys(handlers).forEach((event) => {
+    source.addEventListener(event, (e) => {
+      try {
+        handlers[event](JSON.parse((e as MessageEvent).data));
+      } catch (err) {
+        handlers[event](undefined);
+      }
+    });
+  });
+  return () => source.close();
+}
+
 // ================= 仪表盘数据 =================
 
 export async function getDashboardData() {
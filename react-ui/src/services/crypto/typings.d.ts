@@ -38,11 +38,34 @@ declare namespace API {
     messageId: number;
     analysisResult: string;
     adviceContent: string;
-    status: '0' | '1' | '2'; // 0=待审核 1=已通过 2=已驳回
+    status: '0' | '1' | '2' | '3'; // 0=待审核 1=已通过 2=已驳回 3=生成中
     auditBy: string;
     auditTime: string;
     rejectReason: string;
     executeJson: string;
     createTime: string;
   };
+
+  // 报告生成任务
+  type BizReportJob = {
+    id: number;
+    jobType: 'MESSAGE' | 'SUMMARY';
+    messageId?: number;
+    status: '0' | '1' | '2' | '3' | '4'; // 0=排队 1=执行中 2=完成 3=失败 4=取消
+    progress: number;
+    stage?: string;
+    reportId?: number;
+    errorMsg?: string;
+    attempts: number;
+    finished: boolean;
+    createTime: string;
+    startTime?: string;
+    finishTime?: string;
+  };
+
+  type BizReportJobResult = {
+    code: number;
+    msg: string;
+    data: BizReportJob;
+  };
 }
@@ -41,7 +41,7 @@ declare namespace API {
     messageId: number;
     analysisResult: string;
     adviceContent: string;
-    status: '0' | '1' | '2'; // 0=待审核 1=已通过 2=已驳回
+    status: '0' | '1' | '2' | '3'; // 0=待审核 1=已通过 2=已驳回 3=生成中
     auditBy: string;
     auditTime: string;
     rejectReason: string;